@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.backend.java.lib.types.ABSInteger;
+import org.abs_models.backend.java.lib.types.ABSRational;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Arithmetic on ABS integers and rationals, for values that fit into a
+ * <code>long</code> and for values that do not.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ArithmeticBenchmark {
+
+    @Param({ "small", "big" })
+    public String size;
+
+    private ABSInteger a;
+    private ABSInteger b;
+    private ABSRational p;
+    private ABSRational q;
+
+    @Setup
+    public void setup() {
+        if (size.equals("small")) {
+            a = ABSInteger.fromLong(123456789);
+            b = ABSInteger.fromLong(987654321);
+        } else {
+            a = ABSInteger.fromString("123456789012345678901234567890");
+            b = ABSInteger.fromString("987654321098765432109876543210");
+        }
+        p = a.divide(ABSInteger.fromLong(7));
+        q = b.divide(ABSInteger.fromLong(11));
+    }
+
+    @Benchmark
+    public ABSInteger integerAdd() {
+        return a.add(b);
+    }
+
+    @Benchmark
+    public ABSInteger integerMultiply() {
+        return a.multiply(b);
+    }
+
+    @Benchmark
+    public boolean integerCompare() {
+        return a.lt(b).toBoolean();
+    }
+
+    @Benchmark
+    public ABSRational rationalAdd() {
+        return p.add(q);
+    }
+
+    @Benchmark
+    public ABSRational rationalDivide() {
+        return p.divide(q);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.backend.java.scheduling.TaskSchedulerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Asynchronous calls, futures and await statements, measured by running
+ * the main blocks of the models <code>AsyncCall.abs</code>,
+ * <code>AwaitFuture.abs</code> and <code>AwaitBool.abs</code> with each
+ * task scheduler.  The scores are per call resp. per awaited condition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AsyncCallBenchmark {
+
+    /** The number of calls resp. awaits in the main block of each model */
+    private static final int OPERATIONS = 1000;
+
+    @Param({ "default", "simple", "pool" })
+    public String scheduler;
+
+    private TaskSchedulerFactory taskSchedulerFactory;
+    private CompiledModel asyncCall;
+    private CompiledModel awaitFuture;
+    private CompiledModel awaitBool;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        taskSchedulerFactory = CompiledModel.getTaskSchedulerFactory(scheduler);
+        asyncCall = CompiledModel.compile("AsyncCall.abs");
+        awaitFuture = CompiledModel.compile("AwaitFuture.abs");
+        awaitBool = CompiledModel.compile("AwaitBool.abs");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void asyncCallGet() throws Exception {
+        asyncCall.run(taskSchedulerFactory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void awaitFuture() throws Exception {
+        awaitFuture.run(taskSchedulerFactory);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(2 * OPERATIONS)
+    public void awaitBool() throws Exception {
+        awaitBool.run(taskSchedulerFactory);
+    }
+}
@@ -0,0 +1,138 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.CountDownLatch;
+
+import org.abs_models.backend.java.JavaBackend;
+import org.abs_models.backend.java.codegeneration.JavaCode;
+import org.abs_models.backend.java.lib.runtime.ABSRuntime;
+import org.abs_models.backend.java.observing.EmptyCompleteObserver;
+import org.abs_models.backend.java.scheduling.DefaultTaskScheduler;
+import org.abs_models.backend.java.scheduling.PooledTaskScheduler;
+import org.abs_models.backend.java.scheduling.SimpleTaskScheduler;
+import org.abs_models.backend.java.scheduling.TaskSchedulerFactory;
+import org.abs_models.frontend.ast.Model;
+import org.abs_models.frontend.parser.Main;
+
+/**
+ * An ABS model from <code>src/test/resources/benchmarks</code>, compiled
+ * with the Java backend and loaded into the benchmark JVM.
+ */
+final class CompiledModel {
+
+    private final ClassLoader classLoader;
+    private final String mainClass;
+
+    private CompiledModel(ClassLoader classLoader, String mainClass) {
+        this.classLoader = classLoader;
+        this.mainClass = mainClass;
+    }
+
+    /**
+     * Compiles the model in the given file of the benchmarks resource
+     * directory
+     */
+    static CompiledModel compile(String fileName) throws Exception {
+        return compile(fileName, true);
+    }
+
+    /**
+     * Compiles the model as <code>compile</code>, with or without
+     * generating self tail calls of functions as loops
+     */
+    static CompiledModel compile(String fileName, boolean tailCallLoops) throws Exception {
+        File dir = Files.createTempDirectory("absbenchmark").toFile();
+        dir.deleteOnExit();
+        File source = new File(dir, fileName);
+        try (InputStream in = CompiledModel.class.getResourceAsStream("/benchmarks/" + fileName)) {
+            if (in == null)
+                throw new IOException("Benchmark model " + fileName + " not found");
+            Files.copy(in, source.toPath());
+        }
+        Model m = new Main().parse(Collections.singletonList(source));
+        if (m.hasParserErrors() || m.hasErrors() || m.hasTypeErrors())
+            throw new IllegalStateException("Benchmark model " + fileName + " has errors");
+
+        m.setGenerateTailCallLoops(tailCallLoops);
+        JavaCode code = new JavaCode(new File(dir, "gen"));
+        m.generateJavaCode(code, false);
+        code.compile();
+        ClassLoader loader = new URLClassLoader(new URL[] { code.getSrcDir().toURI().toURL() },
+                                                CompiledModel.class.getClassLoader());
+        String main = null;
+        try {
+            main = code.getFirstMainClass();
+        } catch (IllegalStateException e) {
+            // models with functions only
+        }
+        return new CompiledModel(loader, main);
+    }
+
+    /**
+     * @return the task scheduler factory selected by the given value of
+     * the runtime option <code>-taskscheduler</code>
+     */
+    static TaskSchedulerFactory getTaskSchedulerFactory(String scheduler) {
+        switch (scheduler) {
+        case "default": return DefaultTaskScheduler.getFactory();
+        case "simple": return SimpleTaskScheduler.getFactory();
+        case "pool": return PooledTaskScheduler.getFactory();
+        default: throw new IllegalArgumentException("Unknown task scheduler " + scheduler);
+        }
+    }
+
+    /**
+     * Runs the main block of the model in a new runtime and waits until
+     * all its tasks have finished.
+     */
+    void run(TaskSchedulerFactory taskSchedulerFactory) throws Exception {
+        run(taskSchedulerFactory, true);
+    }
+
+    /**
+     * Runs the main block of the model as <code>run</code>, with or
+     * without notifying observers, see
+     * <code>ABSRuntime.disableObservers</code>.
+     */
+    void run(TaskSchedulerFactory taskSchedulerFactory, boolean observers) throws Exception {
+        ABSRuntime runtime = new ABSRuntime();
+        runtime.setTaskSchedulerFactory(taskSchedulerFactory);
+        if (!observers)
+            runtime.disableObservers();
+        CountDownLatch finished = new CountDownLatch(1);
+        runtime.addSystemObserver(new EmptyCompleteObserver() {
+            @Override
+            public void systemFinished() {
+                finished.countDown();
+            }
+        });
+        runtime.start(classLoader.loadClass(mainClass));
+        finished.await();
+    }
+
+    /**
+     * @return the <code>apply</code> method of the class generated for
+     * the given function
+     * @param module the module of the function
+     * @param name the name of the function
+     */
+    Method getFunction(String module, String name) throws ClassNotFoundException {
+        Class<?> c = classLoader.loadClass(module + "." + JavaBackend.getFunctionName(name));
+        for (Method method : c.getMethods()) {
+            if (method.getName().equals("apply"))
+                return method;
+        }
+        throw new IllegalArgumentException("No function " + module + "." + name);
+    }
+}
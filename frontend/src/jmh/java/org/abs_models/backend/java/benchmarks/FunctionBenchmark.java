@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.backend.java.lib.types.ABSInteger;
+import org.abs_models.common.Constants;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Pattern matching and standard library functions on lists and maps,
+ * measured by calling the generated code of the functions in
+ * <code>Functions.abs</code> and the standard library directly.  The
+ * scores are per call on a collection with the given number of elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FunctionBenchmark {
+
+    private static final String MODULE = "FunctionsBench";
+
+    @Param({ "100", "10000" })
+    public int size;
+
+    private ABSInteger n;
+    private Object maybes;
+    private Object list;
+    private Object map;
+
+    private Method makeMap;
+    private Method sumJust;
+    private Method lookupAll;
+    private Method removeAll;
+    private Method length;
+    private Method nth;
+    private Method concatenate;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        CompiledModel model = CompiledModel.compile("Functions.abs");
+        n = ABSInteger.fromInt(size);
+        maybes = model.getFunction(MODULE, "makeMaybes").invoke(null, n);
+        list = model.getFunction(MODULE, "makeList").invoke(null, n);
+        makeMap = model.getFunction(MODULE, "makeMap");
+        map = makeMap.invoke(null, n);
+        sumJust = model.getFunction(MODULE, "sumJust");
+        lookupAll = model.getFunction(MODULE, "lookupAll");
+        removeAll = model.getFunction(MODULE, "removeAll");
+        length = model.getFunction(Constants.STDLIB_NAME, "length");
+        nth = model.getFunction(Constants.STDLIB_NAME, "nth");
+        concatenate = model.getFunction(Constants.STDLIB_NAME, "concatenate");
+    }
+
+    @Benchmark
+    public Object caseMatch() throws Exception {
+        return sumJust.invoke(null, maybes, ABSInteger.ZERO);
+    }
+
+    @Benchmark
+    public Object mapPut() throws Exception {
+        return makeMap.invoke(null, n);
+    }
+
+    @Benchmark
+    public Object mapLookup() throws Exception {
+        return lookupAll.invoke(null, map, n, ABSInteger.ZERO);
+    }
+
+    @Benchmark
+    public Object mapRemoveKey() throws Exception {
+        return removeAll.invoke(null, map, n);
+    }
+
+    @Benchmark
+    public Object listLength() throws Exception {
+        return length.invoke(null, list);
+    }
+
+    @Benchmark
+    public Object listNth() throws Exception {
+        return nth.invoke(null, list, ABSInteger.fromInt(size - 1));
+    }
+
+    @Benchmark
+    public Object listConcatenate() throws Exception {
+        return concatenate.invoke(null, list, list);
+    }
+}
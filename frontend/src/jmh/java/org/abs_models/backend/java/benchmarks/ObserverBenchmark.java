@@ -0,0 +1,61 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.backend.java.scheduling.TaskSchedulerFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The overhead of notifying observers, measured by running the main
+ * block of <code>AsyncFanOut.abs</code> with and without the runtime
+ * option <code>-noobservers</code>.  As in all benchmarks, a system
+ * observer waits for the end of the run, so with observers, a view of
+ * each new cog is created.  The scores are per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObserverBenchmark {
+
+    /** The number of calls in the main block of the model */
+    private static final int OPERATIONS = 1000;
+
+    @Param({ "default", "pool" })
+    public String scheduler;
+
+    @Param({ "true", "false" })
+    public boolean observers;
+
+    private TaskSchedulerFactory taskSchedulerFactory;
+    private CompiledModel fanOut;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        taskSchedulerFactory = CompiledModel.getTaskSchedulerFactory(scheduler);
+        fanOut = CompiledModel.compile("AsyncFanOut.abs");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPERATIONS)
+    public void asyncFanOut() throws Exception {
+        fanOut.run(taskSchedulerFactory, observers);
+    }
+}
@@ -0,0 +1,74 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.benchmarks;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.backend.java.lib.types.ABSInteger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The same tail-recursive functions of <code>Functions.abs</code>,
+ * compiled with self tail calls as loops and as calls (<code>absc
+ * --no-tailcall-loops</code>).  The sizes are kept small enough for the
+ * recursive calls not to overflow the stack.  The scores are per call on a
+ * collection with the given number of elements.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TailCallBenchmark {
+
+    private static final String MODULE = "FunctionsBench";
+
+    @Param({ "100", "1000" })
+    public int size;
+
+    @Param({ "true", "false" })
+    public boolean loops;
+
+    private ABSInteger n;
+    private Object maybes;
+    private Object map;
+
+    private Method sumJust;
+    private Method lookupAll;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        CompiledModel model = CompiledModel.compile("Functions.abs", loops);
+        n = ABSInteger.fromInt(size);
+        maybes = model.getFunction(MODULE, "makeMaybes").invoke(null, n);
+        map = model.getFunction(MODULE, "makeMap").invoke(null, n);
+        sumJust = model.getFunction(MODULE, "sumJust");
+        lookupAll = model.getFunction(MODULE, "lookupAll");
+    }
+
+    /** tail call in a branch of a case expression */
+    @Benchmark
+    public Object caseTailCall() throws Exception {
+        return sumJust.invoke(null, maybes, ABSInteger.ZERO);
+    }
+
+    /** tail call in a branch of a when expression */
+    @Benchmark
+    public Object whenTailCall() throws Exception {
+        return lookupAll.invoke(null, map, n, ABSInteger.ZERO);
+    }
+}
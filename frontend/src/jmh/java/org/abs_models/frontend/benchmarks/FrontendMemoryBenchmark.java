@@ -0,0 +1,136 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.benchmarks;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.frontend.ast.Model;
+import org.abs_models.frontend.parser.Main;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Memory used by the frontend for a large generated model, with and
+ * without <code>absc --compact-ast</code>.  Each invocation parses and
+ * typechecks the model; the secondary result <code>retainedMegabytes</code>
+ * is the heap still in use afterwards, i.e., what the backends start
+ * with.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class FrontendMemoryBenchmark {
+
+    /** The number of modules of the generated model */
+    @Param({ "400" })
+    public int modules;
+
+    @Param({ "false", "true" })
+    public boolean compact;
+
+    private File dir;
+    private File source;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Memory {
+        public long retainedMegabytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedMegabytes = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("absmemory").toFile();
+        source = new File(dir, "Large.abs");
+        FileUtils.writeStringToFile(source, generateModel(modules), StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public Model parseAndTypeCheck(Memory memory) throws Exception {
+        Main main = new Main();
+        main.arguments.compactAst = compact;
+        Model m = main.parse(Collections.singletonList(source));
+        if (m.hasParserErrors() || m.hasTypeErrors())
+            throw new IllegalStateException("Generated model has errors");
+        memory.retainedMegabytes = usedHeap() / (1024 * 1024);
+        return m;
+    }
+
+    private static long usedHeap() {
+        for (int i = 0; i < 3; i++) System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    /**
+     * A chain of modules, each with a datatype, functions, an interface
+     * and classes that use the declarations of the previous module.
+     */
+    static String generateModel(int modules) {
+        StringBuilder s = new StringBuilder();
+        for (int i = 0; i < modules; i++) {
+            s.append("module M").append(i).append("; export *;\n");
+            if (i > 0) s.append("import * from M").append(i - 1).append(";\n");
+            s.append("data D").append(i).append(" = A").append(i).append("(Int value").append(i)
+                .append(") | B").append(i).append("(String, List<Int>);\n");
+            s.append("def Int f").append(i).append("(D").append(i).append(" d) = case d { A").append(i)
+                .append("(x) => x; B").append(i).append("(s, l) => length(l) + f").append(i)
+                .append("(A").append(i).append("(strlen(s))); };\n");
+            s.append("def List<Int> g").append(i).append("(Int n) = if n <= 0 then Nil else Cons(n, g")
+                .append(i).append("(n - 1));\n");
+            s.append("interface I").append(i).append(" { Int m(Int x); Unit n(Map<String, Int> m); }\n");
+            for (int c = 0; c < 4; c++) {
+                s.append("class C").append(i).append('_').append(c).append("(Int p) implements I").append(i).append(" {\n")
+                    .append("  Int count = 0; Map<String, Int> seen = map[];\n")
+                    .append("  Int m(Int x) {\n")
+                    .append("    Int y = f").append(i).append("(A").append(i).append("(x + p));\n")
+                    .append("    foreach (v in g").append(i).append("(x)) { y = y + v; count = count + 1; }\n")
+                    .append("    if (y > 100) { y = y - 100; } else { y = y * 3; }\n")
+                    .append("    await count > 0;\n")
+                    .append("    return y;\n")
+                    .append("  }\n")
+                    .append("  Unit n(Map<String, Int> m) {\n")
+                    .append("    foreach (k in elements(keys(m))) { seen = put(seen, k, lookupDefault(m, k, 0) + count); }\n");
+                if (i > 0) {
+                    s.append("    I").append(i - 1).append(" o = new C").append(i - 1).append("_").append(c).append("(count);\n")
+                        .append("    Int r = await o!m(f").append(i - 1).append("(B").append(i - 1).append("(\"x\", list[1, 2])));\n")
+                        .append("    o.n(seen);\n");
+                }
+                s.append("  }\n}\n");
+            }
+        }
+        s.append("{ I").append(modules - 1).append(" o = new C").append(modules - 1)
+            .append("_0(1); Int r = await o!m(3); }\n");
+        return s.toString();
+    }
+}
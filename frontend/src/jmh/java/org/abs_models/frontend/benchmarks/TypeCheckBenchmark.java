@@ -0,0 +1,87 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.benchmarks;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.common.Timings;
+import org.abs_models.frontend.analyser.SemanticConditionList;
+import org.abs_models.frontend.ast.Model;
+import org.abs_models.frontend.parser.Main;
+import org.abs_models.frontend.typechecker.nullable.NullCheckerExtension;
+import org.apache.commons.io.FileUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to typecheck a large generated model, with the same type system
+ * extensions as a default <code>absc</code> run, with and without
+ * <code>absc --timings</code>.  The model is parsed again before each
+ * invocation, since typechecking caches its results in the AST.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class TypeCheckBenchmark {
+
+    /** The number of modules of the generated model */
+    @Param({ "200" })
+    public int modules;
+
+    @Param({ "false", "true" })
+    public boolean timings;
+
+    private File dir;
+    private File source;
+    private Model model;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dir = Files.createTempDirectory("abstypecheck").toFile();
+        source = new File(dir, "Large.abs");
+        FileUtils.writeStringToFile(source, FrontendMemoryBenchmark.generateModel(modules), StandardCharsets.UTF_8);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Setup(Level.Invocation)
+    public void parse() throws Exception {
+        Main main = new Main();
+        main.arguments.notypecheck = true;
+        model = main.parse(Collections.singletonList(source));
+        if (model.hasParserErrors())
+            throw new IllegalStateException("Generated model has parser errors");
+        model.timings = timings ? new Timings() : Timings.DISABLED;
+        model.registerTypeSystemExtension(new NullCheckerExtension(model));
+    }
+
+    @Benchmark
+    public SemanticConditionList typeCheck() {
+        SemanticConditionList errors = model.typeCheck();
+        if (errors.containsErrors())
+            throw new IllegalStateException("Generated model has type errors");
+        return errors;
+    }
+}
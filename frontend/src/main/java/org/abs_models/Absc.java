@@ -7,7 +7,10 @@ import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.stream.Collectors;
 
+import org.abs_models.backend.java.codegeneration.IncrementalJavaCode;
+import org.abs_models.common.Timings;
 import org.abs_models.frontend.parser.Main;
+import org.abs_models.frontend.parser.ParseCache;
 import org.abs_models.frontend.typechecker.CheckSPLCommand;
 import org.abs_models.frontend.typechecker.locationtypes.LocationType;
 
@@ -104,6 +107,25 @@ public class Absc implements Callable<Integer> {
     @Option(names = { "--dump"},
             description = "dump AST to standard output")
     public boolean dump = false;
+    @Option(names = { "--timings" },
+            description = "print wall time, allocated memory and peak heap usage of each compiler phase to standard error")
+    public boolean timings_table = false;
+    @Option(names = { "--timings-json" },
+            description = "like @|bold --timings|@, but print the timings in JSON format")
+    public boolean timings_json = false;
+
+    /** The timings of this compiler run; recorded only when requested by --timings */
+    public Timings timings = Timings.DISABLED;
+
+    @Option(names = { "--daemon" },
+            description = {"keep running and compile the model again for each line read from standard input, reparsing, regenerating and recompiling only what changed",
+                           "Enter @|bold quit|@ to stop."})
+    public boolean daemon = false;
+
+    /** The parsed files kept between compilations by --daemon, or null */
+    public ParseCache parseCache = null;
+    /** The generated Java code kept between compilations by --daemon, or null */
+    public IncrementalJavaCode incrementalJavaCode = null;
 
     // Code generation options
     @Option(names = { "-o", "--output-file"},
@@ -151,6 +173,12 @@ public class Absc implements Callable<Integer> {
     @Option(names = { "--sourceonly" },
             description = "@|bold Java backend:|@ do not generate Java .class files")
     public boolean java_sourceOnly = false;
+    @Option(names = { "--patternobjects" },
+            description = "@|bold Java backend:|@ generate case and let expressions as pattern objects instead of decision trees")
+    public boolean java_patternObjects = false;
+    @Option(names = { "--no-tailcall-loops" },
+            description = "@|bold Java backend:|@ generate self tail calls of functions as calls instead of loops")
+    public boolean java_noTailCallLoops = false;
 
     // Pretty-printer
     @Option(names = { "-f", "--force" },
@@ -171,6 +199,10 @@ public class Absc implements Callable<Integer> {
             description = "disable typechecking")
     public boolean notypecheck = false;
 
+    @Option(names = { "--compact-ast" },
+            description = "reduce memory usage for large models by discarding cached analysis results after typechecking (ignored with --loctypecheck)")
+    public boolean compactAst = false;
+
     @Option(names = { "--nonullablecheck" },
             description = "disable nullable checking")
     public boolean nonullcheck = false;
@@ -61,7 +61,9 @@ public class ErlApp {
         if (!destDir.mkdirs() && !destDir.isDirectory()) {
             throw new IOException("Could not create directory " + destDir.toString());
         }
-        FileUtils.cleanDirectory(destDir);
+        // Keep the compiled modules so that ErlangCompiler only needs to
+        // compile the changed ones
+        cleanDirectory(destDir, new File(destDir, ErlangCompiler.EBIN_DIR));
         // new File(destDir, "absmodel/ebin").mkdir();
         index_file = http_index_file;
         static_dir = http_static_dir;
@@ -71,6 +73,27 @@ public class ErlApp {
         copyRuntime();
     }
 
+    /**
+     * Deletes the contents of dir, except for the directory keep.
+     */
+    private static void cleanDirectory(File dir, File keep) throws IOException {
+        File[] files = dir.listFiles();
+        if (files == null) {
+            throw new IOException("Could not list directory " + dir.toString());
+        }
+        String keepPath = keep.getCanonicalPath();
+        for (File f : files) {
+            String path = f.getCanonicalPath();
+            if (path.equals(keepPath)) {
+                continue;
+            } else if (f.isDirectory() && keepPath.startsWith(path + File.separator)) {
+                cleanDirectory(f, keep);
+            } else {
+                FileUtils.forceDelete(f);
+            }
+        }
+    }
+
     public CodeStream createSourceFile(String moduleName) throws FileNotFoundException, UnsupportedEncodingException {
         return new CodeStream(new File(destCodeDir, moduleName + ".erl"));
     }
@@ -5,26 +5,18 @@ package org.abs_models.backend.erlang;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FilenameFilter;
 import java.io.IOException;
 import java.io.InputStreamReader;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.EnumSet;
-import java.util.List;
-import java.util.Set;
-import java.util.stream.Collectors;
 
 import com.google.common.annotations.VisibleForTesting;
 
 import org.abs_models.Absc;
 import org.abs_models.backend.common.InternalBackendException;
 import org.abs_models.common.NotImplementedYetException;
+import org.abs_models.common.Timings;
 import org.abs_models.frontend.ast.Model;
 import org.abs_models.frontend.parser.Main;
-import org.apache.commons.io.FilenameUtils;
-import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.output.NullOutputStream;
 
 /**
  * Translates given ABS Files to an Erlang program
@@ -124,57 +116,24 @@ public class ErlangBackend extends Main {
             String message = "ABS requires at least erlang version " + Integer.toString(minErlangVersion) + ", installed version is " + Integer.toString(version);
             throw new InternalBackendException(message);
         }
-        String ebin_dir = "/absmodel/_build/default/lib/absmodel/ebin/";
         ErlApp erlApp = new ErlApp(destDir, arguments.http_index_file, arguments.http_static_dir);
-        m.generateErlangCode(erlApp, options);
-        erlApp.close();
-
-        List<String> compile_command = new ArrayList<String>();
-        // We used to call "rebar compile" here but calling erlc directly
-        // removes 1.5s from the compile time
-        compile_command.add("erlc");
-        if (options.contains(CompileOptions.DEBUG)) {
-            compile_command.add("+debug_info");
+        try (Timings.Phase phase = arguments.timings.start("generate Erlang code")) {
+            m.generateErlangCode(erlApp, options);
+            erlApp.close();
         }
-        compile_command.add("-I");
-        compile_command.add(destDir + "/absmodel/include");
-        compile_command.add("-o");
-        compile_command.add(destDir + ebin_dir);
-        // Set<String> compiled_basenames =
-        //     Arrays.stream(new File(destDir, ebin_dir).listFiles())
-        //     .map((File f) -> FilenameUtils.removeExtension(f.getName()))
-        //     .collect(Collectors.toSet());
-        Arrays.stream(new File(destDir, "absmodel/src/")
-                      .listFiles(new FilenameFilter() {
-                              public boolean accept(File dir, String name) {
-                                  return name.endsWith(".erl")
-                                      // && !compiled_basenames.contains(FilenameUtils.removeExtension(name))
-                                      ;
-                              }
-                          }))
-            .forEach((File f) -> compile_command.add(f.toString()));
 
-        if (options.contains(CompileOptions.VERBOSE)) {
-            System.out.println("Compiling erlang files with command: "
-                               + String.join(" ", compile_command));
+        ErlangCompiler compiler = new ErlangCompiler(destDir, Integer.toString(version),
+                                                     options.contains(CompileOptions.DEBUG),
+                                                     options.contains(CompileOptions.VERBOSE));
+        try (Timings.Phase phase = arguments.timings.start("compile Erlang code")) {
+            compiler.compile();
         }
-
-        Process p = Runtime.getRuntime().exec(compile_command.toArray(new String[0]));
-        if (options.contains(CompileOptions.VERBOSE)) IOUtils.copy(p.getInputStream(), System.out);
-        else IOUtils.copy(p.getInputStream(), new NullOutputStream());
-        p.waitFor();
-        if (p.exitValue() != 0) {
-            String message = "Compilation of generated erlang code failed with exit value " + p.exitValue();
-            if (!options.contains(CompileOptions.VERBOSE)) message = message + "\n  (use -v for detailed compiler output)";
-            throw new InternalBackendException(message);
-            // TODO: consider removing the generated code here.  For now,
-            // let's leave it in place for diagnosis.
-        } else {
-            if (options.contains(CompileOptions.VERBOSE)) {
-                System.out.println();
-                System.out.println("Finished.  \"gen/erl/run\" to start the model.");
-                System.out.println("          (\"gen/erl/run --help\" for more options)");
-            }
+        if (options.contains(CompileOptions.VERBOSE)) {
+            System.out.println("Compiled " + compiler.getCompiledFileCount() + " of "
+                               + compiler.getSourceFileCount() + " Erlang files");
+            System.out.println();
+            System.out.println("Finished.  \"gen/erl/run\" to start the model.");
+            System.out.println("          (\"gen/erl/run --help\" for more options)");
         }
     }
 
@@ -0,0 +1,255 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.erlang;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+import org.abs_models.backend.common.InternalBackendException;
+import org.abs_models.frontend.parser.Main;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Compiles the Erlang sources of a generated application with erlc.
+ *
+ * Only sources that changed since the last compilation into the same
+ * directory are compiled; a file in the ebin directory records the hash of
+ * every compiled source.  A change to an include file, the absc or erlc
+ * version or the compiler flags invalidates all hashes.  The sources are
+ * split across several erlc processes that run in parallel.
+ */
+public class ErlangCompiler {
+
+    /** The output directory of erlc, relative to the application directory */
+    public static final String EBIN_DIR = "absmodel/_build/default/lib/absmodel/ebin/";
+    static final String HASH_FILE = "absc-sources.sha256";
+
+    private final File destDir;
+    private final String erlangVersion;
+    private final boolean debugInfo;
+    private final boolean verbose;
+    private int compiledFileCount = 0;
+    private int sourceFileCount = 0;
+
+    /**
+     * @param erlangVersion the OTP release of the installed erlc, see
+     * {@link ErlangBackend#getErlangVersion}
+     */
+    public ErlangCompiler(File destDir, String erlangVersion, boolean debugInfo, boolean verbose) {
+        this.destDir = destDir;
+        this.erlangVersion = erlangVersion;
+        this.debugInfo = debugInfo;
+        this.verbose = verbose;
+    }
+
+    public void compile() throws IOException, InterruptedException, InternalBackendException {
+        File srcDir = new File(destDir, "absmodel/src/");
+        File includeDir = new File(destDir, "absmodel/include/");
+        File ebinDir = new File(destDir, EBIN_DIR);
+        if (!ebinDir.mkdirs() && !ebinDir.isDirectory()) {
+            throw new IOException("Could not create directory " + ebinDir);
+        }
+        File hashFile = new File(ebinDir, HASH_FILE);
+
+        List<String> options = new ArrayList<>();
+        if (debugInfo) options.add("+debug_info");
+        Map<String, String> hashes = hashSources(srcDir, includeDir, erlangVersion, String.join(" ", options));
+        Map<String, String> oldHashes = readHashes(hashFile);
+        // Forget the old hashes until compilation succeeds
+        hashFile.delete();
+
+        for (String name : oldHashes.keySet()) {
+            if (!hashes.containsKey(name)) {
+                new File(ebinDir, FilenameUtils.removeExtension(name) + ".beam").delete();
+            }
+        }
+        List<File> toCompile = new ArrayList<>();
+        for (Map.Entry<String, String> e : hashes.entrySet()) {
+            File beam = new File(ebinDir, FilenameUtils.removeExtension(e.getKey()) + ".beam");
+            if (!e.getValue().equals(oldHashes.get(e.getKey())) || !beam.exists()) {
+                toCompile.add(new File(srcDir, e.getKey()));
+            }
+        }
+        sourceFileCount = hashes.size();
+        compiledFileCount = toCompile.size();
+
+        // Keep the hashes of unchanged sources even if compilation fails
+        Map<String, String> valid = new TreeMap<>(hashes);
+        for (File f : toCompile) valid.remove(f.getName());
+        try {
+            if (toCompile.isEmpty()) {
+                if (verbose) System.out.println("All Erlang files are up to date");
+                return;
+            }
+            int nProcesses = Math.min(Runtime.getRuntime().availableProcessors(),
+                                      (toCompile.size() + MIN_BATCH_SIZE - 1) / MIN_BATCH_SIZE);
+            List<List<File>> batches = partition(toCompile, nProcesses);
+            List<Process> processes = new ArrayList<>();
+            for (List<File> batch : batches) {
+                List<String> command = new ArrayList<>();
+                // We used to call "rebar compile" here but calling erlc directly
+                // removes 1.5s from the compile time
+                command.add("erlc");
+                command.addAll(options);
+                command.add("-I");
+                command.add(includeDir.getPath());
+                command.add("-o");
+                command.add(ebinDir.getPath());
+                for (File f : batch) command.add(f.getPath());
+                if (verbose) {
+                    System.out.println("Compiling erlang files with command: " + String.join(" ", command));
+                }
+                processes.add(new ProcessBuilder(command).redirectErrorStream(true).start());
+            }
+            boolean failed = false;
+            for (int i = 0; i < processes.size(); i++) {
+                Process p = processes.get(i);
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                IOUtils.copy(p.getInputStream(), out);
+                if (verbose) System.out.print(out.toString(StandardCharsets.UTF_8.name()));
+                if (p.waitFor() != 0) {
+                    failed = true;
+                } else {
+                    for (File f : batches.get(i)) valid.put(f.getName(), hashes.get(f.getName()));
+                }
+            }
+            if (failed) {
+                String message = "Compilation of generated erlang code failed";
+                if (!verbose) message = message + "\n  (use -v for detailed compiler output)";
+                throw new InternalBackendException(message);
+                // TODO: consider removing the generated code here.  For now,
+                // let's leave it in place for diagnosis.
+            }
+        } finally {
+            writeHashes(hashFile, valid);
+        }
+    }
+
+    /**
+     * @return the number of source files compiled by the last call of
+     * {@link #compile}
+     */
+    public int getCompiledFileCount() {
+        return compiledFileCount;
+    }
+
+    /**
+     * @return the number of source files of the application
+     */
+    public int getSourceFileCount() {
+        return sourceFileCount;
+    }
+
+    /** Do not start an erlc process for fewer files than this */
+    private static final int MIN_BATCH_SIZE = 8;
+
+    /**
+     * Splits the files into at most n batches of roughly equal total size,
+     * largest files first.
+     */
+    static List<List<File>> partition(List<File> files, int n) {
+        List<File> sorted = new ArrayList<>(files);
+        sorted.sort(Comparator.comparingLong(File::length).reversed().thenComparing(File::getName));
+        List<List<File>> batches = new ArrayList<>();
+        long[] sizes = new long[Math.max(1, Math.min(n, files.size()))];
+        for (int i = 0; i < sizes.length; i++) batches.add(new ArrayList<>());
+        for (File f : sorted) {
+            int smallest = 0;
+            for (int i = 1; i < sizes.length; i++) {
+                if (sizes[i] < sizes[smallest]) smallest = i;
+            }
+            batches.get(smallest).add(f);
+            sizes[smallest] += Math.max(1, f.length());
+        }
+        batches.removeIf(List::isEmpty);
+        return batches;
+    }
+
+    /**
+     * Computes a hash for every <code>.erl</code> file in srcDir, covering
+     * its content, all include files, the versions of absc and erlc and
+     * the erlc options.
+     *
+     * @return the hashes by file name
+     */
+    static Map<String, String> hashSources(File srcDir, File includeDir, String erlangVersion, String options) throws IOException {
+        MessageDigest common = sha256();
+        common.update((Main.getGitVersion() + "\n" + erlangVersion + "\n" + options + "\n")
+                      .getBytes(StandardCharsets.UTF_8));
+        for (File f : sortedFiles(includeDir, "")) {
+            common.update(f.getName().getBytes(StandardCharsets.UTF_8));
+            common.update(Files.readAllBytes(f.toPath()));
+        }
+        byte[] commonHash = common.digest();
+
+        Map<String, String> result = new TreeMap<>();
+        for (File f : sortedFiles(srcDir, ".erl")) {
+            MessageDigest md = sha256();
+            md.update(commonHash);
+            md.update(Files.readAllBytes(f.toPath()));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : md.digest()) hex.append(String.format("%02x", b));
+            result.put(f.getName(), hex.toString());
+        }
+        return result;
+    }
+
+    private static List<File> sortedFiles(File dir, String suffix) {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(suffix));
+        if (files == null) return Collections.emptyList();
+        List<File> result = new ArrayList<>();
+        for (File f : files) {
+            if (f.isFile()) result.add(f);
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-256 must be supported by all Java runtime implementations
+            throw new IllegalStateException(e);
+        }
+    }
+
+    static Map<String, String> readHashes(File hashFile) {
+        Map<String, String> result = new TreeMap<>();
+        if (!hashFile.isFile()) return result;
+        Properties p = new Properties();
+        try (java.io.Reader in = Files.newBufferedReader(hashFile.toPath(), StandardCharsets.UTF_8)) {
+            p.load(in);
+        } catch (IOException | IllegalArgumentException e) {
+            // compile everything
+            return result;
+        }
+        for (String name : p.stringPropertyNames()) {
+            result.put(name, p.getProperty(name));
+        }
+        return result;
+    }
+
+    private static void writeHashes(File hashFile, Map<String, String> hashes) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("# Hashes of the sources compiled by absc, see " + ErlangCompiler.class.getName());
+        for (Map.Entry<String, String> e : hashes.entrySet()) {
+            lines.add(e.getKey() + "=" + e.getValue());
+        }
+        Files.write(hashFile.toPath(), lines, StandardCharsets.UTF_8);
+    }
+}
@@ -19,6 +19,7 @@ import java.util.UUID;
 
 import org.abs_models.Absc;
 import org.abs_models.backend.common.InternalBackendException;
+import org.abs_models.backend.java.codegeneration.IncrementalJavaCode;
 import org.abs_models.backend.java.codegeneration.JavaCode;
 import org.abs_models.backend.java.codegeneration.JavaCodeGenerationException;
 import org.abs_models.backend.java.lib.runtime.ABSFut;
@@ -31,6 +32,7 @@ import org.abs_models.backend.java.lib.types.ABSRational;
 import org.abs_models.backend.java.lib.types.ABSString;
 import org.abs_models.backend.java.lib.types.ABSUnit;
 import org.abs_models.common.NotImplementedYetException;
+import org.abs_models.common.Timings;
 import org.abs_models.frontend.ast.ClassDecl;
 import org.abs_models.frontend.ast.ClassModifier;
 import org.abs_models.frontend.ast.ConstructorArg;
@@ -101,17 +103,35 @@ public class JavaBackend extends Main {
     }
 
     private void compile(Model m, File destDir) throws IOException, JavaCodeGenerationException {
-        JavaCode javaCode = new JavaCode(destDir);
-        if (this.untypedJavaGen) {
-            if (arguments.verbose) System.out.println("Generating dynamic Java code...");
-            m.generateJavaCodeDynamic(javaCode, arguments.debug_generated_code);
-        } else {
-            if (arguments.verbose) System.out.println("Generating Java code...");
-            m.generateJavaCode(javaCode, arguments.debug_generated_code);
+        IncrementalJavaCode incremental = arguments.incrementalJavaCode;
+        // With --daemon, generate into a scratch directory and only update
+        // the changed files in destDir
+        JavaCode javaCode = incremental == null ? new JavaCode(destDir) : new JavaCode();
+        try (Timings.Phase p = arguments.timings.start("generate Java code")) {
+            if (this.untypedJavaGen) {
+                if (arguments.verbose) System.out.println("Generating dynamic Java code...");
+                m.generateJavaCodeDynamic(javaCode, arguments.debug_generated_code);
+            } else {
+                if (arguments.verbose) System.out.println("Generating Java code...");
+                m.setGeneratePatternObjects(arguments.java_patternObjects);
+                m.setGenerateTailCallLoops(!arguments.java_noTailCallLoops);
+                m.generateJavaCode(javaCode, arguments.debug_generated_code);
+            }
         }
-        if (!arguments.java_sourceOnly) {
+        if (incremental != null) {
+            try (Timings.Phase p = arguments.timings.start("compile Java code")) {
+                incremental.update(javaCode, destDir, !arguments.java_sourceOnly);
+            } finally {
+                javaCode.deleteCode();
+            }
+            if (arguments.verbose)
+                System.out.println("Updated " + incremental.getChangedFileCount() + " generated files, compiled "
+                                   + incremental.getCompiledFileCount() + " files");
+        } else if (!arguments.java_sourceOnly) {
             if (arguments.verbose) System.out.println("Compiling generated Java code...");
-            javaCode.compile();
+            try (Timings.Phase p = arguments.timings.start("compile Java code")) {
+                javaCode.compile();
+            }
         }
     }
 
@@ -50,6 +50,7 @@ public class ClassDeclGenerator {
         generateFields();
         generateConstructor();
         generateGetFieldValueMethod();
+        generateSetFieldValueMethod();
 
         stream.println("public final java.lang.String getClassName() { return \"" + decl.getName() + "\"; }");
 
@@ -162,6 +163,17 @@ public class ClassDeclGenerator {
         stream.println("}");
     }
 
+    private void generateSetFieldValueMethod() {
+        stream.println("protected final void setFieldValue(java.lang.String __ABS_fieldName, " + ABSValue.class.getName() + " __ABS_value) throws java.lang.NoSuchFieldException {");
+        for (FieldDecl f : decl.getFields()) {
+            stream.println("if (\"" + f.getName() + "\".equals(__ABS_fieldName)) { "
+                           + JavaBackend.getVariableName(f.getName()) + " = (" + JavaBackend.getQualifiedString(f.getType()) + ")__ABS_value; return; }");
+        }
+        stream.println("super.setFieldValue(__ABS_fieldName, __ABS_value);");
+
+        stream.println("}");
+    }
+
     private void generateConstructor() {
         // constructor
         stream.print("public " + className);
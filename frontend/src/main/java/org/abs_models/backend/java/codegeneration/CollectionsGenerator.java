@@ -0,0 +1,205 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.codegeneration;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.List;
+
+import org.abs_models.backend.java.JavaBackend;
+import org.abs_models.backend.java.lib.collections.CollectionBacking;
+import org.abs_models.backend.java.lib.collections.PersistentCollection;
+import org.abs_models.backend.java.lib.collections.StdLibCollections;
+import org.abs_models.backend.java.lib.types.ABSBool;
+import org.abs_models.backend.java.lib.types.ABSValue;
+import org.abs_models.common.Constants;
+import org.abs_models.frontend.ast.ConstructorArg;
+import org.abs_models.frontend.ast.DataConstructor;
+import org.abs_models.frontend.ast.DataTypeDecl;
+import org.abs_models.frontend.ast.FunctionDecl;
+import org.abs_models.frontend.typechecker.DataTypeType;
+import org.abs_models.frontend.typechecker.Type;
+
+/**
+ * Generates the code specific to the standard library data types
+ * <code>List</code>, <code>Set</code> and <code>Map</code>, whose classes
+ * extend {@link PersistentCollection}, and the native implementations of
+ * standard library functions on them.
+ */
+public class CollectionsGenerator {
+
+    private static final String LIST = Constants.STDLIB_NAME + ".List";
+    private static final String SET = Constants.STDLIB_NAME + ".Set";
+    private static final String MAP = Constants.STDLIB_NAME + ".Map";
+
+    private static final List<String> NATIVE_FUNCTIONS = Arrays.asList(
+        "length", "nth",
+        "size", "contains", "insertElement", "remove",
+        "lookup", "lookupDefault", "put", "removeKey");
+
+    private static final String COLLECTION = PersistentCollection.class.getName();
+    private static final String STDLIB = StdLibCollections.class.getName();
+
+    public static boolean isCollection(DataTypeDecl d) {
+        String name = d.getQualifiedName();
+        return name.equals(LIST) || name.equals(SET) || name.equals(MAP);
+    }
+
+    /**
+     * Sets and maps can hold their elements in a backing, and the rest of
+     * a collection created from a backing is computed lazily
+     */
+    private static boolean isBacked(DataTypeDecl d) {
+        String name = d.getQualifiedName();
+        return name.equals(SET) || name.equals(MAP);
+    }
+
+    /**
+     * @return whether the second argument of the given constructor is
+     * computed lazily from the backing of the collection
+     */
+    public static boolean hasLazyRest(DataConstructor c) {
+        return isBacked(c.getDataTypeDecl()) && c.getNumConstructorArg() == 2;
+    }
+
+    private static DataConstructor getConstructor(DataTypeDecl d, boolean empty) {
+        for (DataConstructor c : d.getDataConstructors()) {
+            if ((c.getNumConstructorArg() == 0) == empty)
+                return c;
+        }
+        throw new IllegalArgumentException(d.getName() + " is not a collection type");
+    }
+
+    private static DataConstructor getConstructor(DataTypeDecl d, String name) {
+        for (DataConstructor c : d.getDataConstructors()) {
+            if (c.getName().equals(name))
+                return c;
+        }
+        throw new IllegalArgumentException(d.getName() + " has no constructor " + name);
+    }
+
+    private static DataTypeDecl getDataTypeDecl(Type t) {
+        return ((DataTypeType) t).getDecl();
+    }
+
+    /**
+     * Generates the methods of the abstract class of a collection data type
+     */
+    public static void generateDataTypeMembers(DataTypeDecl d, PrintStream stream) {
+        String backing = CollectionBacking.class.getName();
+        stream.print("protected " + backing + " emptyBacking() { return ");
+        if (d.getQualifiedName().equals(MAP))
+            stream.print(STDLIB + ".EMPTY_MAP");
+        else if (d.getQualifiedName().equals(SET))
+            stream.print(STDLIB + ".EMPTY_SET");
+        else
+            stream.print("null");
+        stream.println("; }");
+
+        if (isBacked(d)) {
+            stream.println("protected " + COLLECTION + " fromBacking(" + backing + " b) { "
+                           + "return b.isEmpty() ? new " + JavaBackend.getQualifiedString(getConstructor(d, true)) + "()"
+                           + " : new " + JavaBackend.getQualifiedString(getConstructor(d, false)) + "(b); }");
+        }
+    }
+
+    /**
+     * Generates the field and getter of the lazily computed rest of a
+     * collection, see {@link #hasLazyRest}
+     */
+    public static void generateLazyRest(ConstructorArg u, PrintStream stream) {
+        String type = JavaBackend.getJavaType(u);
+        stream.println("private volatile " + type + " arg1;");
+        stream.println("public " + type + " getArg1() { " + type + " r = arg1; "
+                       + "if (r == null) { r = (" + type + ") fromBacking(getBacking().rest()); arg1 = r; } "
+                       + "return r; }");
+    }
+
+    /**
+     * Generates the methods of the class of the non-empty constructor of a
+     * collection data type
+     */
+    public static void generateConstructorMembers(DataConstructor c, PrintStream stream) {
+        if (c.getNumConstructorArg() == 0)
+            return;
+        String className = JavaBackend.getConstructorName(c);
+        if (hasLazyRest(c)) {
+            String backing = CollectionBacking.class.getName();
+            stream.println("public " + className + "(" + backing + " b) { "
+                           + "this.arg0 = (" + JavaBackend.getJavaType(c.getConstructorArg(0)) + ") b.first(); "
+                           + "setBacking(b); }");
+        }
+        stream.println("protected boolean isEmptyCollection() { return false; }");
+        stream.println("protected " + ABSValue.class.getName() + " firstElement() { return arg0; }");
+        stream.println("protected " + COLLECTION + " restCollection() { return getArg1(); }");
+    }
+
+    public static boolean hasNativeImplementation(FunctionDecl d) {
+        return d.getModuleDecl().getName().equals(Constants.STDLIB_NAME)
+            && NATIVE_FUNCTIONS.contains(d.getName());
+    }
+
+    /**
+     * Generates the statements calling the native implementation of a
+     * standard library function.
+     *
+     * @return true if the generated statements always return, false if the
+     * ABS definition of the function has to be generated as a fallback
+     */
+    public static boolean generateNativeImplementation(FunctionDecl d, PrintStream stream) {
+        String[] p = new String[d.getNumParam()];
+        for (int i = 0; i < p.length; i++) {
+            p[i] = JavaBackend.getVariableName(d.getParam(i).getName());
+        }
+        String resultType = JavaBackend.getQualifiedString(d.getTypeUse().getType());
+        String coll = "(" + COLLECTION + ") " + p[0];
+
+        switch (d.getName()) {
+        case "length":
+            stream.println("return " + STDLIB + ".length(" + coll + ");");
+            return true;
+        case "size":
+            stream.println("return " + STDLIB + ".size(" + coll + ");");
+            return true;
+        case "nth":
+            stream.println("if (" + STDLIB + ".hasIndex(" + coll + ", " + p[1] + ")) "
+                           + "return (" + resultType + ") " + STDLIB + ".nth(" + coll + ", " + p[1] + ");");
+            return false;
+        case "contains":
+            stream.println("{ " + ABSBool.class.getName() + " __ABS_r = " + STDLIB + ".contains(" + coll + ", " + p[1] + "); "
+                           + "if (__ABS_r != null) return __ABS_r; }");
+            return false;
+        case "insertElement":
+        case "remove":
+            stream.println("{ " + COLLECTION + " __ABS_r = " + STDLIB + "." + d.getName() + "(" + coll + ", " + p[1] + "); "
+                           + "if (__ABS_r != null) return (" + resultType + ") __ABS_r; }");
+            return false;
+        case "lookup": {
+            DataTypeDecl maybe = getDataTypeDecl(d.getTypeUse().getType());
+            stream.println(ABSValue.class.getName() + " __ABS_e = " + STDLIB + ".lookup(" + coll + ", " + p[1] + ");");
+            stream.println("return (" + resultType + ") (__ABS_e == null"
+                           + " ? new " + JavaBackend.getQualifiedString(getConstructor(maybe, "Nothing")) + "()"
+                           + " : new " + JavaBackend.getQualifiedString(getConstructor(maybe, "Just")) + "(" + STDLIB + ".valueOf(__ABS_e)));");
+            return true;
+        }
+        case "lookupDefault":
+            stream.println(ABSValue.class.getName() + " __ABS_e = " + STDLIB + ".lookup(" + coll + ", " + p[1] + ");");
+            stream.println("return __ABS_e == null ? " + p[2] + " : (" + resultType + ") " + STDLIB + ".valueOf(__ABS_e);");
+            return true;
+        case "put": {
+            DataTypeDecl map = getDataTypeDecl(d.getParam(0).getType());
+            DataTypeDecl pair = getDataTypeDecl(getConstructor(map, false).getConstructorArg(0).getType());
+            stream.println("return (" + resultType + ") " + STDLIB + ".put(" + coll
+                           + ", new " + JavaBackend.getQualifiedString(getConstructor(pair, "Pair")) + "(" + p[1] + ", " + p[2] + "));");
+            return true;
+        }
+        case "removeKey":
+            stream.println("return (" + resultType + ") " + STDLIB + ".removeKey(" + coll + ", " + p[1] + ");");
+            return true;
+        default:
+            return false;
+        }
+    }
+}
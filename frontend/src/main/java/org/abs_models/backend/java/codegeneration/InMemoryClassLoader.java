@@ -0,0 +1,34 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.codegeneration;
+
+import java.util.Map;
+
+/**
+ * Loads the classes compiled from in-memory code.
+ *
+ * @see JavaCode#inMemory()
+ */
+public class InMemoryClassLoader extends ClassLoader {
+    private final Map<String, byte[]> classes;
+
+    /**
+     * @param classes the class files by fully qualified class name
+     * @param parent the class loader of the ABS runtime
+     */
+    public InMemoryClassLoader(Map<String, byte[]> classes, ClassLoader parent) {
+        super(parent);
+        this.classes = classes;
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        byte[] bytes = classes.get(name);
+        if (bytes == null) {
+            throw new ClassNotFoundException(name);
+        }
+        return defineClass(name, bytes, 0, bytes.length);
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.codegeneration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.abs_models.backend.java.JavaBackend;
+import org.apache.commons.io.IOUtils;
+import org.eclipse.jdt.core.compiler.CharOperation;
+import org.eclipse.jdt.core.compiler.IProblem;
+import org.eclipse.jdt.internal.compiler.ClassFile;
+import org.eclipse.jdt.internal.compiler.CompilationResult;
+import org.eclipse.jdt.internal.compiler.Compiler;
+import org.eclipse.jdt.internal.compiler.DefaultErrorHandlingPolicies;
+import org.eclipse.jdt.internal.compiler.ICompilerRequestor;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFileReader;
+import org.eclipse.jdt.internal.compiler.classfmt.ClassFormatException;
+import org.eclipse.jdt.internal.compiler.env.ICompilationUnit;
+import org.eclipse.jdt.internal.compiler.env.INameEnvironment;
+import org.eclipse.jdt.internal.compiler.env.NameEnvironmentAnswer;
+import org.eclipse.jdt.internal.compiler.impl.CompilerOptions;
+import org.eclipse.jdt.internal.compiler.problem.DefaultProblemFactory;
+
+/**
+ * Compiles generated sources held in memory with ECJ, without touching the
+ * file system.  Referenced classes that are not part of the sources, i.e.,
+ * the ABS runtime and the Java class library, are read through a class
+ * loader.
+ */
+class InMemoryJavaCompiler {
+
+    /**
+     * @param sources the source code by fully qualified class name
+     * @param classPath the class loader used to look up referenced classes
+     * @return the class files by fully qualified class name, including
+     * nested and anonymous classes
+     */
+    static Map<String, byte[]> compile(Map<String, byte[]> sources, ClassLoader classPath) throws JavaCodeGenerationException {
+        List<ICompilationUnit> units = new ArrayList<>();
+        for (Map.Entry<String, byte[]> e : sources.entrySet()) {
+            units.add(new Unit(e.getKey(), new String(e.getValue(), JavaBackend.CHARSET)));
+        }
+
+        final Map<String, byte[]> classes = new LinkedHashMap<>();
+        final StringBuilder errors = new StringBuilder();
+        ICompilerRequestor requestor = (CompilationResult result) -> {
+            if (result.hasErrors()) {
+                for (IProblem p : result.getErrors()) {
+                    errors.append(new String(p.getOriginatingFileName())).append(':')
+                        .append(p.getSourceLineNumber()).append(": ")
+                        .append(p.getMessage()).append('\n');
+                }
+            }
+            for (ClassFile cf : result.getClassFiles()) {
+                classes.put(new String(CharOperation.concatWith(cf.getCompoundName(), '.')), cf.getBytes());
+            }
+        };
+
+        Map<String, String> settings = new HashMap<>();
+        settings.put(CompilerOptions.OPTION_Source, CompilerOptions.VERSION_1_8);
+        settings.put(CompilerOptions.OPTION_Compliance, CompilerOptions.VERSION_1_8);
+        settings.put(CompilerOptions.OPTION_TargetPlatform, CompilerOptions.VERSION_1_8);
+        settings.put(CompilerOptions.OPTION_Encoding, JavaBackend.CHARSET.name());
+        settings.put(CompilerOptions.OPTION_LineNumberAttribute, CompilerOptions.GENERATE);
+        settings.put(CompilerOptions.OPTION_SourceFileAttribute, CompilerOptions.GENERATE);
+
+        Compiler compiler = new Compiler(new NameEnvironment(sources, classPath),
+                                         DefaultErrorHandlingPolicies.proceedWithAllProblems(),
+                                         new CompilerOptions(settings),
+                                         requestor,
+                                         new DefaultProblemFactory(Locale.getDefault()));
+        compiler.compile(units.toArray(new ICompilationUnit[0]));
+        if (errors.length() > 0) {
+            throw new JavaCodeGenerationException("There seems to be a bug in the ABS Java backend. " +
+                    "The generated code contains errors:\n" + errors);
+        }
+        return classes;
+    }
+
+    private static class Unit implements ICompilationUnit {
+        private final String className;
+        private final String source;
+
+        Unit(String className, String source) {
+            this.className = className;
+            this.source = source;
+        }
+
+        @Override
+        public char[] getFileName() {
+            return (className.replace('.', '/') + ".java").toCharArray();
+        }
+
+        @Override
+        public char[] getContents() {
+            return source.toCharArray();
+        }
+
+        @Override
+        public char[] getMainTypeName() {
+            return className.substring(className.lastIndexOf('.') + 1).toCharArray();
+        }
+
+        @Override
+        public char[][] getPackageName() {
+            int i = className.lastIndexOf('.');
+            if (i < 0) return CharOperation.NO_CHAR_CHAR;
+            return CharOperation.splitOn('.', className.substring(0, i).toCharArray());
+        }
+
+        @Override
+        public boolean ignoreOptionalProblems() {
+            return false;
+        }
+    }
+
+    /**
+     * Resolves type and package names against the sources being compiled
+     * and the class files visible to a class loader.
+     */
+    private static class NameEnvironment implements INameEnvironment {
+        private final Map<String, byte[]> sources;
+        private final ClassLoader classPath;
+        /** class files by class name, or null if there is no such class */
+        private final Map<String, byte[]> classFiles = new HashMap<>();
+
+        NameEnvironment(Map<String, byte[]> sources, ClassLoader classPath) {
+            this.sources = sources;
+            this.classPath = classPath;
+        }
+
+        @Override
+        public NameEnvironmentAnswer findType(char[][] compoundTypeName) {
+            return findType(new String(CharOperation.concatWith(compoundTypeName, '.')));
+        }
+
+        @Override
+        public NameEnvironmentAnswer findType(char[] typeName, char[][] packageName) {
+            return findType(new String(CharOperation.concatWith(packageName, typeName, '.')));
+        }
+
+        private NameEnvironmentAnswer findType(String className) {
+            byte[] source = sources.get(className);
+            if (source != null) {
+                return new NameEnvironmentAnswer(new Unit(className, new String(source, JavaBackend.CHARSET)), null);
+            }
+            byte[] bytes = getClassFile(className);
+            if (bytes == null) return null;
+            try {
+                return new NameEnvironmentAnswer(new ClassFileReader(bytes, className.toCharArray(), true), null);
+            } catch (ClassFormatException e) {
+                return null;
+            }
+        }
+
+        @Override
+        public boolean isPackage(char[][] parentPackageName, char[] packageName) {
+            String name = new String(CharOperation.concatWith(parentPackageName, packageName, '.'));
+            return !sources.containsKey(name) && getClassFile(name) == null;
+        }
+
+        private byte[] getClassFile(String className) {
+            if (classFiles.containsKey(className)) {
+                return classFiles.get(className);
+            }
+            byte[] result = null;
+            try (InputStream in = classPath.getResourceAsStream(className.replace('.', '/') + ".class")) {
+                if (in != null) result = IOUtils.toByteArray(in);
+            } catch (IOException e) {
+                // treat unreadable class files as missing
+            }
+            classFiles.put(className, result);
+            return result;
+        }
+
+        @Override
+        public void cleanup() {
+        }
+    }
+}
@@ -0,0 +1,167 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.codegeneration;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+import org.apache.commons.io.FileUtils;
+
+/**
+ * Keeps the Java code generated for a model between the compilations of
+ * <code>absc --daemon</code>.  Each compilation generates the code into a
+ * scratch directory; {@link #update} then copies only the files whose
+ * content changed into the output directory and recompiles them.
+ *
+ * Since an unchanged file can call a method whose signature changed, files
+ * that mention the name of a changed or removed class are recompiled as
+ * well.
+ */
+public class IncrementalJavaCode {
+
+    /** Generated files by path relative to the output directory */
+    private Map<String, byte[]> files = null;
+    private File destDir = null;
+    /** whether the class files in destDir are up to date */
+    private boolean compiled = false;
+    private int changedFileCount = 0;
+    private int compiledFileCount = 0;
+
+    /**
+     * Copies the changed files of <code>code</code> into
+     * <code>destDir</code> and compiles them, together with the files that
+     * depend on them.
+     *
+     * @param code freshly generated code
+     * @param destDir the output directory
+     * @param compile whether to compile the generated files
+     */
+    public synchronized void update(JavaCode code, File destDir, boolean compile) throws IOException, JavaCodeGenerationException {
+        if (files == null || !destDir.equals(this.destDir)) {
+            // first compilation: start from a clean directory, like a
+            // normal compilation
+            FileUtils.deleteDirectory(destDir);
+            files = new HashMap<>();
+            compiled = false;
+            this.destDir = destDir;
+        }
+        Path srcDir = code.getSrcDir().toPath();
+        Map<String, byte[]> current = new HashMap<>();
+        for (String name : code.getFileNames()) {
+            Path p = new File(name).toPath();
+            current.put(srcDir.relativize(p).toString(), Files.readAllBytes(p));
+        }
+
+        Set<String> changed = new TreeSet<>();
+        for (Map.Entry<String, byte[]> e : current.entrySet()) {
+            File dest = new File(destDir, e.getKey());
+            byte[] old = files.get(e.getKey());
+            if (old == null || !Arrays.equals(old, e.getValue()) || !dest.exists()) {
+                FileUtils.writeByteArrayToFile(dest, e.getValue());
+                changed.add(e.getKey());
+            }
+        }
+        Set<String> removed = new TreeSet<>(files.keySet());
+        removed.removeAll(current.keySet());
+        for (String name : removed) {
+            File source = new File(destDir, name);
+            source.delete();
+            deleteClassFiles(source);
+        }
+        files = current;
+        changedFileCount = changed.size() + removed.size();
+        compiledFileCount = 0;
+        if (!compile) {
+            compiled = false;
+            return;
+        }
+
+        Set<String> toCompile = new TreeSet<>();
+        if (!compiled) {
+            toCompile.addAll(current.keySet());
+        } else if (!changed.isEmpty() || !removed.isEmpty()) {
+            toCompile.addAll(changed);
+            Pattern mentioned = classNamePattern(changed, removed);
+            for (Map.Entry<String, byte[]> e : current.entrySet()) {
+                if (!toCompile.contains(e.getKey())
+                    && mentioned.matcher(new String(e.getValue(), StandardCharsets.UTF_8)).find())
+                    toCompile.add(e.getKey());
+            }
+        }
+        if (toCompile.isEmpty()) return;
+
+        List<String> args = new ArrayList<>();
+        args.add("-classpath");
+        args.add(System.getProperty("java.class.path") + File.pathSeparator + destDir.getAbsolutePath());
+        args.add("-d");
+        args.add(destDir.getAbsolutePath());
+        for (String name : toCompile) {
+            File source = new File(destDir, name);
+            deleteClassFiles(source);
+            args.add(source.getAbsolutePath());
+        }
+        compiled = false;
+        JavaCompiler.compile(args.toArray(new String[0]));
+        compiled = true;
+        compiledFileCount = toCompile.size();
+    }
+
+    /**
+     * @return the number of generated files that were changed, added or
+     * removed by the last call of {@link #update}
+     */
+    public synchronized int getChangedFileCount() {
+        return changedFileCount;
+    }
+
+    /**
+     * @return the number of files compiled by the last call of
+     * {@link #update}
+     */
+    public synchronized int getCompiledFileCount() {
+        return compiledFileCount;
+    }
+
+    private static String className(String fileName) {
+        String name = new File(fileName).getName();
+        return name.substring(0, name.length() - ".java".length());
+    }
+
+    private static Pattern classNamePattern(Set<String> changed, Set<String> removed) {
+        StringBuilder result = new StringBuilder("\\b(");
+        String sep = "";
+        for (Set<String> names : Arrays.asList(changed, removed)) {
+            for (String name : names) {
+                result.append(sep).append(Pattern.quote(className(name)));
+                sep = "|";
+            }
+        }
+        return Pattern.compile(result.append(")\\b").toString());
+    }
+
+    /**
+     * Deletes the class files of a generated source file, including the
+     * ones of nested and anonymous classes.
+     */
+    private static void deleteClassFiles(File source) {
+        String className = className(source.getName());
+        File[] classFiles = source.getParentFile().listFiles((dir, name) ->
+            name.equals(className + ".class") || (name.startsWith(className + "$") && name.endsWith(".class")));
+        if (classFiles != null) {
+            for (File f : classFiles) f.delete();
+        }
+    }
+}
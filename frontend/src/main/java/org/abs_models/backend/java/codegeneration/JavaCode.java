@@ -5,29 +5,60 @@
 package org.abs_models.backend.java.codegeneration;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.io.PrintStream;
 import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
+import org.abs_models.backend.java.JavaBackend;
 import org.apache.commons.io.FileUtils;
 
 
 public class JavaCode {
+    /** the source directory, or null for in-memory code */
     private final File srcDir;
     private final List<File> files = new ArrayList<>();
     private final List<String> mainClasses = new ArrayList<>();
+    /** in-memory code: the generated sources by class name */
+    private final Map<String, byte[]> sources;
+    /** in-memory code: the compiled classes by class name */
+    private Map<String, byte[]> classes = null;
 
     public JavaCode() throws IOException {
-        srcDir = Files.createTempDirectory("absjavabackend").toFile();
+        this(Files.createTempDirectory("absjavabackend").toFile());
     }
 
     public JavaCode(File srcDir) {
         this.srcDir = srcDir;
+        this.sources = null;
+    }
+
+    private JavaCode(Map<String, byte[]> sources) {
+        this.srcDir = null;
+        this.sources = sources;
+    }
+
+    /**
+     * Creates a JavaCode object that keeps the generated sources and the
+     * compiled classes in memory instead of writing them to disk.  Use
+     * {@link Package#createJavaStream} to generate code, {@link #compile()}
+     * to compile it and {@link #getClassLoader()} to load the result, e.g.,
+     * with {@link org.abs_models.backend.java.lib.runtime.ABSRuntime#start(ClassLoader, String)}.
+     */
+    public static JavaCode inMemory() {
+        return new JavaCode(new LinkedHashMap<>());
+    }
+
+    public boolean isInMemory() {
+        return sources != null;
     }
 
     public void addFile(File file) {
@@ -54,14 +85,54 @@ public class JavaCode {
 
         public Package(String packageName) throws IOException {
             this.packageName = packageName;
-            this.packageDir = new File(srcDir, packageName.replace('.', File.separatorChar));
             this.firstPackagePart = packageName.split("\\.")[0];
+            if (isInMemory()) {
+                this.packageDir = null;
+                return;
+            }
+            this.packageDir = new File(srcDir, packageName.replace('.', File.separatorChar));
             if (!packageDir.mkdirs() && !packageDir.isDirectory()) {
                 throw new IOException("Could not create directory " + packageDir.toString());
             }
         }
 
+        /**
+         * Creates the stream for the source code of a new class in this
+         * package.  The class is complete once the stream is closed.
+         */
+        public PrintStream createJavaStream(String name) throws IOException, JavaCodeGenerationException {
+            if (!isInMemory()) {
+                return JavaCodeStream.from(createJavaFile(name));
+            }
+            checkClassName(name);
+            final String className = packageName + "." + name;
+            if (sources.containsKey(className)) {
+                throw new IOException("Class already exists: " + className);
+            }
+            sources.put(className, new byte[0]);
+            return JavaCodeStream.from(new ByteArrayOutputStream() {
+                @Override
+                public void close() throws IOException {
+                    super.close();
+                    sources.put(className, toByteArray());
+                }
+            });
+        }
+
         public File createJavaFile(String name) throws IOException, JavaCodeGenerationException {
+            if (isInMemory()) {
+                throw new IllegalStateException("In-memory code has no files, use createJavaStream");
+            }
+            checkClassName(name);
+            File file = new File(packageDir, name + ".java");
+            addFile(file);
+            if (!file.createNewFile()) {
+                throw new IOException("File already exists: " + file.toString());
+            }
+            return file;
+        }
+
+        private void checkClassName(String name) throws JavaCodeGenerationException {
             if (name.equals(firstPackagePart)) {
                 if (name.equals("Main")) {
                     throw new JavaCodeGenerationException("The Java backend does not support main blocks in " +
@@ -71,12 +142,6 @@ public class JavaCode {
                       name + " as module name, because it collides with a generated classname. " +
                       		"Please try to use a different name.");
             }
-            File file = new File(packageDir, name + ".java");
-            addFile(file);
-            if (!file.createNewFile()) {
-                throw new IOException("File already exists: " + file.toString());
-            }
-            return file;
         }
 
         public void addMainClass(String s) {
@@ -89,11 +154,20 @@ public class JavaCode {
     }
 
     public void deleteCode() throws IOException {
-        FileUtils.deleteDirectory(srcDir);
+        if (isInMemory()) {
+            sources.clear();
+            classes = null;
+        } else {
+            FileUtils.deleteDirectory(srcDir);
+        }
     }
 
     public void compile() throws JavaCodeGenerationException {
-        compile(srcDir);
+        if (isInMemory()) {
+            classes = InMemoryJavaCompiler.compile(sources, JavaCode.class.getClassLoader());
+        } else {
+            compile(srcDir);
+        }
     }
 
     public void compile(File destDir) throws JavaCodeGenerationException {
@@ -101,6 +175,9 @@ public class JavaCode {
     }
 
     public void compile(String... args) throws JavaCodeGenerationException {
+        if (isInMemory()) {
+            throw new IllegalStateException("In-memory code can only be compiled with compile()");
+        }
         ArrayList<String> args2 = new ArrayList<>();
         args2.addAll(Arrays.asList(args));
         args2.addAll(Arrays.asList(getFileNames()));
@@ -114,9 +191,26 @@ public class JavaCode {
         return mainClasses.get(0);
     }
 
+    /**
+     * @return a class loader for the classes compiled by {@link #compile()}
+     * from in-memory code
+     */
+    public ClassLoader getClassLoader() {
+        if (classes == null)
+            throw new IllegalStateException("The in-memory code has not been compiled");
+
+        return new InMemoryClassLoader(classes, JavaCode.class.getClassLoader());
+    }
+
     public String toString() {
         StringBuilder res = new StringBuilder();
 
+        if (isInMemory()) {
+            for (byte[] source : sources.values()) {
+                res.append(new String(source, JavaBackend.CHARSET));
+            }
+            return res.toString();
+        }
         for (File f : files) {
             append(res, f);
         }
@@ -10,6 +10,8 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.lang.reflect.Method;
+import java.util.Set;
+import java.util.TreeSet;
 
 import org.abs_models.backend.java.JavaBackend;
 import org.abs_models.backend.java.JavaBackendConstants;
@@ -29,6 +31,8 @@ import org.abs_models.frontend.ast.AwaitStmt;
 import org.abs_models.frontend.ast.ClassDecl;
 import org.abs_models.frontend.ast.Decl;
 import org.abs_models.frontend.ast.ExpGuard;
+import org.abs_models.frontend.ast.FieldUse;
+import org.abs_models.frontend.ast.FieldUseInfo;
 import org.abs_models.frontend.ast.FnApp;
 import org.abs_models.frontend.ast.FunctionDecl;
 import org.abs_models.frontend.ast.HasTypeParameters;
@@ -424,6 +428,8 @@ public class JavaGeneratorHelper {
      * @throws IOException
      */
     public static void cleanGenFolder(JavaCode code) throws IOException {
+        if (code.isInMemory())
+            return;
         File genDir = code.getSrcDir();
         FileUtils.deleteDirectory(genDir);
     }
@@ -467,11 +473,40 @@ public class JavaGeneratorHelper {
 
         replaceLocalVariables((PureExp)expr.copy(), beforeAwaitStream);
 
-        stream.print("new " + JavaBackendConstants.EXPGUARD + "() { public " + ABSBool.class.getName() + " evaluateExp() { return ");
+        stream.print("new " + JavaBackendConstants.EXPGUARD + "(");
+        generateGuardReadSet(expGuard, stream);
+        stream.print(") { public " + ABSBool.class.getName() + " evaluateExp() { return ");
         expGuard.getPureExp().generateJava(stream);
         stream.print("; }}");
     }
 
+    /**
+     * Generates the object and the names of the fields read by an expression
+     * guard, so that the runtime only re-evaluates the guard after one of
+     * these fields was written.  If the guard calls a builtin function,
+     * nothing is known and the guard is re-evaluated every time.
+     */
+    private static void generateGuardReadSet(ExpGuard expGuard, PrintStream stream) {
+        FieldUseInfo info = expGuard.getFields();
+        Decl d = expGuard.getContextDecl();
+        if (info.usesBuiltin || !(d instanceof ClassDecl)) {
+            stream.print("null, null");
+            return;
+        }
+        Set<String> fields = new TreeSet<>();
+        for (FieldUse f : info.fields) {
+            fields.add(f.getName());
+        }
+        stream.print(JavaBackend.getClassName(d.getName()) + ".this, new String[] {");
+        boolean first = true;
+        for (String f : fields) {
+            if (!first) stream.print(", ");
+            first = false;
+            stream.print("\"" + f + "\"");
+        }
+        stream.print("}");
+    }
+
     /**
      * replace all uses of local variables and parameters by a use of a newly introduced
      * temporary final local variable
@@ -536,17 +571,17 @@ public class JavaGeneratorHelper {
     public static String generateUserSchedulingStrategy(NewExp exp, PureExp scheduler) {
         String className = "UserSchedulingStrategy_" + JavaBackend.getRandomName();
         JavaCode.Package pkg;
-        File file;
+        PrintStream javaStream;
         try {
             pkg = exp.getModuleDecl().getJavaPackage();
-            file = pkg.createJavaFile(className);
+            javaStream = pkg.createJavaStream(className);
         } catch (JavaCodeGenerationException | IOException e) {
             // TODO properly handle exceptions
             e.printStackTrace();
             return null;
         }
 
-        try (PrintStream stream = JavaCodeStream.from(file)){
+        try (PrintStream stream = javaStream) {
             stream.println("package " + pkg.packageName + ";");
             stream.print("public final class " + className);
             stream.println(" extends " + UserSchedulingStrategy.class.getName() + " {");
@@ -566,11 +601,7 @@ public class JavaGeneratorHelper {
 
             // connect generated TaskSchedulingStrategy to the cog's TaskScheduler
             return pkg.packageName + "." + className;
-        } catch (IOException e) {
-            // TODO properly handle exception
-            e.printStackTrace();
         }
-        return null;
     }
 
 }
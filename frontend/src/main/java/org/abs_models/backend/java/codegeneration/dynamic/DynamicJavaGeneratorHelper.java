@@ -5,7 +5,6 @@
 package org.abs_models.backend.java.codegeneration.dynamic;
 
 import java.io.ByteArrayOutputStream;
-import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintStream;
@@ -543,8 +542,7 @@ public class DynamicJavaGeneratorHelper {
             throws IOException, JavaCodeGenerationException {
 
         String className = JavaBackend.getDeltaName(delta.getName());
-        File file = pkg.createJavaFile(className);
-        try (PrintStream stream = JavaCodeStream.from(file)) {
+        try (PrintStream stream = pkg.createJavaStream(className)) {
             stream.println("package " + pkg.packageName + ";");
             stream.println("public class " + className + " {");
 
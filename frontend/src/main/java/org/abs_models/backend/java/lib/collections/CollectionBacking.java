@@ -0,0 +1,39 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import org.abs_models.backend.java.lib.types.ABSValue;
+
+/**
+ * The elements of a standard library collection, held in a persistent data
+ * structure.  The elements are in the same order as in the constructor
+ * chain of the collection.
+ *
+ * @see PersistentCollection
+ */
+public interface CollectionBacking {
+
+    boolean isEmpty();
+
+    int size();
+
+    /**
+     * @return the first element, i.e., the first argument of the outermost
+     * constructor
+     */
+    ABSValue first();
+
+    /**
+     * @return the backing of the collection without the first element
+     */
+    CollectionBacking rest();
+
+    /**
+     * @return the backing of the collection with the given element in
+     * front, or null if such a collection cannot be represented by this kind
+     * of backing
+     */
+    CollectionBacking prepend(ABSValue element);
+}
@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import java.util.Comparator;
+
+import org.abs_models.backend.java.lib.types.ABSDataType;
+import org.abs_models.backend.java.lib.types.ABSValue;
+
+/**
+ * The entries of an ABS <code>Map</code>.
+ *
+ * The entries are kept in a tree, ordered by a position that is decreased
+ * when prepending and increased when appending an entry.  For each key, a
+ * hash trie holds the positions of the entries with that key in ascending
+ * order, so that the first entry of a key is found in O(log n).  A key can
+ * have several entries, since <code>insert</code> does not remove existing
+ * entries.
+ */
+final class MapBacking implements CollectionBacking {
+
+    private static final Comparator<Long> POSITION_ORDER = Comparator.naturalOrder();
+
+    static final MapBacking EMPTY = new MapBacking(new PersistentTreeMap<>(POSITION_ORDER),
+                                                   PersistentHashMap.empty());
+
+    private final PersistentTreeMap<Long, ABSValue> entries;
+    private final PersistentHashMap<long[]> positions;
+
+    private MapBacking(PersistentTreeMap<Long, ABSValue> entries, PersistentHashMap<long[]> positions) {
+        this.entries = entries;
+        this.positions = positions;
+    }
+
+    static ABSValue keyOf(ABSValue entry) {
+        return ((ABSDataType) entry).getArg(0);
+    }
+
+    static ABSValue valueOf(ABSValue entry) {
+        return ((ABSDataType) entry).getArg(1);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return entries.size();
+    }
+
+    @Override
+    public ABSValue first() {
+        return entries.firstValue();
+    }
+
+    @Override
+    public MapBacking rest() {
+        if (isEmpty()) return this;
+        long pos = entries.firstKey();
+        ABSValue key = keyOf(entries.firstValue());
+        return new MapBacking(entries.removeFirst(), removePosition(key, pos));
+    }
+
+    @Override
+    public MapBacking prepend(ABSValue entry) {
+        long pos = isEmpty() ? 0 : entries.firstKey() - 1;
+        ABSValue key = keyOf(entry);
+        long[] ps = positions.get(key);
+        long[] newPs;
+        if (ps == null) {
+            newPs = new long[] { pos };
+        } else {
+            newPs = new long[ps.length + 1];
+            newPs[0] = pos;
+            System.arraycopy(ps, 0, newPs, 1, ps.length);
+        }
+        return new MapBacking(entries.put(pos, entry), positions.put(key, newPs));
+    }
+
+    /**
+     * @return the first entry with the given key, or null if there is none
+     */
+    ABSValue lookup(ABSValue key) {
+        long[] ps = positions.get(key);
+        return ps == null ? null : entries.get(ps[0]);
+    }
+
+    /**
+     * Replaces the first entry with the key of the given entry, or appends
+     * the entry if there is no entry with that key.
+     */
+    MapBacking put(ABSValue entry) {
+        ABSValue key = keyOf(entry);
+        long[] ps = positions.get(key);
+        if (ps != null) {
+            return new MapBacking(entries.put(ps[0], entry), positions);
+        }
+        long pos = isEmpty() ? 0 : entries.lastKey() + 1;
+        return new MapBacking(entries.put(pos, entry), positions.put(key, new long[] { pos }));
+    }
+
+    /**
+     * Removes the first entry with the given key
+     */
+    MapBacking removeKey(ABSValue key) {
+        long[] ps = positions.get(key);
+        if (ps == null) return this;
+        return new MapBacking(entries.remove(ps[0]), removePosition(key, ps[0]));
+    }
+
+    /**
+     * Removes the first position of a key, which must be the given one
+     */
+    private PersistentHashMap<long[]> removePosition(ABSValue key, long pos) {
+        long[] ps = positions.get(key);
+        assert ps != null && ps[0] == pos;
+        if (ps.length == 1) {
+            return positions.remove(key);
+        }
+        long[] newPs = new long[ps.length - 1];
+        System.arraycopy(ps, 1, newPs, 0, newPs.length);
+        return positions.put(key, newPs);
+    }
+}
@@ -0,0 +1,172 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.abs_models.backend.java.lib.types.ABSDataType;
+import org.abs_models.backend.java.lib.types.ABSValue;
+
+/**
+ * Superclass of the generated classes of the standard library data types
+ * <code>List</code>, <code>Set</code> and <code>Map</code>.
+ *
+ * Values of these types are still built from their ABS constructors, so
+ * pattern matching, equality and printing work as for any data type.  In
+ * addition, a map or set can hold its elements in a persistent
+ * {@link CollectionBacking}, which the native implementations of the
+ * standard library functions in {@link StdLibCollections} use.  The backing
+ * of a constructor chain built by user code is computed on first use; the
+ * constructors of a collection returned by a native function are created
+ * lazily from its backing when the collection is matched.
+ */
+public abstract class PersistentCollection extends ABSDataType {
+
+    private volatile CollectionBacking backing;
+
+    /**
+     * Whether the elements of this collection cannot be held in a backing
+     */
+    private volatile boolean unbacked;
+
+    /**
+     * The number of elements, or 0 if not computed yet
+     */
+    private volatile int length;
+
+    /**
+     * @return the backing of an empty collection of this data type, or null
+     * if collections of this data type are not backed
+     */
+    protected abstract CollectionBacking emptyBacking();
+
+    /**
+     * @return a collection of this data type holding the given elements;
+     * only called for data types with an <code>emptyBacking</code>
+     */
+    protected PersistentCollection fromBacking(CollectionBacking b) {
+        return null;
+    }
+
+    /**
+     * @return whether this collection is built by the empty constructor
+     */
+    protected boolean isEmptyCollection() {
+        return true;
+    }
+
+    /**
+     * @return the first argument of the non-empty constructor, or null for
+     * the empty constructor
+     */
+    protected ABSValue firstElement() {
+        return null;
+    }
+
+    /**
+     * @return the second argument of the non-empty constructor, or null for
+     * the empty constructor
+     */
+    protected PersistentCollection restCollection() {
+        return null;
+    }
+
+    /**
+     * Used by the constructor creating a collection from a backing
+     */
+    protected final void setBacking(CollectionBacking b) {
+        backing = b;
+    }
+
+    /**
+     * @return the backing of this collection, or null if this collection
+     * cannot be backed
+     */
+    public final CollectionBacking getBacking() {
+        CollectionBacking b = backing;
+        if (b == null && !unbacked) {
+            b = buildBacking();
+            if (b == null)
+                unbacked = true;
+            else
+                backing = b;
+        }
+        return b;
+    }
+
+    private CollectionBacking buildBacking() {
+        CollectionBacking b = emptyBacking();
+        if (b == null) return null;
+        // Walk down the chain until a collection that already has a
+        // backing, then prepend the elements in front of it.  Only the
+        // backing of this collection is stored, so building it takes
+        // O(log n) if the rest of the chain is already backed.
+        List<ABSValue> elements = new ArrayList<>();
+        PersistentCollection c = this;
+        while (!c.isEmptyCollection()) {
+            if (c.unbacked) return null;
+            CollectionBacking cb = c.backing;
+            if (cb != null) {
+                b = cb;
+                break;
+            }
+            elements.add(c.firstElement());
+            c = c.restCollection();
+        }
+        for (int i = elements.size() - 1; i >= 0 && b != null; i--) {
+            b = b.prepend(elements.get(i));
+        }
+        return b;
+    }
+
+    /**
+     * @return the number of constructors in the chain of this collection,
+     * i.e., the number of elements of a list
+     */
+    public final int length() {
+        int n = 0;
+        PersistentCollection c = this;
+        int rest;
+        while (true) {
+            rest = c.knownLength();
+            if (rest >= 0) break;
+            n++;
+            c = c.restCollection();
+        }
+        // cache the length of each collection in the chain, so that
+        // computing the length of a suffix later is constant-time
+        int l = n + rest;
+        c = this;
+        for (int i = 0; i < n; i++) {
+            c.length = l - i;
+            c = c.restCollection();
+        }
+        return l;
+    }
+
+    /**
+     * @return the length, or -1 if it is not known without walking the chain
+     */
+    private int knownLength() {
+        if (isEmptyCollection()) return 0;
+        if (length > 0) return length;
+        CollectionBacking b = backing;
+        if (b != null) return b.size();
+        return -1;
+    }
+
+    /**
+     * @return the collection after dropping the first n constructors of
+     * the chain; n must be at most the length
+     */
+    final PersistentCollection drop(int n) {
+        PersistentCollection c = this;
+        for (int i = 0; i < n; i++) {
+            c = c.restCollection();
+        }
+        return c;
+    }
+}
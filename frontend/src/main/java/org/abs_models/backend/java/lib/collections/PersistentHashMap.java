@@ -0,0 +1,271 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import org.abs_models.backend.java.fli.ABSForeignObject;
+import org.abs_models.backend.java.lib.expr.BinOp;
+import org.abs_models.backend.java.lib.runtime.ABSFut;
+import org.abs_models.backend.java.lib.runtime.ABSObject;
+import org.abs_models.backend.java.lib.types.ABSBool;
+import org.abs_models.backend.java.lib.types.ABSDataType;
+import org.abs_models.backend.java.lib.types.ABSFloat;
+import org.abs_models.backend.java.lib.types.ABSRational;
+import org.abs_models.backend.java.lib.types.ABSString;
+import org.abs_models.backend.java.lib.types.ABSValue;
+
+/**
+ * An immutable hash map with ABS values as keys, implemented as a hash
+ * array mapped trie.  Keys are compared with the ABS equality
+ * {@link ABSValue#eq}, so the hash codes are computed by {@link #hash},
+ * which is consistent with it.  All operations take O(log n) time and
+ * return a new map sharing unchanged nodes with the old one.
+ *
+ * @param <V> the type of values
+ */
+final class PersistentHashMap<V> {
+
+    private static final int BITS = 5;
+    private static final int MASK = (1 << BITS) - 1;
+
+    /**
+     * Data values are hashed up to this depth, so that hashing a value
+     * with deeply nested arguments, e.g. a long list, takes constant time
+     */
+    private static final int HASH_DEPTH = 4;
+
+    private static final Object[] NO_ENTRIES = new Object[0];
+
+    /**
+     * A trie node.  <code>entries</code> holds a key and value for each set
+     * bit of <code>dataMap</code>, followed by a child node for each set bit
+     * of <code>nodeMap</code>.  Below the last level, all entries of a node
+     * have the same hash code and <code>dataMap</code> is not used.
+     */
+    private static final class Node {
+        final int dataMap;
+        final int nodeMap;
+        final Object[] entries;
+
+        Node(int dataMap, int nodeMap, Object[] entries) {
+            this.dataMap = dataMap;
+            this.nodeMap = nodeMap;
+            this.entries = entries;
+        }
+    }
+
+    private static final Node EMPTY_NODE = new Node(0, 0, NO_ENTRIES);
+
+    @SuppressWarnings("rawtypes")
+    private static final PersistentHashMap EMPTY = new PersistentHashMap<>(EMPTY_NODE, 0);
+
+    private final Node root;
+    private final int size;
+
+    private PersistentHashMap(Node root, int size) {
+        this.root = root;
+        this.size = size;
+    }
+
+    @SuppressWarnings("unchecked")
+    static <V> PersistentHashMap<V> empty() {
+        return EMPTY;
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * @return the value mapped to the given key, or null if there is none
+     */
+    @SuppressWarnings("unchecked")
+    V get(ABSValue key) {
+        int h = hash(key);
+        Node n = root;
+        for (int shift = 0; shift < 32; shift += BITS) {
+            int bit = 1 << ((h >>> shift) & MASK);
+            if ((n.dataMap & bit) != 0) {
+                int i = 2 * Integer.bitCount(n.dataMap & (bit - 1));
+                return equal(key, n.entries[i]) ? (V) n.entries[i + 1] : null;
+            }
+            if ((n.nodeMap & bit) == 0) {
+                return null;
+            }
+            n = (Node) n.entries[n.entries.length - 1 - Integer.bitCount(n.nodeMap & (bit - 1))];
+        }
+        for (int i = 0; i < n.entries.length; i += 2) {
+            if (equal(key, n.entries[i])) return (V) n.entries[i + 1];
+        }
+        return null;
+    }
+
+    PersistentHashMap<V> put(ABSValue key, V value) {
+        boolean[] added = new boolean[1];
+        Node r = put(root, key, value, hash(key), 0, added);
+        return new PersistentHashMap<>(r, added[0] ? size + 1 : size);
+    }
+
+    PersistentHashMap<V> remove(ABSValue key) {
+        Node r = remove(root, key, hash(key), 0);
+        if (r == root) return this;
+        return new PersistentHashMap<>(r == null ? EMPTY_NODE : r, size - 1);
+    }
+
+    private static Node put(Node n, ABSValue key, Object value, int h, int shift, boolean[] added) {
+        if (shift >= 32) {
+            for (int i = 0; i < n.entries.length; i += 2) {
+                if (equal(key, n.entries[i])) {
+                    return new Node(0, 0, with(n.entries, i + 1, value));
+                }
+            }
+            added[0] = true;
+            Object[] e = new Object[n.entries.length + 2];
+            System.arraycopy(n.entries, 0, e, 0, n.entries.length);
+            e[n.entries.length] = key;
+            e[n.entries.length + 1] = value;
+            return new Node(0, 0, e);
+        }
+        int bit = 1 << ((h >>> shift) & MASK);
+        if ((n.dataMap & bit) != 0) {
+            int i = 2 * Integer.bitCount(n.dataMap & (bit - 1));
+            ABSValue k = (ABSValue) n.entries[i];
+            if (equal(key, k)) {
+                return new Node(n.dataMap, n.nodeMap, with(n.entries, i + 1, value));
+            }
+            // replace the entry by a subnode holding both entries
+            added[0] = true;
+            Node sub = pair(k, n.entries[i + 1], hash(k), key, value, h, shift + BITS);
+            int j = n.entries.length - 1 - Integer.bitCount(n.nodeMap & (bit - 1));
+            Object[] e = new Object[n.entries.length - 1];
+            System.arraycopy(n.entries, 0, e, 0, i);
+            System.arraycopy(n.entries, i + 2, e, i, j - i - 1);
+            e[j - 1] = sub;
+            System.arraycopy(n.entries, j + 1, e, j, n.entries.length - j - 1);
+            return new Node(n.dataMap ^ bit, n.nodeMap | bit, e);
+        }
+        if ((n.nodeMap & bit) != 0) {
+            int j = n.entries.length - 1 - Integer.bitCount(n.nodeMap & (bit - 1));
+            Node child = (Node) n.entries[j];
+            Node newChild = put(child, key, value, h, shift + BITS, added);
+            return new Node(n.dataMap, n.nodeMap, with(n.entries, j, newChild));
+        }
+        added[0] = true;
+        int i = 2 * Integer.bitCount(n.dataMap & (bit - 1));
+        Object[] e = new Object[n.entries.length + 2];
+        System.arraycopy(n.entries, 0, e, 0, i);
+        e[i] = key;
+        e[i + 1] = value;
+        System.arraycopy(n.entries, i, e, i + 2, n.entries.length - i);
+        return new Node(n.dataMap | bit, n.nodeMap, e);
+    }
+
+    private static Node pair(ABSValue k1, Object v1, int h1, ABSValue k2, Object v2, int h2, int shift) {
+        if (shift >= 32) {
+            return new Node(0, 0, new Object[] { k1, v1, k2, v2 });
+        }
+        int b1 = (h1 >>> shift) & MASK;
+        int b2 = (h2 >>> shift) & MASK;
+        if (b1 == b2) {
+            return new Node(0, 1 << b1, new Object[] { pair(k1, v1, h1, k2, v2, h2, shift + BITS) });
+        }
+        if (b1 < b2) {
+            return new Node((1 << b1) | (1 << b2), 0, new Object[] { k1, v1, k2, v2 });
+        } else {
+            return new Node((1 << b1) | (1 << b2), 0, new Object[] { k2, v2, k1, v1 });
+        }
+    }
+
+    /**
+     * @return the node without the key, the same node if the key is not
+     * present, or null if the node becomes empty
+     */
+    private static Node remove(Node n, ABSValue key, int h, int shift) {
+        if (shift >= 32) {
+            for (int i = 0; i < n.entries.length; i += 2) {
+                if (equal(key, n.entries[i])) {
+                    if (n.entries.length == 2) return null;
+                    return new Node(0, 0, without(n.entries, i, 2));
+                }
+            }
+            return n;
+        }
+        int bit = 1 << ((h >>> shift) & MASK);
+        if ((n.dataMap & bit) != 0) {
+            int i = 2 * Integer.bitCount(n.dataMap & (bit - 1));
+            if (!equal(key, n.entries[i])) return n;
+            if (n.entries.length == 2) return null;
+            return new Node(n.dataMap ^ bit, n.nodeMap, without(n.entries, i, 2));
+        }
+        if ((n.nodeMap & bit) != 0) {
+            int j = n.entries.length - 1 - Integer.bitCount(n.nodeMap & (bit - 1));
+            Node child = (Node) n.entries[j];
+            Node newChild = remove(child, key, h, shift + BITS);
+            if (newChild == child) return n;
+            if (newChild == null) {
+                if (n.entries.length == 1) return null;
+                return new Node(n.dataMap, n.nodeMap ^ bit, without(n.entries, j, 1));
+            }
+            return new Node(n.dataMap, n.nodeMap, with(n.entries, j, newChild));
+        }
+        return n;
+    }
+
+    private static Object[] with(Object[] a, int i, Object v) {
+        Object[] e = a.clone();
+        e[i] = v;
+        return e;
+    }
+
+    private static Object[] without(Object[] a, int i, int n) {
+        Object[] e = new Object[a.length - n];
+        System.arraycopy(a, 0, e, 0, i);
+        System.arraycopy(a, i + n, e, i, a.length - i - n);
+        return e;
+    }
+
+    private static boolean equal(ABSValue key, Object k) {
+        return BinOp.eq(key, (ABSValue) k).toBoolean();
+    }
+
+    /**
+     * Computes a hash code for an ABS value, such that values that are equal
+     * according to {@link ABSValue#eq} have the same hash code.
+     */
+    static int hash(ABSValue v) {
+        int h = hash(v, HASH_DEPTH);
+        // spread the bits, as in java.util.HashMap
+        return h ^ (h >>> 16);
+    }
+
+    private static int hash(ABSValue v, int depth) {
+        if (v == null) {
+            return 0;
+        } else if (v instanceof ABSRational) {
+            return ((ABSRational) v).valueHashCode();
+        } else if (v instanceof ABSString) {
+            return ((ABSString) v).getString().hashCode();
+        } else if (v instanceof ABSFloat) {
+            double d = ((ABSFloat) v).getDouble();
+            // 0.0 == -0.0
+            return d == 0.0 ? 0 : Double.hashCode(d);
+        } else if (v instanceof ABSBool) {
+            return Boolean.hashCode(((ABSBool) v).toBoolean());
+        } else if (v instanceof ABSDataType) {
+            ABSDataType dt = (ABSDataType) v;
+            int h = dt.getClass().getName().hashCode();
+            if (depth > 0) {
+                for (int i = 0; i < dt.getNumArgs(); i++) {
+                    h = 31 * h + hash(dt.getArg(i), depth - 1);
+                }
+            }
+            return h;
+        } else if (v instanceof ABSObject || v instanceof ABSFut || v instanceof ABSForeignObject) {
+            // compared by identity
+            return System.identityHashCode(v);
+        } else {
+            return 0;
+        }
+    }
+}
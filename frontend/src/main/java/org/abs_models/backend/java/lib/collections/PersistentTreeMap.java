@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import java.util.Comparator;
+
+/**
+ * An immutable sorted map, implemented as an AVL tree.  All operations
+ * return a new map that shares all unchanged subtrees with the old one, and
+ * take O(log n) time.
+ *
+ * @param <K> the type of keys
+ * @param <V> the type of values
+ */
+final class PersistentTreeMap<K, V> {
+
+    private static final class Node<K, V> {
+        final K key;
+        final V value;
+        final Node<K, V> left;
+        final Node<K, V> right;
+        final int height;
+        final int size;
+
+        Node(K key, V value, Node<K, V> left, Node<K, V> right) {
+            this.key = key;
+            this.value = value;
+            this.left = left;
+            this.right = right;
+            this.height = Math.max(height(left), height(right)) + 1;
+            this.size = size(left) + size(right) + 1;
+        }
+    }
+
+    private final Comparator<? super K> comparator;
+    private final Node<K, V> root;
+
+    PersistentTreeMap(Comparator<? super K> comparator) {
+        this(comparator, null);
+    }
+
+    private PersistentTreeMap(Comparator<? super K> comparator, Node<K, V> root) {
+        this.comparator = comparator;
+        this.root = root;
+    }
+
+    boolean isEmpty() {
+        return root == null;
+    }
+
+    int size() {
+        return size(root);
+    }
+
+    /**
+     * @return the value mapped to the given key, or null if there is none
+     */
+    V get(K key) {
+        Node<K, V> n = root;
+        while (n != null) {
+            int c = comparator.compare(key, n.key);
+            if (c == 0) return n.value;
+            n = c < 0 ? n.left : n.right;
+        }
+        return null;
+    }
+
+    boolean containsKey(K key) {
+        Node<K, V> n = root;
+        while (n != null) {
+            int c = comparator.compare(key, n.key);
+            if (c == 0) return true;
+            n = c < 0 ? n.left : n.right;
+        }
+        return false;
+    }
+
+    /**
+     * @return the smallest key, or null if the map is empty
+     */
+    K firstKey() {
+        Node<K, V> n = first(root);
+        return n == null ? null : n.key;
+    }
+
+    /**
+     * @return the value of the smallest key, or null if the map is empty
+     */
+    V firstValue() {
+        Node<K, V> n = first(root);
+        return n == null ? null : n.value;
+    }
+
+    /**
+     * @return the largest key, or null if the map is empty
+     */
+    K lastKey() {
+        Node<K, V> n = root;
+        if (n == null) return null;
+        while (n.right != null) n = n.right;
+        return n.key;
+    }
+
+    PersistentTreeMap<K, V> put(K key, V value) {
+        return new PersistentTreeMap<>(comparator, put(root, key, value));
+    }
+
+    PersistentTreeMap<K, V> remove(K key) {
+        Node<K, V> r = remove(root, key);
+        return r == root ? this : new PersistentTreeMap<>(comparator, r);
+    }
+
+    PersistentTreeMap<K, V> removeFirst() {
+        return root == null ? this : new PersistentTreeMap<>(comparator, removeFirst(root));
+    }
+
+    private static int height(Node<?, ?> n) {
+        return n == null ? 0 : n.height;
+    }
+
+    private static int size(Node<?, ?> n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static <K, V> Node<K, V> first(Node<K, V> n) {
+        if (n == null) return null;
+        while (n.left != null) n = n.left;
+        return n;
+    }
+
+    private Node<K, V> put(Node<K, V> n, K key, V value) {
+        if (n == null) return new Node<>(key, value, null, null);
+        int c = comparator.compare(key, n.key);
+        if (c == 0) return new Node<>(key, value, n.left, n.right);
+        if (c < 0) return balance(n.key, n.value, put(n.left, key, value), n.right);
+        return balance(n.key, n.value, n.left, put(n.right, key, value));
+    }
+
+    private Node<K, V> remove(Node<K, V> n, K key) {
+        if (n == null) return null;
+        int c = comparator.compare(key, n.key);
+        if (c < 0) {
+            Node<K, V> l = remove(n.left, key);
+            return l == n.left ? n : balance(n.key, n.value, l, n.right);
+        }
+        if (c > 0) {
+            Node<K, V> r = remove(n.right, key);
+            return r == n.right ? n : balance(n.key, n.value, n.left, r);
+        }
+        if (n.left == null) return n.right;
+        if (n.right == null) return n.left;
+        Node<K, V> m = first(n.right);
+        return balance(m.key, m.value, n.left, removeFirst(n.right));
+    }
+
+    private static <K, V> Node<K, V> removeFirst(Node<K, V> n) {
+        if (n.left == null) return n.right;
+        return balance(n.key, n.value, removeFirst(n.left), n.right);
+    }
+
+    private static <K, V> Node<K, V> balance(K key, V value, Node<K, V> l, Node<K, V> r) {
+        int hl = height(l);
+        int hr = height(r);
+        if (hl > hr + 1) {
+            if (height(l.left) >= height(l.right)) {
+                return new Node<>(l.key, l.value, l.left, new Node<>(key, value, l.right, r));
+            } else {
+                return new Node<>(l.right.key, l.right.value,
+                                  new Node<>(l.key, l.value, l.left, l.right.left),
+                                  new Node<>(key, value, l.right.right, r));
+            }
+        }
+        if (hr > hl + 1) {
+            if (height(r.right) >= height(r.left)) {
+                return new Node<>(r.key, r.value, new Node<>(key, value, l, r.left), r.right);
+            } else {
+                return new Node<>(r.left.key, r.left.value,
+                                  new Node<>(key, value, l, r.left.left),
+                                  new Node<>(r.key, r.value, r.left.right, r.right));
+            }
+        }
+        return new Node<>(key, value, l, r);
+    }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import java.util.Comparator;
+
+import org.abs_models.backend.java.lib.expr.BinOp;
+import org.abs_models.backend.java.lib.runtime.ABSDynamicObject;
+import org.abs_models.backend.java.lib.runtime.ABSObject;
+import org.abs_models.backend.java.lib.types.ABSBool;
+import org.abs_models.backend.java.lib.types.ABSFloat;
+import org.abs_models.backend.java.lib.types.ABSRational;
+import org.abs_models.backend.java.lib.types.ABSString;
+import org.abs_models.backend.java.lib.types.ABSValue;
+
+/**
+ * The elements of an ABS <code>Set</code>, held in a tree sorted by the ABS
+ * order.
+ *
+ * The standard library keeps the constructor chain of a set sorted by
+ * <code>&lt;</code>, so a sorted tree yields the same chain.  This only
+ * works for element types whose order is total and consistent with
+ * <code>==</code>, which is not the case for the order of data values, so
+ * only sets of numbers, strings, booleans and objects are backed.
+ */
+final class SetBacking implements CollectionBacking {
+
+    private static final Comparator<ABSValue> ABS_ORDER = (a, b) -> {
+        if (BinOp.eq(a, b).toBoolean()) return 0;
+        return BinOp.lt(a, b).toBoolean() ? -1 : 1;
+    };
+
+    static final SetBacking EMPTY = new SetBacking(new PersistentTreeMap<>(ABS_ORDER));
+
+    private final PersistentTreeMap<ABSValue, ABSValue> elements;
+
+    private SetBacking(PersistentTreeMap<ABSValue, ABSValue> elements) {
+        this.elements = elements;
+    }
+
+    /**
+     * @return whether sets containing the given value can be backed
+     */
+    static boolean isTotallyOrdered(ABSValue v) {
+        if (v == null
+            || v instanceof ABSRational
+            || v instanceof ABSString
+            || v instanceof ABSBool) {
+            return true;
+        } else if (v instanceof ABSFloat) {
+            return !Double.isNaN(((ABSFloat) v).getDouble());
+        } else if (v instanceof ABSObject) {
+            // objects are ordered by class name, which can change for
+            // dynamic objects
+            return !(v instanceof ABSDynamicObject);
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return elements.isEmpty();
+    }
+
+    @Override
+    public int size() {
+        return elements.size();
+    }
+
+    @Override
+    public ABSValue first() {
+        return elements.firstKey();
+    }
+
+    @Override
+    public SetBacking rest() {
+        return isEmpty() ? this : new SetBacking(elements.removeFirst());
+    }
+
+    @Override
+    public SetBacking prepend(ABSValue element) {
+        if (!isTotallyOrdered(element)) return null;
+        if (!isEmpty() && !BinOp.lt(element, first()).toBoolean()) return null;
+        return new SetBacking(elements.put(element, element));
+    }
+
+    boolean contains(ABSValue element) {
+        return elements.containsKey(element);
+    }
+
+    /**
+     * @return the backing with the element added, or null if the element
+     * cannot be held in this backing
+     */
+    SetBacking insert(ABSValue element) {
+        if (!isTotallyOrdered(element)) return null;
+        if (contains(element)) return this;
+        return new SetBacking(elements.put(element, element));
+    }
+
+    SetBacking remove(ABSValue element) {
+        if (!contains(element)) return this;
+        return new SetBacking(elements.remove(element));
+    }
+}
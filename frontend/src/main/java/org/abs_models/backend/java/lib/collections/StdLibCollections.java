@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.collections;
+
+import org.abs_models.backend.java.lib.types.ABSBool;
+import org.abs_models.backend.java.lib.types.ABSInteger;
+import org.abs_models.backend.java.lib.types.ABSValue;
+
+/**
+ * Native implementations of standard library functions on lists, sets and
+ * maps, called by the generated code of these functions.  Functions that
+ * can return null fall back to the ABS definition in that case.
+ *
+ * @see PersistentCollection
+ */
+public final class StdLibCollections {
+
+    public static final CollectionBacking EMPTY_MAP = MapBacking.EMPTY;
+    public static final CollectionBacking EMPTY_SET = SetBacking.EMPTY;
+
+    private StdLibCollections() { }
+
+    /* Lists */
+
+    public static ABSInteger length(PersistentCollection list) {
+        return ABSInteger.fromLong(list.length());
+    }
+
+    /**
+     * @return whether <code>nth(list, n)</code> returns an element
+     */
+    public static boolean hasIndex(PersistentCollection list, ABSInteger n) {
+        return n.gtEq(ABSInteger.ZERO).toBoolean()
+            && n.lt(ABSInteger.fromLong(list.length())).toBoolean();
+    }
+
+    public static ABSValue nth(PersistentCollection list, ABSInteger n) {
+        return list.drop(n.toInt()).firstElement();
+    }
+
+    /* Sets */
+
+    public static ABSInteger size(PersistentCollection set) {
+        return ABSInteger.fromLong(set.length());
+    }
+
+    public static ABSBool contains(PersistentCollection set, ABSValue e) {
+        SetBacking b = (SetBacking) set.getBacking();
+        if (b == null) return null;
+        return ABSBool.fromBoolean(b.contains(e));
+    }
+
+    public static PersistentCollection insertElement(PersistentCollection set, ABSValue e) {
+        SetBacking b = (SetBacking) set.getBacking();
+        if (b == null) return null;
+        SetBacking nb = b.insert(e);
+        if (nb == null) return null;
+        return nb == b ? set : set.fromBacking(nb);
+    }
+
+    public static PersistentCollection remove(PersistentCollection set, ABSValue e) {
+        SetBacking b = (SetBacking) set.getBacking();
+        if (b == null) return null;
+        SetBacking nb = b.remove(e);
+        return nb == b ? set : set.fromBacking(nb);
+    }
+
+    /* Maps */
+
+    /**
+     * @return the first entry with the given key, or null if there is none
+     */
+    public static ABSValue lookup(PersistentCollection map, ABSValue key) {
+        return ((MapBacking) map.getBacking()).lookup(key);
+    }
+
+    /**
+     * @return the value of a map entry
+     */
+    public static ABSValue valueOf(ABSValue entry) {
+        return MapBacking.valueOf(entry);
+    }
+
+    public static PersistentCollection put(PersistentCollection map, ABSValue entry) {
+        return map.fromBacking(((MapBacking) map.getBacking()).put(entry));
+    }
+
+    public static PersistentCollection removeKey(PersistentCollection map, ABSValue key) {
+        MapBacking b = (MapBacking) map.getBacking();
+        MapBacking nb = b.removeKey(key);
+        return nb == b ? map : map.fromBacking(nb);
+    }
+}
@@ -4,6 +4,8 @@
  */
 package org.abs_models.backend.java.lib.runtime;
 
+import org.abs_models.backend.java.scheduling.GuardWaiter;
+
 public class ABSAndGuard extends ABSGuard {
     public final ABSGuard left;
     public final ABSGuard right;
@@ -35,6 +37,25 @@ public class ABSAndGuard extends ABSGuard {
         return right;
     }
 
+    @Override
+    void startWatching() {
+        left.startWatching();
+        right.startWatching();
+    }
+
+    @Override
+    void stopWatching() {
+        left.stopWatching();
+        right.stopWatching();
+    }
+
+    @Override
+    public boolean addWaitingThread(GuardWaiter w) {
+        boolean wasAdded = left.addWaitingThread(w);
+        wasAdded |= right.addWaitingThread(w);
+        return wasAdded;
+    }
+
     public boolean await() {
         boolean b = left.await();
         boolean b2 = right.await();
@@ -14,8 +14,6 @@ import org.abs_models.backend.java.lib.runtime.metaABS.ObjectMirror;
 import org.abs_models.backend.java.lib.runtime.metaABS.ProductLine;
 import org.abs_models.backend.java.lib.types.ABSInterface;
 import org.abs_models.backend.java.utils.DynamicClassUtils;
-import org.apfloat.Apint;
-import org.apfloat.Aprational;
 
 import org.abs_models.backend.java.lib.expr.UnmatchedCaseException;
 import org.abs_models.backend.java.lib.types.ABSBool;
@@ -45,8 +43,14 @@ public class ABSBuiltInFunctions {
         return ABSUnit.UNIT;
     }
 
+    /**
+     * The time of the simulated clock, as in the Erlang backend
+     */
     public static ABSRational currentms() {
-        return ABSRational.fromBigInt(new Aprational(new Apint(System.currentTimeMillis()), new Apint(1000)));
+        ABSRuntime runtime = ABSRuntime.getCurrentRuntime();
+        if (runtime == null)
+            return ABSRational.ZERO;
+        return runtime.getClock().now();
     }
 
     public static ABSInteger ms_since_model_start() {
@@ -0,0 +1,57 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.runtime;
+
+import org.abs_models.backend.java.lib.types.ABSRational;
+import org.abs_models.backend.java.scheduling.GuardWaiter;
+
+/**
+ * The guard <code>duration(min, max)</code>, which becomes true when the
+ * simulated clock has advanced by at least <code>min</code>.  While a
+ * task is suspended on it, the clock advances by at most
+ * <code>max</code>.
+ */
+public class ABSDurationGuard extends ABSGuard {
+    private final SimulatedClock clock;
+    private final SimulatedClock.Timer timer;
+    private final ABSRational min;
+    private final ABSRational max;
+
+    public ABSDurationGuard(ABSRational min, ABSRational max) {
+        this.min = min;
+        this.max = max;
+        clock = ABSRuntime.getCurrentRuntime().getClock();
+        timer = clock.newTimer(min, max);
+    }
+
+    @Override
+    public boolean isTrue() {
+        return clock.now().gtEq(timer.min).toBoolean();
+    }
+
+    @Override
+    void startWatching() {
+        clock.startTimer(timer);
+    }
+
+    @Override
+    void stopWatching() {
+        clock.stopTimer(timer);
+    }
+
+    @Override
+    public boolean addWaitingThread(GuardWaiter w) {
+        return clock.addWaiter(timer, w);
+    }
+
+    @Override
+    public String toString() {
+        return "Duration Guard until " + timer.min;
+    }
+
+    @Override
+    public String toABSString() {
+        return "duration(" + min + ", " + max + ")";
+    }
+}
@@ -8,6 +8,33 @@ import org.abs_models.backend.java.lib.types.ABSBool;
 
 public abstract class ABSExpGuard extends ABSGuard {
 
+    /**
+     * The object whose fields the guard expression reads, and the names of
+     * these fields.  <code>readFields</code> is null if the read set is
+     * unknown, e.g., because the expression calls a builtin function.
+     */
+    private final ABSObject object;
+    private final String[] readFields;
+
+    /**
+     * While a task is suspended on this guard, the value of the expression
+     * is cached; it is only evaluated again after one of the read fields
+     * was written, i.e., after <code>version</code> changed.
+     */
+    private boolean watching;
+    private volatile int version;
+    private int cachedVersion;
+    private boolean cachedValue;
+
+    protected ABSExpGuard() {
+        this(null, null);
+    }
+
+    protected ABSExpGuard(ABSObject object, String[] readFields) {
+        this.object = object;
+        this.readFields = readFields;
+    }
+
     public abstract ABSBool evaluateExp();
 
     @Override
@@ -16,8 +43,44 @@ public abstract class ABSExpGuard extends ABSGuard {
     }
 
     @Override
-    public boolean isTrue() {
-        return evaluateExp().toBoolean();
+    public synchronized boolean isTrue() {
+        if (!watching) {
+            return evaluateExp().toBoolean();
+        }
+        int v = version;
+        if (cachedVersion != v) {
+            cachedValue = evaluateExp().toBoolean();
+            cachedVersion = v;
+        }
+        return cachedValue;
+    }
+
+    /**
+     * Called when one of the read fields was written
+     */
+    void fieldWritten() {
+        version++;
+    }
+
+    @Override
+    synchronized void startWatching() {
+        if (readFields == null)
+            return;
+        for (String f : readFields) {
+            object.__ABS_watchField(f, this);
+        }
+        watching = true;
+        cachedVersion = version - 1;
+    }
+
+    @Override
+    synchronized void stopWatching() {
+        if (!watching)
+            return;
+        watching = false;
+        for (String f : readFields) {
+            object.__ABS_unwatchField(f, this);
+        }
     }
 
     @Override
@@ -6,7 +6,11 @@ package org.abs_models.backend.java.lib.runtime;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.abs_models.backend.java.lib.types.ABSBool;
@@ -17,18 +21,76 @@ import org.abs_models.backend.java.observing.FutView;
 import org.abs_models.backend.java.observing.TaskView;
 import org.abs_models.backend.java.scheduling.GuardWaiter;
 
+/**
+ * A future.  Its state is a single reference, published with
+ * compare-and-set: until the future is resolved, it is a stack of the
+ * guard waiters and blocked threads waiting for it; afterwards, it is the
+ * <code>Result</code> holding the value and exception.  Resolving takes
+ * the whole stack and wakes up its waiters in the order they were added.
+ */
 public abstract class ABSFut<V extends ABSValue> extends ABSBuiltInDataType {
     protected static final Logger log = Logger.getLogger(ABSRuntime.class.getName());
+    protected static final boolean LOG_FINEST = log.isLoggable(Level.FINEST);
+    private static final boolean LOG_FINE = log.isLoggable(Level.FINE);
     private static final AtomicInteger counter = new AtomicInteger();
-    private final int id = counter.incrementAndGet();
-    protected V value;
-    protected ABSException exception;
-    protected boolean isResolved;
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ABSFut, Object> STATE =
+        AtomicReferenceFieldUpdater.newUpdater(ABSFut.class, Object.class, "state");
+
+    private final int id;
+    /** The top of the stack of waiters (null if empty), or the result */
+    private volatile Object state;
+
+    /** The value and exception of a resolved future */
+    private static final class Result {
+        final ABSValue value;
+        final ABSException exception;
+
+        Result(ABSValue value, ABSException exception) {
+            this.value = value;
+            this.exception = exception;
+        }
+    }
+
+    /**
+     * An entry of the stack of waiters: a guard waiter, or a thread blocked
+     * in <code>await</code>.  If the COG of the thread counts as blocked
+     * for the simulated clock, <code>clock</code> is set.
+     */
+    private static final class Waiter {
+        final GuardWaiter guardWaiter;
+        final Thread thread;
+        final SimulatedClock clock;
+        Waiter next;
+
+        Waiter(GuardWaiter guardWaiter, Thread thread, SimulatedClock clock) {
+            this.guardWaiter = guardWaiter;
+            this.thread = thread;
+            this.clock = clock;
+        }
+    }
 
     protected ABSFut() {
         super("Fut");
+        COG cog = ABSRuntime.getCurrentCOG();
+        id = cog != null ? cog.freshFutID() : counter.incrementAndGet();
+    }
+
+    /**
+     * Takes <code>n</code> consecutive future IDs from the global counter.
+     * COGs take their IDs in blocks (see <code>COG.freshFutID</code>),
+     * so that creating a future does not contend on the counter.
+     *
+     * @return the first of the IDs
+     */
+    static int takeIDs(int n) {
+        return counter.getAndAdd(n) + 1;
     }
 
+    /**
+     * The ID of this future.  Futures created by the tasks of one COG get
+     * increasing IDs, in the order they are created.
+     */
     public int getID() {
         return id;
     }
@@ -36,53 +98,117 @@ public abstract class ABSFut<V extends ABSValue> extends ABSBuiltInDataType {
 
     public abstract V get();
 
-    public synchronized V getValue() {
-        return value;
+    @SuppressWarnings("unchecked")
+    public V getValue() {
+        Object s = state;
+        return s instanceof Result ? (V) ((Result) s).value : null;
     }
 
-    public synchronized boolean isResolved() {
-        return isResolved;
+    /**
+     * The exception this future was resolved with, or null if it is not
+     * resolved or resolved with a value.
+     */
+    protected ABSException getException() {
+        Object s = state;
+        return s instanceof Result ? ((Result) s).exception : null;
     }
 
-    public synchronized void await() {
-        log.finest("awaiting future");
+    public boolean isResolved() {
+        return state instanceof Result;
+    }
 
-        while (!isResolved) {
-            try {
-                wait();
-            } catch (InterruptedException e) {
-                log.finest("was interruped during await");
-                Thread.currentThread().interrupt();
-                break;
-            }
+    /**
+     * Pushes <code>w</code> on the stack of waiters, unless the future is
+     * resolved already.
+     */
+    private boolean push(Waiter w) {
+        while (true) {
+            Object top = state;
+            if (top instanceof Result)
+                return false;
+            w.next = (Waiter) top;
+            if (STATE.compareAndSet(this, top, w))
+                return true;
         }
+    }
 
+    public void await() {
+        waitForResolution(null);
+    }
+
+    /**
+     * Waits for this future while the current task keeps its COG, e.g., in
+     * <code>get</code>.  The COG counts as blocked for the simulated clock
+     * until the future is resolved.
+     */
+    protected void awaitBlocking() {
+        ABSRuntime runtime = ABSRuntime.getCurrentRuntime();
+        waitForResolution(runtime == null ? null : runtime.getClock());
+    }
+
+    private void waitForResolution(SimulatedClock clock) {
+        if (LOG_FINEST) log.finest("awaiting future");
+
+        if (!isResolved()) {
+            final Waiter w = new Waiter(null, Thread.currentThread(), clock);
+            if (push(w)) {
+                // after pushing, so that resolving activates the COG again
+                if (clock != null)
+                    clock.cogDeactivated();
+                try {
+                    // lets a worker pool (see PooledTaskScheduler)
+                    // compensate for the blocked thread
+                    ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                        @Override
+                        public boolean block() throws InterruptedException {
+                            while (!isResolved()) {
+                                LockSupport.park(ABSFut.this);
+                                if (Thread.interrupted())
+                                    throw new InterruptedException();
+                            }
+                            return true;
+                        }
+
+                        @Override
+                        public boolean isReleasable() {
+                            return isResolved();
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    if (LOG_FINEST) log.finest("was interruped during await");
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
 
-        if (exception != null)
-            throw exception;
+        ABSException e = getException();
+        if (e != null)
+            throw e;
 
-        log.finest("future ready");
+        if (LOG_FINEST) log.finest("future ready");
     }
 
-    private List<GuardWaiter> waitingThreads;
     public void resolve(final V o) {
         resolve(o,null);
     }
 
+    /**
+     * Resolves the future.  A future is resolved by a single task;
+     * resolving it again is an error and leaves the future unchanged.
+     */
     protected void resolve(final V o, final ABSException e) {
-        synchronized (this) {
-            if (isResolved)
-                throw new IllegalStateException("Future is already resolved");
-
-            log.finest(this + " is resolved to " + o);
+        if (LOG_FINEST) log.finest(this + " is resolved to " + o);
 
-            value = o;
-            exception = e;
-            isResolved = true;
-            notifyAll();
-        }
+        Result result = new Result(o, e);
+        Object waiters;
+        do {
+            waiters = state;
+            if (waiters instanceof Result)
+                throw new IllegalStateException("Future is already resolved");
+        } while (!STATE.compareAndSet(this, waiters, result));
 
-        informWaitingThreads();
+        informWaiters((Waiter) waiters);
 
         View v = view;
         if (v != null)
@@ -96,19 +222,29 @@ public abstract class ABSFut<V extends ABSValue> extends ABSBuiltInDataType {
 
 
 
-    private void informWaitingThreads() {
-        log.finest(this + " inform awaiting threads...");
+    private void informWaiters(Waiter top) {
+        if (LOG_FINEST) log.finest(this + " inform awaiting threads...");
 
-        ArrayList<GuardWaiter> copy = null;
-        synchronized (this) {
-            if (waitingThreads == null)
-                return;
-            copy = new ArrayList<>(waitingThreads);
-            waitingThreads.clear();
+        // reverse the stack in place, to inform the waiters in order
+        Waiter first = null;
+        while (top != null) {
+            Waiter next = top.next;
+            top.next = first;
+            first = top;
+            top = next;
         }
 
-        for (GuardWaiter s : copy) {
-            s.checkGuard();
+        // the blocked COGs become active before the resolving one can
+        // become idle
+        for (Waiter w = first; w != null; w = w.next) {
+            if (w.clock != null)
+                w.clock.cogActivated();
+        }
+        for (Waiter w = first; w != null; w = w.next) {
+            if (w.thread != null)
+                LockSupport.unpark(w.thread);
+            else
+                w.guardWaiter.checkGuard();
         }
     }
 
@@ -155,18 +291,15 @@ public abstract class ABSFut<V extends ABSValue> extends ABSBuiltInDataType {
 
 
     @Override
-    public synchronized String toString() {
-        return "Future (" + (isResolved ? value : "unresolved") + ")";
+    public String toString() {
+        return "Future (" + (isResolved() ? getValue() : "unresolved") + ")";
     }
 
-    public synchronized boolean addWaitingThread(GuardWaiter thread) {
-        if (isResolved) {
-            log.fine("===== "+this+" is already resolved");
+    public boolean addWaitingThread(GuardWaiter thread) {
+        if (!push(new Waiter(thread, null, null))) {
+            if (LOG_FINE) log.fine("===== "+this+" is already resolved");
             return false;
         }
-        if (waitingThreads == null)
-            waitingThreads = new ArrayList<>(1);
-        waitingThreads.add(thread);
         return true;
     }
 
@@ -4,6 +4,8 @@
  */
 package org.abs_models.backend.java.lib.runtime;
 
+import org.abs_models.backend.java.scheduling.GuardWaiter;
+
 public class ABSFutureGuard extends ABSGuard {
     public final ABSFut<?> fut;
 
@@ -16,6 +18,11 @@ public class ABSFutureGuard extends ABSGuard {
         return false;
     }
 
+    @Override
+    public boolean addWaitingThread(GuardWaiter w) {
+        return fut.addWaitingThread(w);
+    }
+
     @Override
     public boolean isTrue() {
         return fut.isResolved();
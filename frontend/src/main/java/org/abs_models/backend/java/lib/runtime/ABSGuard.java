@@ -6,6 +6,7 @@ package org.abs_models.backend.java.lib.runtime;
 
 import org.abs_models.backend.java.observing.FutView;
 import org.abs_models.backend.java.observing.GuardView;
+import org.abs_models.backend.java.scheduling.GuardWaiter;
 
 public abstract class ABSGuard {
     public abstract boolean isTrue();
@@ -30,6 +31,31 @@ public abstract class ABSGuard {
         return true;
     }
 
+    /**
+     * Called before the current task suspends on this guard, so that guards
+     * can track which of their inputs change while the task is suspended.
+     */
+    void startWatching() {
+    }
+
+    /**
+     * Called after the current task has been resumed
+     */
+    void stopWatching() {
+    }
+
+    /**
+     * Lets <code>w</code> be informed when this guard may have become true
+     * by an event other than a COG becoming idle, i.e., the resolution of a
+     * future or the advance of the simulated clock.
+     *
+     * @return whether <code>w</code> was added to an event that did not
+     * happen yet
+     */
+    public boolean addWaitingThread(GuardWaiter w) {
+        return false;
+    }
+
     private class View implements GuardView {
 
         public boolean isTrue() {
@@ -4,7 +4,10 @@
  */
 package org.abs_models.backend.java.lib.runtime;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import org.abs_models.backend.java.lib.types.ABSBool;
 import org.abs_models.backend.java.lib.types.ABSRef;
@@ -27,6 +30,13 @@ public abstract class ABSObject implements ABSRef {
     protected COG __cog;
     protected final long __id;
 
+    /**
+     * The expression guards of suspended tasks that read a field of this
+     * object, indexed by field name, or null if there are none.  Only
+     * accessed by the task currently running on the cog of this object.
+     */
+    private Map<String, List<ABSExpGuard>> __ABS_fieldWatchers;
+
     public ABSObject() {
         this(getCurrentCOG());
     }
@@ -56,6 +66,41 @@ public abstract class ABSObject implements ABSRef {
         return __cog;
     }
 
+    /**
+     * Called by the generated code after writing a field that is read by
+     * an await guard of this class.
+     */
+    protected final void __ABS_fieldWritten(String field) {
+        if (__ABS_fieldWatchers != null) {
+            List<ABSExpGuard> guards = __ABS_fieldWatchers.get(field);
+            if (guards != null) {
+                for (ABSExpGuard g : guards) {
+                    g.fieldWritten();
+                }
+            }
+        }
+    }
+
+    final void __ABS_watchField(String field, ABSExpGuard g) {
+        if (__ABS_fieldWatchers == null)
+            __ABS_fieldWatchers = new HashMap<>();
+        __ABS_fieldWatchers.computeIfAbsent(field, f -> new ArrayList<>(1)).add(g);
+    }
+
+    final void __ABS_unwatchField(String field, ABSExpGuard g) {
+        if (__ABS_fieldWatchers == null)
+            return;
+        List<ABSExpGuard> guards = __ABS_fieldWatchers.get(field);
+        if (guards != null) {
+            guards.remove(g);
+            if (guards.isEmpty()) {
+                __ABS_fieldWatchers.remove(field);
+                if (__ABS_fieldWatchers.isEmpty())
+                    __ABS_fieldWatchers = null;
+            }
+        }
+    }
+
     /**
      * Represents the init block
      */
@@ -94,7 +139,7 @@ public abstract class ABSObject implements ABSRef {
         if (other instanceof ABSObject) {
             ABSObject o = (ABSObject)other;
             int comp = getClassName().compareTo(o.getClassName()); 
-            if (comp == 0) return ABSBool.fromBoolean(this.__id > ((ABSObject)other).getView().getID());
+            if (comp == 0) return ABSBool.fromBoolean(this.__id > ((ABSObject)other).__id);
             else return ABSBool.fromBoolean(comp > 0);
         } else if (other == null) {
             return ABSBool.TRUE;
@@ -109,7 +154,7 @@ public abstract class ABSObject implements ABSRef {
         if (other instanceof ABSObject) {
             ABSObject o = (ABSObject)other;
             int comp = getClassName().compareTo(o.getClassName()); 
-            if (comp == 0) return ABSBool.fromBoolean(this.__id < ((ABSObject)other).getView().getID());
+            if (comp == 0) return ABSBool.fromBoolean(this.__id < ((ABSObject)other).__id);
             else return ABSBool.fromBoolean(comp < 0);
         } else if (other == null) {
             return ABSBool.FALSE;
@@ -166,6 +211,14 @@ public abstract class ABSObject implements ABSRef {
         throw new NoSuchFieldException(fieldName);
     }
 
+    /**
+     * Writes a field on behalf of the runtime, e.g. the resource fields of
+     * deployment components.  Guards reading the field are not notified.
+     */
+    protected void setFieldValue(String fieldName, ABSValue value) throws NoSuchFieldException {
+        throw new NoSuchFieldException(fieldName);
+    }
+
     private class View implements ObjectView, ClassView {
 
         @Override
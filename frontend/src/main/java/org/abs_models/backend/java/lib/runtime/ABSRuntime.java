@@ -21,11 +21,15 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 import org.abs_models.backend.java.lib.types.ABSInterface;
+import org.abs_models.backend.java.lib.types.ABSRational;
 import org.abs_models.backend.java.lib.types.ABSRef;
+import org.abs_models.backend.java.lib.types.ABSValue;
 import org.abs_models.backend.java.observing.SystemObserver;
 import org.abs_models.backend.java.scheduling.DefaultTaskScheduler;
 import org.abs_models.backend.java.scheduling.GlobalScheduler;
@@ -54,6 +58,8 @@ public class ABSRuntime {
     private final ABSThreadManager threadManager = new ABSThreadManager(this);
     private final AtomicInteger cogCounter = new AtomicInteger();
     private final AtomicInteger taskCounter = new AtomicInteger();
+    private final SimulatedClock clock = new SimulatedClock();
+    private final Map<ABSObject, DeploymentComponentResources> dcResources = new ConcurrentHashMap<>();
 
     /** classloader for loading the translated code and FLI classes */
     private ClassLoader classLoader = ABSRuntime.class.getClassLoader();
@@ -97,6 +103,9 @@ public class ABSRuntime {
         }
     }
 
+    // Task and COG IDs are taken from one counter each, in the order the
+    // tasks and COGs are created, so that a recorded schedule (see
+    // RecordingSchedulerStrategy) can be replayed with the same IDs.
     int freshTaskID() {
         return taskCounter.incrementAndGet();
     }
@@ -132,6 +141,23 @@ public class ABSRuntime {
         }
     }
 
+    /**
+     * Starts this runtime by using the Main class with name mainClassName (full qualified),
+     * loaded by the given class loader, e.g., the one of code that was compiled in memory.
+     * Example: <code>start(javaCode.getClassLoader(), javaCode.getFirstMainClass());</code>
+     *
+     * @param loader the class loader that defines the generated classes
+     * @param mainClassName the full qualified name of the class name.
+     * @throws ClassNotFoundException
+     * @throws IllegalAccessException
+     * @throws InstantiationException
+     */
+    public void start(ClassLoader loader, String mainClassName) throws ClassNotFoundException, InstantiationException, IllegalAccessException {
+        classLoader = classPath.isEmpty() ? loader : new URLClassLoader(classPath.toArray(new URL[0]), loader);
+        Class<?> mainClass = classLoader.loadClass(mainClassName);
+        start(mainClass);
+    }
+
     private final List<SystemObserver> systemObserver = new ArrayList<>();
 
     private GlobalSchedulingStrategy globalSchedulingStrategy;
@@ -139,6 +165,7 @@ public class ABSRuntime {
     private TaskSchedulingStrategy taskSchedulingStrategy;
     private TaskSchedulerFactory taskSchedulerFactory = DefaultTaskScheduler.getFactory();
     private volatile boolean debugging = false;
+    private volatile boolean observersEnabled = true;
     private volatile boolean terminateOnException = false;
     private long randomSeed;
     private Random random;
@@ -166,6 +193,20 @@ public class ABSRuntime {
         return debugging;
     }
 
+    /**
+     * Stops notifying observers of tasks and new COGs, which saves
+     * synchronization and view creation on every task.  System observers
+     * are still told when the system starts, finishes or fails.  Must be
+     * called before the runtime is started.
+     */
+    public void disableObservers() {
+        observersEnabled = false;
+    }
+
+    public boolean observersEnabled() {
+        return observersEnabled;
+    }
+
     /**
      * Terminate the whole ABS runtime when an exception occurs
      * when executing a task.
@@ -279,6 +320,8 @@ public class ABSRuntime {
     }
 
     public void cogCreated(ABSObject o) {
+        if (!observersEnabled)
+            return;
         for (SystemObserver obs : systemObserver) {
             obs.newCOGCreated(o.getCOG().getView(), o.getView());
         }
@@ -301,6 +344,7 @@ public class ABSRuntime {
         if (hasGlobalScheduler())
             globalScheduler.shutdown();
         threadManager.shutdownAllThreads();
+        clock.stop();
     }
 
     public TaskScheduler createTaskScheduler(COG cog) {
@@ -316,6 +360,20 @@ public class ABSRuntime {
         return threadManager;
     }
 
+    public SimulatedClock getClock() {
+        return clock;
+    }
+
+    /**
+     * Returns the resources of the given deployment component, or null if
+     * there is none.
+     */
+    public DeploymentComponentResources getDeploymentComponentResources(ABSRef dc) {
+        if (!(dc instanceof ABSObject))
+            return null;
+        return dcResources.computeIfAbsent((ABSObject) dc, o -> new DeploymentComponentResources(o, clock));
+    }
+
     public TaskSchedulingStrategy getTaskSchedulingStrategy() {
         return taskSchedulingStrategy;
     }
@@ -341,9 +399,44 @@ public class ABSRuntime {
         getCurrentCOG().getScheduler().await(new ABSTrueGuard());
     }
 
+    public static void duration(ABSRational min, ABSRational max) {
+        getCurrentRuntime().getClock().duration(min, max);
+    }
+
+    /**
+     * Consumes CPU of the deployment component of the current COG, for a
+     * statement annotated with <code>[Cost: amount]</code>.
+     */
+    public static void consumeCPU(ABSRational amount) {
+        DeploymentComponentResources r = getCurrentCOG().getDCResources();
+        if (r != null)
+            r.consume(DeploymentComponentResources.Resource.CPU, amount);
+    }
+
+    /**
+     * Consumes bandwidth of the deployment component of the current COG,
+     * for a statement annotated with <code>[DataSize: amount]</code>.
+     * For a call, <code>callee</code> is the called object; nothing is
+     * consumed if it is on the same deployment component.  For a return
+     * statement, <code>callee</code> is null.
+     */
+    public static void consumeBandwidth(ABSValue callee, ABSRational amount) {
+        COG cog = getCurrentCOG();
+        if (callee instanceof ABSObject && ((ABSObject) callee).getCOG().getDC() == cog.getDC())
+            return;
+        DeploymentComponentResources r = cog.getDCResources();
+        if (r != null)
+            r.consume(DeploymentComponentResources.Resource.BANDWIDTH, amount);
+    }
+
     public static void await(ABSGuard g) {
         if (g.isTrue()) return; // special case in the semantics
-        getCurrentCOG().getScheduler().await(g);
+        g.startWatching();
+        try {
+            getCurrentCOG().getScheduler().await(g);
+        } finally {
+            g.stopWatching();
+        }
     }
 
     public COG createCOG(Class<?> clazz, ABSInterface dc) {
@@ -363,11 +456,7 @@ public class ABSRuntime {
     }
 
     public static ABSThread getCurrentThread() {
-        Thread currentThread = Thread.currentThread();
-        if (currentThread instanceof ABSThread)
-            return (ABSThread) currentThread;
-        else
-            return null;
+        return ABSThread.current();
     }
 
     public <T extends ABSRef> ABSFut<?> asyncCall(AsyncCall<T> call) {
@@ -376,20 +465,21 @@ public class ABSRuntime {
         return task.getFut();
     }
 
-    private final Map<Class<?>,AtomicInteger> objectIds = new HashMap<>();
+    /**
+     * The counters of object IDs, per class.  Only creating the counter
+     * of a class takes a lock; afterwards, IDs are taken from it with a
+     * lock-free increment.
+     */
+    private final Map<Class<?>,AtomicLong> objectIds = new ConcurrentHashMap<>();
     public long getFreshObjectID(Class<?> clazz) {
-        AtomicInteger ai = null;
-        synchronized (objectIds) {
-            ai = objectIds.get(clazz);
-            if (ai == null) {
-                ai = new AtomicInteger();
-                objectIds.put(clazz, ai);
-            }
-            return ai.incrementAndGet();
-        }
+        AtomicLong counter = objectIds.get(clazz);
+        if (counter == null)
+            counter = objectIds.computeIfAbsent(clazz, c -> new AtomicLong());
+        return counter.incrementAndGet();
     }
 
     public void systemFinished() {
+        clock.stop();
         for (SystemObserver obs : systemObserver) {
             obs.systemFinished();
         }
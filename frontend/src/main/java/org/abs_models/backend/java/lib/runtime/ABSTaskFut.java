@@ -26,10 +26,8 @@ public class ABSTaskFut<V extends ABSValue> extends ABSFut<V> {
 
     @Override
     public V get() {
-        synchronized (this) {
-            if (!isResolved() && resolvingTask.getCOG() == ABSRuntime.getCurrentCOG())
-                throw new ABSDeadlockException();
-        }
+        if (!isResolved() && resolvingTask.getCOG() == ABSRuntime.getCurrentCOG())
+            throw new ABSDeadlockException();
 
         final Task<?> t = ABSRuntime.getCurrentTask();
         if (t != null) {
@@ -40,23 +38,24 @@ public class ABSTaskFut<V extends ABSValue> extends ABSFut<V> {
             ABSRuntime.getCurrentRuntime().getGlobalScheduler().handleGet(this);
         }
 
-        await();
-        log.finest("future awaited");
+        awaitBlocking();
+        if (LOG_FINEST) log.finest("future awaited");
 
         if (t != null) {
             t.futureReady(this);
         }
 
-        log.finest("continue after get");
+        if (LOG_FINEST) log.finest("continue after get");
 
-        if (exception != null)
-            throw exception;
-        return value;
+        ABSException e = getException();
+        if (e != null)
+            throw e;
+        return getValue();
     }
 
     @Override
-    public synchronized String toString() {
-        return "Future of " + resolvingTask + " (" + (isResolved ? value : "unresolved") + ")";
+    public String toString() {
+        return "Future of " + resolvingTask + " (" + (isResolved() ? getValue() : "unresolved") + ")";
     }
 
     public Task<?> getResolvingTask() {
@@ -1,19 +1,49 @@
-/** 
- * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved. 
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
  * This file is licensed under the terms of the Modified BSD License.
  */
 package org.abs_models.backend.java.lib.runtime;
 
+import java.util.concurrent.Executor;
 import java.util.logging.Logger;
 
-public class ABSThread extends Thread {
+/**
+ * A thread executing ABS code.  The actual Java thread is created by the
+ * {@link ABSThreadManager} and is either a platform thread or a virtual
+ * thread, or the ABSThread is run by an executor such as a worker pool.
+ * Hence this class does not extend {@link Thread} but keeps track of the
+ * current ABSThread via a thread-local variable.
+ */
+public class ABSThread implements Runnable {
     private static Logger logger = Logging.getLogger(ABSThread.class.getName());
+    private static final ThreadLocal<ABSThread> currentThread = new ThreadLocal<>();
+    private final Runnable runnable;
+    private final Thread thread;
+    private final Executor executor;
+    private volatile Thread carrier;
+    private String name;
     private COG cog;
     private ABSThreadManager manager;
     protected boolean shutdown;
-    
+
     public ABSThread(Runnable r, ABSThreadManager m) {
-        super(r);
+        runnable = r;
+        thread = m.newThread(this::execute);
+        executor = null;
+        init(m);
+    }
+
+    /**
+     * Creates an ABSThread without a Java thread of its own.  When started,
+     * it is passed to the given executor and runs on one of its threads.
+     *
+     * @param m the thread manager
+     * @param e the executor running this thread
+     */
+    public ABSThread(ABSThreadManager m, Executor e) {
+        runnable = null;
+        thread = null;
+        executor = e;
         init(m);
     }
 
@@ -24,8 +54,15 @@ public class ABSThread extends Thread {
     }
 
     public ABSThread(ABSThreadManager m) {
-        super();
-        init(m);
+        this(null, m);
+    }
+
+    /**
+     * @return the ABSThread executing the caller, or null if the caller
+     * does not run inside an ABSThread
+     */
+    static ABSThread current() {
+        return currentThread.get();
     }
 
     public COG getCOG() {
@@ -35,14 +72,58 @@ public class ABSThread extends Thread {
     public void setCOG(COG c) {
         cog = c;
     }
-    
+
+    public void start() {
+        if (executor != null)
+            executor.execute(this::execute);
+        else
+            thread.start();
+    }
+
+    public void setName(String name) {
+        if (thread != null)
+            thread.setName(name);
+        else
+            this.name = name;
+    }
+
+    public String getName() {
+        return thread != null ? thread.getName() : name;
+    }
+
+    public long getId() {
+        Thread t = thread != null ? thread : carrier;
+        return t != null ? t.getId() : -1;
+    }
+
+    /**
+     * @return whether this thread does not keep the JVM alive by itself
+     */
+    boolean isDaemon() {
+        return thread == null || thread.isDaemon();
+    }
+
+    private void execute() {
+        carrier = Thread.currentThread();
+        currentThread.set(this);
+        try {
+            run();
+        } finally {
+            currentThread.remove();
+            carrier = null;
+        }
+    }
 
     @Override
     public void run() {
-        super.run();
-        finished();
+        try {
+            if (runnable != null)
+                runnable.run();
+        } finally {
+            finished();
+        }
     }
-    
+
     /**
      * Must be called by subclasses that override run,
      * when the run method has finished
@@ -50,7 +131,7 @@ public class ABSThread extends Thread {
     protected void finished() {
         manager.removeThread(this);
     }
-    
+
 
     public void checkGuard() {
     }
@@ -58,16 +139,23 @@ public class ABSThread extends Thread {
     public synchronized boolean isShutdown() {
         return shutdown;
     }
-    
+
     public synchronized void shutdown() {
         logger.fine("Thread "+this.getId()+" received shutdown signal");
         shutdown = true;
-        this.interrupt();
+        Thread t = thread != null ? thread : carrier;
+        if (t != null)
+            t.interrupt();
     }
-    
+
     public synchronized void wasInterrupted(InterruptedException e) {
         if (!shutdown) {
             e.printStackTrace();
         }
     }
+
+    @Override
+    public String toString() {
+        return thread != null ? thread.toString() : "ABSThread[" + name + "]";
+    }
 }
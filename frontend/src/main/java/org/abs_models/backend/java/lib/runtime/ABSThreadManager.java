@@ -4,39 +4,152 @@
  */
 package org.abs_models.backend.java.lib.runtime;
 
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 public class ABSThreadManager {
     private static Logger logger = Logging.getLogger(ABSThread.class.getName());
-    private final List<ABSThread> threads = new ArrayList<>();
+    private final Set<ABSThread> threads = ConcurrentHashMap.newKeySet();
     private final ABSRuntime runtime;
+
+    /**
+     * Virtual threads and pool workers are daemon threads, so while they are
+     * running we keep the JVM alive by waiting on this monitor in a platform
+     * thread.  The monitor also guards the number of live threads and
+     * whether the keep-alive thread is running, so that a thread added
+     * while the keep-alive thread is about to exit starts a new one.
+     */
+    private final Object keepAlive = new Object();
+    private int liveThreads;
+    private boolean keepAliveRunning;
+
+    /** Thread.ofVirtual() and Thread.Builder.unstarted(Runnable), or null before Java 21 */
+    private static final Method ofVirtual;
+    private static final Method unstarted;
+    static {
+        Method o = null;
+        Method u = null;
+        try {
+            o = Thread.class.getMethod("ofVirtual");
+            u = Class.forName("java.lang.Thread$Builder").getMethod("unstarted", Runnable.class);
+        } catch (NoSuchMethodException | ClassNotFoundException e) {
+            o = null;
+            u = null;
+        }
+        ofVirtual = o;
+        unstarted = u;
+    }
+
+    private volatile boolean useVirtualThreads = false;
+
     ABSThreadManager(ABSRuntime r) {
         runtime = r;
     }
 
-    public synchronized void addThread(ABSThread t) {
+    /**
+     * Run ABS tasks on virtual threads instead of platform threads.
+     * Virtual threads need Java 21 or later; on older Java versions a
+     * warning is logged and platform threads are used.
+     *
+     * @param b whether to use virtual threads
+     */
+    public void setUseVirtualThreads(boolean b) {
+        if (b && ofVirtual == null) {
+            logger.warning("Virtual threads are not supported by this Java version, using platform threads");
+            b = false;
+        }
+        useVirtualThreads = b;
+    }
+
+    public boolean usesVirtualThreads() {
+        return useVirtualThreads;
+    }
+
+    Thread newThread(Runnable r) {
+        if (useVirtualThreads) {
+            try {
+                return (Thread) unstarted.invoke(ofVirtual.invoke(null), r);
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                logger.warning("Could not create virtual thread, using platform threads: " + e);
+                useVirtualThreads = false;
+            }
+        }
+        return new Thread(r);
+    }
+
+    /**
+     * @return an executor that runs each job on a new virtual thread, or
+     * null if this Java version does not support virtual threads
+     */
+    public static Executor newVirtualThreadExecutor() {
+        if (ofVirtual == null)
+            return null;
+        return r -> {
+            try {
+                ((Thread) unstarted.invoke(ofVirtual.invoke(null), r)).start();
+            } catch (IllegalAccessException | InvocationTargetException e) {
+                throw new RejectedExecutionException("Could not create virtual thread", e);
+            }
+        };
+    }
+
+    public void addThread(ABSThread t) {
         threads.add(t);
+        synchronized (keepAlive) {
+            liveThreads++;
+            if (t.isDaemon() && !keepAliveRunning) {
+                keepAliveRunning = true;
+                startKeepAliveThread();
+            }
+        }
         if (logger.isLoggable(Level.FINEST)) logger.finest("Added thread "+t);
     }
 
-    public synchronized void removeThread(ABSThread t) {
+    public void removeThread(ABSThread t) {
         threads.remove(t);
         if (logger.isLoggable(Level.FINEST)) logger.finest("Removed thread "+t);
-        if (threads.isEmpty()) {
-            runtime.systemFinished();
+        boolean finished;
+        synchronized (keepAlive) {
+            finished = --liveThreads == 0;
+            if (finished)
+                keepAlive.notifyAll();
         }
+        if (finished)
+            runtime.systemFinished();
+    }
+
+    private void startKeepAliveThread() {
+        Thread t = new Thread(() -> {
+            synchronized (keepAlive) {
+                try {
+                    while (liveThreads > 0) {
+                        keepAlive.wait();
+                    }
+                } catch (InterruptedException e) {
+                    // exit
+                } finally {
+                    keepAliveRunning = false;
+                }
+            }
+        }, "ABS Keep-Alive Thread");
+        t.start();
     }
 
-    public synchronized void shutdownAllThreads() {
+    public void shutdownAllThreads() {
         for (ABSThread t : threads) {
             t.shutdown();
         }
     }
 
-    public synchronized <T> List<T> getAllCopyOf(Class<T> clazz) {
+    public <T> List<T> getAllCopyOf(Class<T> clazz) {
         List<T> result = new ArrayList<>();
         for (ABSThread t : threads) {
             if (t.getClass().equals(clazz)) {
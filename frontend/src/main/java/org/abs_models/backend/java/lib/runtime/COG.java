@@ -24,6 +24,7 @@ public class COG implements ABSValue {
     private final int id;
     private final ABSRuntime runtime;
     private ABSInterface dc;
+    private volatile DeploymentComponentResources dcResources;
 
     public COG(ABSRuntime runtime, Class<?> clazz, ABSInterface dc) {
         initialClass = clazz;
@@ -57,6 +58,19 @@ public class COG implements ABSValue {
         return dc;
     }
 
+    /**
+     * Returns the resources of the deployment component of this COG, or
+     * null if it has none.
+     */
+    public DeploymentComponentResources getDCResources() {
+        DeploymentComponentResources result = dcResources;
+        if (result == null && dc != null) {
+            result = runtime.getDeploymentComponentResources(dc);
+            dcResources = result;
+        }
+        return result;
+    }
+
     public void addTask(Task<?> task) {
         scheduler.addTask(task);
     }
@@ -65,6 +79,31 @@ public class COG implements ABSValue {
         return id;
     }
 
+    // The IDs of the futures created by the tasks of this COG, taken from
+    // the global counter in blocks that double in size up to
+    // MAX_FUT_ID_BLOCK, so that COGs creating few futures waste few IDs
+    private static final int MAX_FUT_ID_BLOCK = 1024;
+    private final Object futIDLock = new Object();
+    private int nextFutID;
+    private int futIDsLeft;
+    private int futIDBlock = 1;
+
+    /**
+     * Returns a fresh future ID.  IDs of the futures of one COG increase in
+     * the order they are taken.
+     */
+    int freshFutID() {
+        synchronized (futIDLock) {
+            if (futIDsLeft == 0) {
+                nextFutID = ABSFut.takeIDs(futIDBlock);
+                futIDsLeft = futIDBlock;
+                futIDBlock = Math.min(2 * futIDBlock, MAX_FUT_ID_BLOCK);
+            }
+            futIDsLeft--;
+            return nextFutID++;
+        }
+    }
+
     public String toString() {
         return "COG [" + initialClass.getSimpleName() + "] (" + getID() + ")";
     }
@@ -75,6 +114,8 @@ public class COG implements ABSValue {
     }
 
     public void objectInitialized(ABSObject absObject) {
+        if (DeploymentComponentResources.isDeploymentComponent(absObject))
+            runtime.getDeploymentComponentResources(absObject).initialize();
         if (view != null)
             view.objectInitialized(absObject);
     }
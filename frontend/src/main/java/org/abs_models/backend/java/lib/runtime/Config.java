@@ -64,6 +64,7 @@ public class Config {
     public void setSimpleOptions() {
         runtime.enableDebugging(options.debug.isTrue());
         runtime.terminateOnException(options.terminateOnException.isTrue());
+        runtime.getThreadManager().setUseVirtualThreads(options.virtualThreads.isTrue());
 
         if (options.graphicalDebug.isTrue()) {
             runtime.enableDebugging(true);
@@ -71,6 +72,14 @@ public class Config {
             options.systemObserver.appendStringValue(GraphicalDebugger.class.getName());
         }
 
+        if (options.noObservers.isTrue()) {
+            if (options.debug.isTrue() || options.graphicalDebug.isTrue() || options.systemObserver.wasSet()) {
+                logger.warning("Ignoring -noobservers, since debugging and system observers need observers");
+            } else {
+                runtime.disableObservers();
+            }
+        }
+
         loadRandomSeed();
     }
 
@@ -179,6 +188,8 @@ public class Config {
                 taskSchedulerFactory = DefaultTaskScheduler.getFactory();
             } else if (schedulerName.equals("simple")) {
                 taskSchedulerFactory = SimpleTaskScheduler.getFactory();
+            } else if (schedulerName.equals("pool")) {
+                taskSchedulerFactory = PooledTaskScheduler.getFactory();
             } else {
                 logger.warning("The task scheduler " + schedulerName
                         + " does not exist, falling back to the default task scheduler.");
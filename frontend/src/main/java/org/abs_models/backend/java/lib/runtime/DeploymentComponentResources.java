@@ -0,0 +1,285 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.runtime;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.LockSupport;
+
+import org.abs_models.backend.java.lib.types.ABSDataType;
+import org.abs_models.backend.java.lib.types.ABSRational;
+import org.abs_models.backend.java.lib.types.ABSValue;
+import org.abs_models.backend.java.utils.DynamicClassUtils;
+
+/**
+ * The resources of a deployment component, i.e., of an object of class
+ * <code>ABS.DC.DeploymentComponent</code>, as in the Erlang backend
+ * (<code>dc.erl</code>).
+ *
+ * Statements annotated with <code>[Cost: e]</code> consume CPU, calls to
+ * objects on another deployment component and return statements
+ * annotated with <code>[DataSize: e]</code> consume bandwidth.  When a
+ * request exceeds the resources left in the current time interval, the
+ * available resources are consumed and the rest of the request is
+ * queued; the task and its COG are blocked until the rest could be
+ * consumed.  When the simulated clock crosses integer time boundaries, it
+ * calls <code>refill</code>, which records the resources consumed in the
+ * past intervals in the history fields of the deployment component, sets
+ * the totals to the totals for the next interval and serves the queued
+ * requests in order.
+ *
+ * The fields of the deployment component object that are named in
+ * <code>abslang.abs</code> are written by this class; the totals and
+ * consumed resources of the current interval are kept here, too, so
+ * that consuming resources does not need to read the object.
+ */
+public class DeploymentComponentResources {
+    private static final String DC_CLASS = "ABS.DC.DeploymentComponent_c";
+
+    public enum Resource {
+        CPU("cpu", true), BANDWIDTH("bw", true), MEMORY("memory", false);
+
+        /** The prefix of the names of the fields of this resource */
+        final String field;
+        /** Whether consumption is reset at each time boundary */
+        final boolean refreshes;
+
+        Resource(String field, boolean refreshes) {
+            this.field = field;
+            this.refreshes = refreshes;
+        }
+    }
+
+    private final ABSObject dc;
+    private final SimulatedClock clock;
+    private final Pool[] pools = new Pool[Resource.values().length];
+    private boolean initialized;
+
+    DeploymentComponentResources(ABSObject dc, SimulatedClock clock) {
+        this.dc = dc;
+        this.clock = clock;
+        for (Resource r : Resource.values()) {
+            pools[r.ordinal()] = new Pool(r);
+        }
+    }
+
+    static boolean isDeploymentComponent(ABSObject o) {
+        return o.getClass().getName().equals(DC_CLASS);
+    }
+
+    /**
+     * A request that could not be served right away, and the thread
+     * blocked until it is served
+     */
+    private static class Request {
+        ABSRational remaining;
+        final Thread thread;
+        volatile boolean done;
+
+        Request(ABSRational remaining, Thread thread) {
+            this.remaining = remaining;
+            this.thread = thread;
+        }
+    }
+
+    private class Pool {
+        final Resource resource;
+        /** The total in the current interval, an <code>InfRat</code> value */
+        ABSValue total;
+        ABSRational consumed = ABSRational.ZERO;
+        ABSValue history;
+        ABSValue totalHistory;
+        final ArrayDeque<Request> queue = new ArrayDeque<>();
+
+        Pool(Resource resource) {
+            this.resource = resource;
+        }
+
+        /**
+         * Consumes as much of <code>amount</code> as is available and
+         * returns the rest, or null if all of it could be consumed.
+         */
+        ABSRational take(ABSRational amount) {
+            ABSRational taken = amount;
+            ABSRational rest = null;
+            ABSRational fin = finValue(total);
+            if (fin != null) {
+                ABSRational available = fin.subtract(consumed);
+                if (amount.gt(available).toBoolean()) {
+                    taken = available.gt(ABSRational.ZERO).toBoolean() ? available : ABSRational.ZERO;
+                    rest = amount.subtract(taken);
+                }
+            }
+            if (taken != ABSRational.ZERO) {
+                consumed = consumed.add(taken);
+                setField(resource.field + "consumed", consumed);
+            }
+            return rest;
+        }
+
+        /**
+         * Serves the queued requests in order, until one of them cannot be
+         * served completely, and adds the served ones to <code>served</code>.
+         */
+        void serve(List<Request> served) {
+            while (!queue.isEmpty()) {
+                Request req = queue.peek();
+                req.remaining = take(req.remaining);
+                if (req.remaining != null)
+                    break;
+                queue.poll();
+                served.add(req);
+            }
+        }
+
+        /**
+         * Ends <code>intervals</code> intervals.  Only the first of them
+         * can have consumed anything new; the others consumed nothing (or
+         * the same, if the resource does not refresh), and their total is
+         * the total for the next interval.  The history lists still get
+         * one entry per interval, but the fields are written only once.
+         */
+        void refill(int intervals) {
+            history = cons(consumed, history);
+            ABSRational fin = finValue(total);
+            if (fin != null)
+                totalHistory = cons(fin, totalHistory);
+            if (resource.refreshes)
+                consumed = ABSRational.ZERO;
+            total = getField(resource.field + "next");
+            ABSRational nextFin = finValue(total);
+            for (int i = 1; i < intervals; i++) {
+                history = cons(consumed, history);
+                if (nextFin != null)
+                    totalHistory = cons(nextFin, totalHistory);
+            }
+            setField(resource.field + "history", history);
+            if (fin != null || (nextFin != null && intervals > 1))
+                setField(resource.field + "historytotal", totalHistory);
+            if (resource.refreshes)
+                setField(resource.field + "consumed", consumed);
+            setField(resource.field, total);
+        }
+    }
+
+    /**
+     * Called by the COG of the deployment component when the object has
+     * been initialized.  Requests issued before are served now.
+     */
+    void initialize() {
+        synchronized (this) {
+            for (Pool p : pools) {
+                p.total = getField(p.resource.field);
+                p.consumed = (ABSRational) getField(p.resource.field + "consumed");
+                p.history = getField(p.resource.field + "history");
+                p.totalHistory = getField(p.resource.field + "historytotal");
+            }
+            initialized = true;
+            wakeUp(serveAll());
+        }
+        clock.addDeploymentComponent(this);
+    }
+
+    /**
+     * Consumes <code>amount</code> of resource <code>r</code>, blocking the
+     * current task and its COG until the whole amount has been consumed.
+     * Negative amounts are treated as 0.
+     */
+    public void consume(Resource r, ABSRational amount) {
+        if (!amount.gt(ABSRational.ZERO).toBoolean())
+            return;
+        final Request req;
+        synchronized (this) {
+            Pool p = pools[r.ordinal()];
+            ABSRational rest = amount;
+            // requests are served in order, so only consume if nobody waits
+            if (initialized && p.queue.isEmpty()) {
+                rest = p.take(amount);
+                if (rest == null)
+                    return;
+            }
+            req = new Request(rest, Thread.currentThread());
+            p.queue.add(req);
+            clock.resourceWaitStarted();
+        }
+        clock.cogDeactivated();
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    while (!req.done) {
+                        LockSupport.park(DeploymentComponentResources.this);
+                        if (Thread.interrupted())
+                            throw new InterruptedException();
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return req.done;
+                }
+            });
+        } catch (InterruptedException e) {
+            throw new SystemTerminatedException();
+        }
+    }
+
+    /**
+     * Called by the clock when it crosses <code>intervals</code> integer
+     * time boundaries at once, while no COG is active.
+     */
+    synchronized void refill(int intervals) {
+        for (Pool p : pools) {
+            p.refill(intervals);
+        }
+        wakeUp(serveAll());
+    }
+
+    private List<Request> serveAll() {
+        List<Request> served = new ArrayList<>();
+        for (Pool p : pools) {
+            p.serve(served);
+        }
+        return served;
+    }
+
+    private void wakeUp(List<Request> served) {
+        // the blocked COGs become active before anybody can become idle
+        for (int i = 0; i < served.size(); i++) {
+            clock.resourceWaitFinished();
+        }
+        for (Request req : served) {
+            req.done = true;
+            LockSupport.unpark(req.thread);
+        }
+    }
+
+    private static ABSRational finValue(ABSValue infRat) {
+        ABSDataType d = (ABSDataType) infRat;
+        return d.getConstructorName().equals("Fin") ? (ABSRational) d.getArg(0) : null;
+    }
+
+    private static ABSValue cons(ABSValue head, ABSValue tail) {
+        return DynamicClassUtils.instance("ABS.StdLib.List_Cons", head, tail);
+    }
+
+    private ABSValue getField(String name) {
+        try {
+            return dc.getFieldValue(name);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Deployment component without field " + name, e);
+        }
+    }
+
+    private void setField(String name, ABSValue value) {
+        try {
+            dc.setFieldValue(name, value);
+        } catch (NoSuchFieldException e) {
+            throw new IllegalStateException("Deployment component without field " + name, e);
+        }
+    }
+}
@@ -15,6 +15,11 @@ public class Logging {
     // Default log level is WARNING
     public static Level LOGLEVEL = Level.parse(System.getProperty("abs.loglevel", "warning").toUpperCase());
 
+    /**
+     * Sets the level of the loggers created afterwards.  The schedulers and
+     * futures check their level once, when their class is initialized, so
+     * it must be set before the runtime starts.
+     */
     public static void setLogLevel(String levelName) {
         LOGLEVEL = Level.parse(levelName.toUpperCase());
     }
@@ -109,7 +109,11 @@ public class RuntimeOptions {
     public final Option taskSchedulerStrategy =
         addOption(CLASS, "taskschedulerstrategy", "sets a task scheduler strategy class", null);
     public final Option taskScheduler =
-        addOption(STRING, "taskscheduler", "sets the task scheduler to be used", "default");
+        addOption(STRING, "taskscheduler", "sets the task scheduler to be used (default, simple or pool)", "default");
+    public final Option virtualThreads =
+        addOption(BOOLEAN, "virtualthreads", "runs tasks on virtual threads (needs Java 21 or later)", false);
+    public final Option noObservers =
+        addOption(BOOLEAN, "noobservers", "does not notify observers of tasks and cogs, for faster execution", false);
     public final Option recordTaskScheduler =
         addOption(BOOLEAN, "recordtaskscheduler", "enables recording of task scheduling", false);
     public final Option randomSeed =
@@ -0,0 +1,298 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.runtime;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Logger;
+
+import org.abs_models.backend.java.lib.types.ABSRational;
+import org.abs_models.backend.java.scheduling.GuardWaiter;
+
+/**
+ * The simulated clock of Timed ABS, shared by all COGs of a runtime.
+ *
+ * As in the Erlang backend, time only advances when no COG can make
+ * progress, i.e., when every COG is idle or its active task is blocked
+ * on a <code>duration</code> statement or on getting an unresolved
+ * future.  Time then advances to the earliest maximum end time of all
+ * pending durations, and every duration whose minimum end time has been
+ * reached is woken up.  Pending durations are kept in two priority
+ * queues, ordered by minimum and by maximum end time; a task blocked on
+ * a duration is parked on its own and only unparked when its timer is
+ * woken up.
+ *
+ * The task schedulers report to the clock when a COG becomes active or
+ * idle.  Whoever makes a COG active must do so before becoming idle
+ * itself: e.g., a task resolving a future lets the COGs of the tasks
+ * waiting for it become active before its own COG becomes idle.
+ * Otherwise, time could advance while a COG is about to run.  Durations
+ * are woken up by a thread of the clock, which is started with the first
+ * duration.
+ *
+ * The clock also refills the resources of deployment components for
+ * the integer time boundaries it crosses, all at once, see
+ * <code>DeploymentComponentResources</code>.  While a task is blocked
+ * waiting for resources, time advances at most to the next integer
+ * boundary.
+ */
+public class SimulatedClock {
+    private static final Logger log = Logging.getLogger(SimulatedClock.class.getName());
+
+    /**
+     * The number of COGs that are active and not blocked
+     */
+    private final AtomicInteger activeCOGs = new AtomicInteger();
+    /**
+     * The number of tasks blocked waiting for the resources of a
+     * deployment component
+     */
+    private final AtomicInteger resourceWaits = new AtomicInteger();
+    private final List<DeploymentComponentResources> deploymentComponents = new ArrayList<>();
+
+    private ABSRational now = ABSRational.ZERO;
+    private long timerCount;
+    private final PriorityQueue<Timer> byMin = new PriorityQueue<>(
+        Comparator.comparing((Timer t) -> t.min, SimulatedClock::compare).thenComparingLong(t -> t.id));
+    /** Contains timers that have been woken up already, see <code>nextMax</code> */
+    private final PriorityQueue<Timer> byMax = new PriorityQueue<>(
+        Comparator.comparing((Timer t) -> t.max, SimulatedClock::compare).thenComparingLong(t -> t.id));
+    private Thread thread;
+
+    private static int compare(ABSRational a, ABSRational b) {
+        return a.lt(b).toBoolean() ? -1 : a.gt(b).toBoolean() ? 1 : 0;
+    }
+
+    /**
+     * A pending duration, from its minimum to its maximum end time
+     */
+    class Timer {
+        final ABSRational min;
+        final ABSRational max;
+        final long id;
+        /**
+         * The thread blocked until the timer is woken up, with its COG, or
+         * null for the timer of a guard
+         */
+        final Thread blocked;
+        volatile boolean done;
+        private List<GuardWaiter> waiters;
+
+        Timer(ABSRational min, ABSRational max, Thread blocked) {
+            this.min = min;
+            this.max = max.lt(min).toBoolean() ? min : max;
+            this.id = ++timerCount;
+            this.blocked = blocked;
+        }
+    }
+
+    public synchronized ABSRational now() {
+        return now;
+    }
+
+    /**
+     * Called when a COG becomes active, or its blocked task continues
+     */
+    public void cogActivated() {
+        activeCOGs.incrementAndGet();
+    }
+
+    /**
+     * Called when a COG becomes idle, or its active task blocks
+     */
+    public void cogDeactivated() {
+        if (activeCOGs.decrementAndGet() == 0) {
+            synchronized (this) {
+                // only the thread of the clock waits on its monitor
+                notify();
+            }
+        }
+    }
+
+    /**
+     * Blocks the current task and its COG for a duration between
+     * <code>min</code> and <code>max</code>.
+     */
+    public void duration(ABSRational min, ABSRational max) {
+        final Timer t;
+        synchronized (this) {
+            t = new Timer(now.add(min), now.add(max), Thread.currentThread());
+            add(t);
+        }
+        cogDeactivated();
+        try {
+            ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+                @Override
+                public boolean block() throws InterruptedException {
+                    while (!t.done) {
+                        LockSupport.park(SimulatedClock.this);
+                        if (Thread.interrupted())
+                            throw new InterruptedException();
+                    }
+                    return true;
+                }
+
+                @Override
+                public boolean isReleasable() {
+                    return t.done;
+                }
+            });
+        } catch (InterruptedException e) {
+            throw new SystemTerminatedException();
+        }
+    }
+
+    /**
+     * Creates a timer for a guard, which wakes up the waiters added by
+     * <code>addWaiter</code>.  The timer is pending between
+     * <code>startTimer</code> and <code>stopTimer</code>.
+     */
+    synchronized Timer newTimer(ABSRational min, ABSRational max) {
+        return new Timer(now.add(min), now.add(max), null);
+    }
+
+    synchronized void startTimer(Timer t) {
+        if (!t.done)
+            add(t);
+    }
+
+    synchronized void stopTimer(Timer t) {
+        if (!t.done) {
+            t.done = true;
+            byMin.remove(t);
+        }
+    }
+
+    synchronized boolean addWaiter(Timer t, GuardWaiter w) {
+        if (t.done)
+            return false;
+        if (t.waiters == null)
+            t.waiters = new ArrayList<>(1);
+        t.waiters.add(w);
+        return true;
+    }
+
+    /**
+     * Called by a task that is about to block for resources, before its
+     * COG becomes idle
+     */
+    void resourceWaitStarted() {
+        resourceWaits.incrementAndGet();
+    }
+
+    /**
+     * Called when a task blocked for resources can continue; its COG
+     * becomes active.
+     */
+    void resourceWaitFinished() {
+        activeCOGs.incrementAndGet();
+        resourceWaits.decrementAndGet();
+    }
+
+    synchronized void addDeploymentComponent(DeploymentComponentResources dc) {
+        deploymentComponents.add(dc);
+        start();
+    }
+
+    private void add(Timer t) {
+        byMin.add(t);
+        byMax.add(t);
+        start();
+    }
+
+    private void start() {
+        if (thread == null) {
+            thread = new Thread(this::run, "ABS Clock");
+            thread.setDaemon(true);
+            thread.start();
+        }
+        notify();
+    }
+
+    /**
+     * Stops the thread of the clock; it is started again by the next
+     * duration.
+     */
+    public synchronized void stop() {
+        if (thread != null) {
+            thread.interrupt();
+            thread = null;
+        }
+    }
+
+    private void run() {
+        Thread self = Thread.currentThread();
+        try {
+            while (true) {
+                List<GuardWaiter> waiters = new ArrayList<>();
+                synchronized (this) {
+                    while (thread == self
+                           && (activeCOGs.get() > 0 || (byMin.isEmpty() && resourceWaits.get() == 0))) {
+                        wait();
+                    }
+                    if (thread != self)
+                        return;
+                    advance(waiters);
+                }
+                // wake up guards outside of the lock, as their COGs call
+                // back into the clock
+                for (GuardWaiter w : waiters) {
+                    w.checkGuard();
+                }
+            }
+        } catch (InterruptedException e) {
+            // stopped
+        }
+    }
+
+    /**
+     * Advances time in one step to the earliest maximum end time, or to
+     * the next integer boundary if tasks wait for resources, refills the
+     * resources of all deployment components for the boundaries crossed
+     * and wakes up all timers whose minimum end time has been reached.
+     * Blocked COGs become active right away, the waiters of guards are
+     * added to <code>waiters</code>.
+     */
+    private void advance(List<GuardWaiter> waiters) {
+        while (!byMax.isEmpty() && byMax.peek().done) {
+            byMax.poll();
+        }
+        ABSRational target = byMax.isEmpty() ? null : byMax.peek().max;
+        if (resourceWaits.get() > 0) {
+            ABSRational boundary = now.truncate().add(ABSRational.ONE);
+            if (target == null || boundary.lt(target).toBoolean()) {
+                target = boundary;
+            }
+        }
+        if (target.gt(now).toBoolean()) {
+            int boundaries = target.truncate().subtract(now.truncate()).toInt();
+            now = target;
+            if (boundaries > 0) {
+                for (DeploymentComponentResources dc : deploymentComponents) {
+                    dc.refill(boundaries);
+                }
+            }
+        }
+        log.finest(() -> "Time advanced to " + now);
+
+        while (!byMin.isEmpty() && byMin.peek().min.ltEq(now).toBoolean()) {
+            Timer t = byMin.poll();
+            if (t.blocked != null) {
+                // active before it can run, and thus become idle again
+                activeCOGs.incrementAndGet();
+                t.done = true;
+                LockSupport.unpark(t.blocked);
+            } else {
+                t.done = true;
+                if (t.waiters != null)
+                    waiters.addAll(t.waiters);
+            }
+        }
+    }
+}
@@ -21,11 +21,13 @@ import org.abs_models.backend.java.observing.TaskView;
 public class Task<T extends ABSRef> {
     private final ABSFut<? super ABSValue> future;
     private final int id;
-    private Thread executingThread;
+    private volatile Thread executingThread;
     private ABSException exception;
 
     private final TaskStack stack;
     private final AsyncCall<T> call;
+    /** Whether observers are notified, see <code>ABSRuntime.disableObservers</code> */
+    private final boolean observed;
 
     /**
      * Real time attributes
@@ -44,6 +46,7 @@ public class Task<T extends ABSRef> {
         future = new ABSTaskFut(this);
         ABSRuntime runtime = ((ABSObject)call.getTarget()).__ABS_getRuntime();
         id = runtime.freshTaskID();
+        observed = runtime.observersEnabled();
         if (runtime.debuggingEnabled()) {
             stack = new TaskStack(this);
         } else {
@@ -143,6 +146,8 @@ public class Task<T extends ABSRef> {
 
     // only for observing
     void calledGetOnFut(ABSFut<?> someFut) {
+        if (!observed)
+            return;
         View v = view;
         if (v != null)
             v.calledGetOnFut(someFut);
@@ -150,6 +155,8 @@ public class Task<T extends ABSRef> {
 
     // only for observing
     void futureReady(ABSFut<?> someFut) {
+        if (!observed)
+            return;
         View v = view;
         if (v != null)
             v.futureReady(someFut);
@@ -179,13 +186,13 @@ public class Task<T extends ABSRef> {
     }
 
     public void run() {
-        synchronized (this) {
-            if (view != null)
-                view.taskStarted();
-            executingThread = Thread.currentThread();
+        executingThread = Thread.currentThread();
+        if (observed) {
+            View v = view;
+            if (v != null)
+                v.taskStarted();
         }
 
-
         try {
             ABSValue res = (ABSValue) call.execute();
             future.resolve(res);
@@ -204,11 +211,11 @@ public class Task<T extends ABSRef> {
             getCOG().getRuntime().handleABSException(this, absException );
         }
 
-        synchronized (this) {
-            if (view != null)
-                view.taskFinished();
+        if (observed) {
+            View v = view;
+            if (v != null)
+                v.taskFinished();
         }
-
     }
 
     public String toString() {
@@ -230,7 +237,7 @@ public class Task<T extends ABSRef> {
         }
     }
 
-    public synchronized Thread getExecutingThread() {
+    public Thread getExecutingThread() {
         return executingThread;
     }
 
@@ -240,9 +247,10 @@ public class Task<T extends ABSRef> {
     }
 
 
-    public synchronized void nextStep(String fileName, int line) {
-        if (view != null)
-            view.nextStep(fileName, line);
+    public void nextStep(String fileName, int line) {
+        View v = view;
+        if (v != null)
+            v.nextStep(fileName, line);
     }
 
     private class View implements TaskView {
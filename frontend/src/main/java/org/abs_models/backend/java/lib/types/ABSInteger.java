@@ -1,5 +1,5 @@
-/** 
- * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved. 
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
  * This file is licensed under the terms of the Modified BSD License.
  */
 package org.abs_models.backend.java.lib.types;
@@ -12,48 +12,97 @@ import org.apfloat.Aprational;
 
 /**
  * Implementation of an ABS integer
- * 
+ *
+ * Integers that fit into a <code>long</code> are represented by that long,
+ * see {@link ABSRational}.  Small values are cached.
+ *
  * @author Jan Schäfer
- * 
+ *
  */
 public class ABSInteger extends ABSRational {
-    public static final ABSInteger ZERO = new ABSInteger(Apint.ZERO);
-    public static final ABSInteger ONE = new ABSInteger(Apint.ONE);
+    private static final int CACHE_LOW = -128;
+    private static final int CACHE_HIGH = 1024;
+    private static final ABSInteger[] cache = new ABSInteger[CACHE_HIGH - CACHE_LOW + 1];
+    static {
+        for (int i = 0; i < cache.length; i++) {
+            cache[i] = new ABSInteger(i + CACHE_LOW);
+        }
+    }
+
+    public static final ABSInteger ZERO = fromLong(0);
+    public static final ABSInteger ONE = fromLong(1);
 
     private ABSInteger(Aprational i) {
-        super();
-        this.value = i;
+        super(i);
+    }
+
+    private ABSInteger(long l) {
+        super(l, 1);
     }
 
     public ABSInteger add(ABSInteger i) {
-        return fromBigInt(this.value.add(i.value));
+        if (isSmall() && i.isSmall()) {
+            try {
+                return fromLong(Math.addExact(num, i.num));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().add(i.toAprational()));
     }
 
     public ABSInteger subtract(ABSInteger i) {
-        return fromBigInt(this.value.subtract(i.value));
+        if (isSmall() && i.isSmall()) {
+            try {
+                return fromLong(Math.subtractExact(num, i.num));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().subtract(i.toAprational()));
     }
 
     public ABSInteger multiply(ABSInteger i) {
-        return fromBigInt(this.value.multiply(i.value));
+        if (isSmall() && i.isSmall()) {
+            try {
+                return fromLong(Math.multiplyExact(num, i.num));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().multiply(i.toAprational()));
     }
 
     public ABSRational divide(ABSInteger i) {
-        return ABSRational.fromBigInt(this.value).divide(i);
+        return super.divide(i);
     }
 
     public ABSInteger mod(ABSInteger i) {
-        return fromBigInt(this.value.mod(i.value));
+        // mod by zero is left to apfloat
+        if (isSmall() && i.isSmall() && i.num != 0) {
+            return fromLong(num % i.num);
+        }
+        return fromBigInt(toAprational().mod(i.toAprational()));
     }
 
     public ABSInteger negate() {
-        return fromBigInt(this.value.negate());
+        if (isSmall() && num != Long.MIN_VALUE) {
+            return fromLong(-num);
+        }
+        return fromBigInt(toAprational().negate());
     }
 
     public static ABSInteger fromBigInt(BigInteger i) {
+        if (i.bitLength() < Long.SIZE) return fromLong(i.longValue());
         return new ABSInteger(new Aprational(i));
     }
 
+    /**
+     * @return the integer with value <code>i</code>, represented by a long
+     * if it fits
+     */
     public static ABSInteger fromBigInt(Aprational i) {
+        if (fitsLong(i)) return fromLong(i.longValue());
         return new ABSInteger(i);
     }
 
@@ -62,32 +111,16 @@ public class ABSInteger extends ABSRational {
     }
 
     public static ABSInteger fromInt(int i) {
-        switch (i) {
-        case 0:
-            return ZERO;
-        case 1:
-            return ONE;
-        default:
-            return fromBigInt(new Apint(i));
-        }
+        return fromLong(i);
     }
 
     public static ABSInteger fromLong(long l) {
-        if (l == 0) return ZERO;
-        if (l == 1) return ONE;
-        return fromBigInt(new Apint(l));
-    }
-
-    public int toInt() {
-        return value.intValue();
-    }
-
-    @Override
-    public String toString() {
-        return value.toString();
+        if (l >= CACHE_LOW && l <= CACHE_HIGH) return cache[(int) l - CACHE_LOW];
+        return new ABSInteger(l);
     }
 
     public BigInteger getBigInteger() {
+        if (isSmall()) return BigInteger.valueOf(num);
         return value.truncate().toBigInteger();
     }
 
@@ -107,10 +140,10 @@ public class ABSInteger extends ABSRational {
     }
 
     public static ABSInteger floor(ABSFloat f) {
-        return new ABSInteger(new Apfloat(f.getDouble()).floor());
+        return fromBigInt(new Apfloat(f.getDouble()).floor());
     }
 
     public static ABSInteger ceil(ABSFloat f) {
-        return new ABSInteger(new Apfloat(f.getDouble()).ceil());
+        return fromBigInt(new Apfloat(f.getDouble()).ceil());
     }
 }
@@ -1,5 +1,5 @@
-/** 
- * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved. 
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
  * This file is licensed under the terms of the Modified BSD License.
  */
 package org.abs_models.backend.java.lib.types;
@@ -13,49 +13,203 @@ import org.apfloat.Aprational;
 
 /**
  * Implementation of an ABS rational
- * 
+ *
+ * Rationals whose numerator and denominator fit into a <code>long</code>
+ * are represented by these two longs, with the denominator being positive
+ * and the fraction being reduced.  Only when an operation overflows, the
+ * result is represented by an {@link Aprational}.
+ *
  * @author Rudi Schlatte
- * 
+ *
  * Based on ABSInteger by Jan Schäfer
  */
 public class ABSRational extends ABSBuiltInDataType {
 
-    public static final ABSRational ZERO = new ABSRational(Aprational.ZERO);
-    public static final ABSRational ONE = new ABSRational(Aprational.ONE);
+    public static final ABSRational ZERO = new ABSRational(0, 1);
+    public static final ABSRational ONE = new ABSRational(1, 1);
 
-    protected Aprational value;
+    /**
+     * The value if it does not fit into <code>num</code> and
+     * <code>den</code>, otherwise null
+     */
+    protected final Aprational value;
+    protected final long num;
+    protected final long den;
 
-    private ABSRational(Aprational r) {
+    protected ABSRational(Aprational r) {
         super("");
         this.value = r;
+        this.num = 0;
+        this.den = 1;
     }
 
-    protected ABSRational() {
+    /**
+     * @param num the numerator
+     * @param den the denominator, must be positive and coprime to num
+     */
+    protected ABSRational(long num, long den) {
         super("");
+        this.value = null;
+        this.num = num;
+        this.den = den;
+    }
+
+    /**
+     * @return whether this value is represented by <code>num</code> and
+     * <code>den</code>
+     */
+    protected final boolean isSmall() {
+        return value == null;
+    }
+
+    protected Aprational toAprational() {
+        if (value != null) return value;
+        if (den == 1) return new Apint(num);
+        return new Aprational(new Apint(num), new Apint(den));
+    }
+
+    /**
+     * Creates the rational num/den, normalizing sign and common factors.
+     *
+     * @throws ArithmeticException if the normalized value does not fit
+     */
+    private static ABSRational small(long num, long den) {
+        if (den < 0) {
+            num = Math.negateExact(num);
+            den = Math.negateExact(den);
+        }
+        long g = gcd(den, num);
+        if (g != 1) {
+            num /= g;
+            den /= g;
+        }
+        if (den == 1) {
+            if (num == 0) return ZERO;
+            if (num == 1) return ONE;
+        }
+        return new ABSRational(num, den);
+    }
+
+    private static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return Math.abs(a);
     }
 
     public ABSRational add(ABSRational i) {
-        return fromBigInt(this.value.add(i.value));
+        if (isSmall() && i.isSmall()) {
+            try {
+                if (den == 1 && i.den == 1)
+                    return fromLong(Math.addExact(num, i.num));
+                return small(Math.addExact(Math.multiplyExact(num, i.den), Math.multiplyExact(i.num, den)),
+                             Math.multiplyExact(den, i.den));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().add(i.toAprational()));
     }
 
     public ABSRational subtract(ABSRational i) {
-        return fromBigInt(this.value.subtract(i.value));
+        if (isSmall() && i.isSmall()) {
+            try {
+                if (den == 1 && i.den == 1)
+                    return fromLong(Math.subtractExact(num, i.num));
+                return small(Math.subtractExact(Math.multiplyExact(num, i.den), Math.multiplyExact(i.num, den)),
+                             Math.multiplyExact(den, i.den));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().subtract(i.toAprational()));
     }
 
     public ABSRational multiply(ABSRational i) {
-        return fromBigInt(this.value.multiply(i.value));
+        if (isSmall() && i.isSmall()) {
+            try {
+                if (den == 1 && i.den == 1)
+                    return fromLong(Math.multiplyExact(num, i.num));
+                return small(Math.multiplyExact(num, i.num), Math.multiplyExact(den, i.den));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().multiply(i.toAprational()));
     }
 
     public ABSRational divide(ABSRational i) {
-        return fromBigInt(this.value.divide(i.value));
+        // division by zero is left to apfloat
+        if (isSmall() && i.isSmall() && i.num != 0) {
+            try {
+                return small(Math.multiplyExact(num, i.den), Math.multiplyExact(den, i.num));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().divide(i.toAprational()));
     }
 
     public ABSRational mod(ABSRational i) {
-        return fromBigInt(this.value.mod(i.value));
+        // like apfloat, the result has the sign of this; mod by zero is
+        // left to apfloat
+        if (isSmall() && i.isSmall() && i.num != 0) {
+            try {
+                if (den == 1 && i.den == 1)
+                    return fromLong(num % i.num);
+                return small(Math.multiplyExact(num, i.den) % Math.multiplyExact(i.num, den),
+                             Math.multiplyExact(den, i.den));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return fromBigInt(toAprational().mod(i.toAprational()));
     }
 
     public ABSRational negate() {
-        return fromBigInt(this.value.negate());
+        if (isSmall() && num != Long.MIN_VALUE) {
+            return den == 1 ? fromLong(-num) : new ABSRational(-num, den);
+        }
+        return fromBigInt(toAprational().negate());
+    }
+
+    /**
+     * Compares the values of this and the given rational
+     */
+    protected final int compareTo(ABSRational o) {
+        if (isSmall() && o.isSmall()) {
+            if (den == o.den)
+                return Long.compare(num, o.num);
+            try {
+                return Long.compare(Math.multiplyExact(num, o.den), Math.multiplyExact(o.num, den));
+            } catch (ArithmeticException e) {
+                // overflow, fall through
+            }
+        }
+        return toAprational().compareTo(o.toAprational());
+    }
+
+    /**
+     * @return a hash code that is the same for all rationals that are
+     * equal according to {@link #eq}
+     */
+    public int valueHashCode() {
+        if (isSmall())
+            return Long.hashCode(num) * 31 + Long.hashCode(den);
+        Aprational n = value.numerator();
+        Aprational d = value.denominator();
+        if (fitsLong(n) && fitsLong(d))
+            return Long.hashCode(n.longValue()) * 31 + Long.hashCode(d.longValue());
+        return value.hashCode();
+    }
+
+    private static final Apint LONG_MIN = new Apint(Long.MIN_VALUE);
+    private static final Apint LONG_MAX = new Apint(Long.MAX_VALUE);
+
+    protected static boolean fitsLong(Aprational i) {
+        return i.compareTo(LONG_MIN) >= 0 && i.compareTo(LONG_MAX) <= 0;
     }
 
     @Override
@@ -63,7 +217,7 @@ public class ABSRational extends ABSBuiltInDataType {
         if (o == null) return ABSBool.FALSE;
         if (!(o instanceof ABSRational)) return ABSBool.FALSE;
         ABSRational oi = (ABSRational) o;
-        return ABSBool.fromBoolean(oi.value.compareTo(this.value) == 0);
+        return ABSBool.fromBoolean(this.compareTo(oi) == 0);
     }
 
     public ABSBool gt(ABSValue o) {
@@ -71,51 +225,63 @@ public class ABSRational extends ABSBuiltInDataType {
             return ABSBool.FALSE;
         if (!(o instanceof ABSRational)) return ABSBool.FALSE;
         ABSRational oi = (ABSRational) o;
-        return ABSBool.fromBoolean(this.value.compareTo(oi.value) > 0);
+        return ABSBool.fromBoolean(this.compareTo(oi) > 0);
     }
 
     public ABSBool lt(ABSValue o) {
         if (o == null) return ABSBool.FALSE;
         if (!(o instanceof ABSRational)) return ABSBool.FALSE;
         ABSRational oi = (ABSRational) o;
-        return ABSBool.fromBoolean(this.value.compareTo(oi.value) < 0);
+        return ABSBool.fromBoolean(this.compareTo(oi) < 0);
     }
 
     public ABSBool gtEq(ABSValue o) {
-        return this.eq(o).or(this.gt(o));
+        if (o == null) return ABSBool.FALSE;
+        if (!(o instanceof ABSRational)) return ABSBool.FALSE;
+        ABSRational oi = (ABSRational) o;
+        return ABSBool.fromBoolean(this.compareTo(oi) >= 0);
     }
 
     public ABSBool ltEq(ABSValue o) {
-        return this.eq(o).or(this.lt(o));
+        if (o == null) return ABSBool.FALSE;
+        if (!(o instanceof ABSRational)) return ABSBool.FALSE;
+        ABSRational oi = (ABSRational) o;
+        return ABSBool.fromBoolean(this.compareTo(oi) <= 0);
     }
 
     public static ABSRational fromBigInt(BigInteger i) {
+        if (i.bitLength() < Long.SIZE) return fromLong(i.longValue());
         return new ABSRational(new Apint(i));
     }
 
+    /**
+     * @return the rational with value <code>i</code>, represented by longs
+     * if its numerator and denominator fit
+     */
     public static ABSRational fromBigInt(Aprational i) {
+        // an Aprational is reduced, with a positive denominator
+        Apint n = i.numerator();
+        Apint d = i.denominator();
+        if (fitsLong(n) && fitsLong(d)) {
+            long ln = n.longValue();
+            long ld = d.longValue();
+            return ld == 1 ? fromLong(ln) : new ABSRational(ln, ld);
+        }
         return new ABSRational(i);
     }
 
     public static ABSRational fromString(String value) {
-        return new ABSRational(new Aprational(value));
+        return fromBigInt(new Aprational(value));
     }
 
     public static ABSRational fromInt(int i) {
-        switch (i) {
-        case 0:
-            return ZERO;
-        case 1:
-            return ONE;
-        default:
-            return fromBigInt(new Apint(i));
-        }
+        return fromLong(i);
     }
 
     public static ABSRational fromLong(long l) {
         if (l == 0) return ZERO;
         if (l == 1) return ONE;
-        return fromBigInt(new Apint(l));
+        return new ABSRational(l, 1);
     }
 
     public static ABSRational fromDouble(double v) {
@@ -129,31 +295,41 @@ public class ABSRational extends ABSBuiltInDataType {
         long length_of_fraction = doubles.length() - (doubles.indexOf('.') + 1);
         Apint den = ApintMath.pow(new Apint(10), length_of_fraction);
         Apint num = new Apfloat(v).multiply(den).truncate();
-        return new ABSRational(new Aprational(num, den));
+        return fromBigInt(new Aprational(num, den));
     }
 
     public int toInt() {
-        return value.intValue();
+        if (isSmall() && den == 1 && num >= Integer.MIN_VALUE && num <= Integer.MAX_VALUE)
+            return (int) num;
+        return toAprational().intValue();
     }
 
     @Override
     public String toString() {
+        if (isSmall())
+            return den == 1 ? Long.toString(num) : num + "/" + den;
         return value.toString();
     }
 
     public ABSInteger truncate() {
+        if (isSmall()) return ABSInteger.fromLong(num / den);
         return ABSInteger.fromBigInt(value.truncate());
     }
 
     public ABSInteger numerator() {
+        if (isSmall()) return ABSInteger.fromLong(num);
         return ABSInteger.fromBigInt(value.numerator());
     }
 
     public ABSInteger denominator() {
+        if (isSmall()) return ABSInteger.fromLong(den);
         return ABSInteger.fromBigInt(value.denominator());
     }
 
     public ABSFloat toFloat() {
-        return ABSFloat.fromDouble(value.doubleValue());
+        // integers up to 2^53 are exact doubles
+        if (isSmall() && den == 1 && Math.abs(num) <= (1L << 53))
+            return ABSFloat.fromDouble(num);
+        return ABSFloat.fromDouble(toAprational().doubleValue());
     }
 }
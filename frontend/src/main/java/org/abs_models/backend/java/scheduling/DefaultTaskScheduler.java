@@ -4,8 +4,11 @@
  */
 package org.abs_models.backend.java.scheduling;
 
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 import org.abs_models.backend.java.lib.runtime.ABSGuard;
@@ -14,12 +17,15 @@ import org.abs_models.backend.java.lib.runtime.ABSThread;
 import org.abs_models.backend.java.lib.runtime.ABSThreadManager;
 import org.abs_models.backend.java.lib.runtime.COG;
 import org.abs_models.backend.java.lib.runtime.Logging;
+import org.abs_models.backend.java.lib.runtime.SimulatedClock;
+import org.abs_models.backend.java.lib.runtime.SystemTerminatedException;
 import org.abs_models.backend.java.lib.runtime.Task;
 import org.abs_models.backend.java.observing.TaskSchedulerView;
 import org.abs_models.backend.java.observing.TaskView;
 
 public class DefaultTaskScheduler implements TaskScheduler {
     private static final Logger log = Logging.getLogger(ABSRuntime.class.getName());
+    private static final boolean LOG_FINEST = log.isLoggable(Level.FINEST);
 
     private final List<Task<?>> newTasks = new LinkedList<>();
     private final List<SchedulerThread> suspendedTasks = new LinkedList<>();
@@ -27,10 +33,42 @@ public class DefaultTaskScheduler implements TaskScheduler {
     private volatile SchedulerThread thread;
     private final COG cog;
     private final ABSThreadManager threadManager;
+    private final SimulatedClock clock;
+
+    /**
+     * The number of suspended tasks that were woken up by an event but did
+     * not check their guard yet; the COG counts as active meanwhile
+     */
+    private int pendingChecks;
+
+    /**
+     * Whether the clock counts this COG as active, i.e., whether
+     * <code>thread</code> was not null or checks were pending when last
+     * reported
+     */
+    private boolean countedActive;
 
     public DefaultTaskScheduler(COG cog, ABSThreadManager m) {
         this.cog = cog;
         this.threadManager = m;
+        this.clock = cog.getRuntime().getClock();
+    }
+
+    /**
+     * Reports to the clock whether the COG is active.  Called while
+     * holding the monitor of this scheduler, at the end of each step that
+     * can change <code>thread</code>, so that a task handing over the COG
+     * does not make it idle in between.
+     */
+    private void reportActivity() {
+        boolean active = thread != null || pendingChecks > 0;
+        if (active != countedActive) {
+            countedActive = active;
+            if (active)
+                clock.cogActivated();
+            else
+                clock.cogDeactivated();
+        }
     }
 
     @Override
@@ -38,19 +76,50 @@ public class DefaultTaskScheduler implements TaskScheduler {
         newTasks.add(task);
         if (view != null)
             view.taskAdded(task.getView());
-        log.finest(task + " ADDED TO QUEUE");
+        if (LOG_FINEST) log.finest(task + " ADDED TO QUEUE");
 
         if (thread == null) {
             thread = new SchedulerThread();
             thread.start();
-        } else {
-            notifyAll();
+            reportActivity();
+        }
+    }
+
+    /**
+     * Hands the COG to the first suspended task whose guard is true, by
+     * waking up only that task's thread.  Only tasks whose guard is true
+     * are woken, so a scheduling step does not wake every suspended task.
+     * Must be called by a thread of this COG, so that the guards are
+     * evaluated in its context, while holding the monitor of this
+     * scheduler, after setting <code>thread</code> to null.
+     */
+    private void resumeSuspendedTask() {
+        Iterator<SchedulerThread> it = suspendedTasks.iterator();
+        while (it.hasNext()) {
+            SchedulerThread st = it.next();
+            if (st.guard.isTrue()) {
+                it.remove();
+                thread = st;
+                activeTask = st.runningTask;
+                st.resume();
+                return;
+            }
         }
     }
 
-    class SchedulerThread extends ABSThread {
+    class SchedulerThread extends ABSThread implements GuardWaiter {
         private Task<?> runningTask;
 
+        /**
+         * The guard this thread is suspended on, and the Java thread to
+         * unpark when the COG is handed to it
+         */
+        private ABSGuard guard;
+        private Thread waiter;
+        private volatile boolean resumed;
+        /** Whether this task was woken up to check its guard, see checkGuard */
+        private boolean recheck;
+
         public SchedulerThread() {
             super(threadManager);
             setName("ABS Scheduler Thread of " + cog.toString());
@@ -66,25 +135,25 @@ public class DefaultTaskScheduler implements TaskScheduler {
                     activeTask = null;
                     if (newTasks.isEmpty()) {
                         thread = null;
-                        DefaultTaskScheduler.this.notifyAll();
+                        resumeSuspendedTask();
+                        reportActivity();
                         break loop;
                     }
 
                     activeTask = newTasks.remove(0);
                     runningTask = activeTask;
-                    setName("ABS Scheduler Thread executing " + activeTask.toString());
+                    // naming the thread after each task is costly, so it is
+                    // only done when tracing
+                    if (LOG_FINEST) setName("ABS Scheduler Thread executing " + activeTask.toString());
                 }
 
-                View v = view;
-
-                log.finest("Executing " + runningTask);
+                if (LOG_FINEST) log.finest("Executing " + runningTask);
                 try {
                     runningTask.run();
-                    v = view;
-                    log.finest("Task " + runningTask + " FINISHED");
+                    if (LOG_FINEST) log.finest("Task " + runningTask + " FINISHED");
 
                 } catch (Exception e) {
-                    log.finest("EXCEPTION in Task " + runningTask);
+                    if (LOG_FINEST) log.finest("EXCEPTION in Task " + runningTask);
                     e.printStackTrace();
                 }
             }
@@ -93,22 +162,53 @@ public class DefaultTaskScheduler implements TaskScheduler {
             }
         }
 
-        // assume called in synchronized block
+        /**
+         * Called when a future or the clock this thread's task waits for
+         * changed, by the thread of another COG or the clock.  The guard
+         * is not evaluated here but by the suspended task itself, in the
+         * context of its COG.  Until it has done so, the COG counts as
+         * active, so that the clock does not consider it idle in between.
+         */
+        @Override
+        public void checkGuard() {
+            synchronized (DefaultTaskScheduler.this) {
+                if (!resumed && !recheck && waiter != null) {
+                    recheck = true;
+                    pendingChecks++;
+                    reportActivity();
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+
+        // called with the monitor of the scheduler held
+        void resume() {
+            resumed = true;
+            LockSupport.unpark(waiter);
+        }
+
         public void suspendTask(ABSGuard g) {
-            log.finest(runningTask + " on " + g + " SUSPENDING");
+            if (LOG_FINEST) log.finest(runningTask + " on " + g + " SUSPENDING");
+            // register before giving up the COG, so that a resolution
+            // in between is seen when evaluating the guards below
+            g.addWaitingThread(this);
             synchronized (DefaultTaskScheduler.this) {
                 activeTask = null;
-                thread = null;
+                guard = g;
+                waiter = Thread.currentThread();
+                resumed = false;
+                suspendedTasks.add(this);
                 if (!newTasks.isEmpty()) {
-                    log.finest(runningTask + " on " + g + " Starting new Scheduler Thread");
+                    if (LOG_FINEST) log.finest(runningTask + " on " + g + " Starting new Scheduler Thread");
 
                     thread = new SchedulerThread();
                     thread.start();
                 } else {
-                    DefaultTaskScheduler.this.notifyAll();
+                    thread = null;
+                    resumeSuspendedTask();
                 }
-                log.finest(runningTask + " on " + g + " SUSPENDING");
-                suspendedTasks.add(this);
+                reportActivity();
+                if (LOG_FINEST) log.finest(runningTask + " on " + g + " SUSPENDING");
             }
 
             View v = view;
@@ -116,38 +216,48 @@ public class DefaultTaskScheduler implements TaskScheduler {
                 v.taskSuspended(runningTask.getView(), g);
             }
 
-            log.finest(runningTask + " AWAITING " + g);
+            if (LOG_FINEST) log.finest(runningTask + " AWAITING " + g);
             boolean couldBecomeFalse = g.await();
             if (Thread.interrupted()) {
                 return;
             }
 
             if (!couldBecomeFalse) {
-                log.finest(runningTask + " " + g + " READY");
+                if (LOG_FINEST) log.finest(runningTask + " " + g + " READY");
                 if (v != null)
                     v.taskReady(runningTask.getView());
             }
 
-            synchronized (DefaultTaskScheduler.this) {
-                while (!(g.isTrue() && thread == null)) {
-                    try {
-                        log.finest(runningTask + " " + g + " WAITING FOR WAKE UP");
-                        DefaultTaskScheduler.this.wait();
-                        log.finest(runningTask + " WOKE UP...");
-                    } catch (InterruptedException e) {
-                        e.printStackTrace();
-                        break;
+            while (true) {
+                synchronized (DefaultTaskScheduler.this) {
+                    if (recheck) {
+                        recheck = false;
+                        pendingChecks--;
                     }
+                    // a future or the clock we waited for changed while
+                    // the COG is idle
+                    if (!resumed && thread == null && g.isTrue()) {
+                        suspendedTasks.remove(this);
+                        thread = this;
+                        activeTask = runningTask;
+                        resumed = true;
+                    }
+                    reportActivity();
+                    if (resumed)
+                        break;
+                }
+                if (LOG_FINEST) log.finest(runningTask + " " + g + " WAITING FOR WAKE UP");
+                LockSupport.park(this);
+                if (Thread.interrupted() && isShutdown()) {
+                    throw new SystemTerminatedException();
                 }
-                thread = this;
-                activeTask = runningTask;
-                suspendedTasks.remove(this);
             }
+            if (LOG_FINEST) log.finest(runningTask + " WOKE UP...");
 
             if (v != null)
                 v.taskResumed(runningTask.getView(), g);
 
-            log.finest(runningTask + " " + g + " ACTIVE");
+            if (LOG_FINEST) log.finest(runningTask + " " + g + " ACTIVE");
         }
     }
 
@@ -15,6 +15,7 @@ import org.abs_models.backend.java.lib.runtime.ABSDeadlockException;
 import org.abs_models.backend.java.lib.runtime.ABSException;
 import org.abs_models.backend.java.lib.runtime.ABSFut;
 import org.abs_models.backend.java.lib.runtime.ABSRuntime;
+import org.abs_models.backend.java.lib.runtime.ABSThread;
 import org.abs_models.backend.java.lib.runtime.Logging;
 import org.abs_models.backend.java.lib.runtime.Task;
 
@@ -64,7 +65,7 @@ public class GlobalScheduler {
                         }
                     }
                     // Need to filter out currentTask (that is finishing)
-                    Thread tt = Thread.currentThread();
+                    ABSThread tt = ABSRuntime.getCurrentThread();
                     if (tt instanceof SimpleTaskScheduler.SimpleSchedulerThread) {
                         Task<?> currT = ((SimpleTaskScheduler.SimpleSchedulerThread)tt).getExecutingTask().task;
                         suspendedTasks.remove(currT);
@@ -0,0 +1,379 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.scheduling;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.abs_models.backend.java.lib.runtime.ABSGuard;
+import org.abs_models.backend.java.lib.runtime.ABSRuntime;
+import org.abs_models.backend.java.lib.runtime.ABSThread;
+import org.abs_models.backend.java.lib.runtime.ABSThreadManager;
+import org.abs_models.backend.java.lib.runtime.COG;
+import org.abs_models.backend.java.lib.runtime.Logging;
+import org.abs_models.backend.java.lib.runtime.SimulatedClock;
+import org.abs_models.backend.java.lib.runtime.SystemTerminatedException;
+import org.abs_models.backend.java.lib.runtime.Task;
+import org.abs_models.backend.java.observing.TaskSchedulerView;
+import org.abs_models.backend.java.observing.TaskView;
+
+/**
+ * A task scheduler that multiplexes all COGs over a worker pool with one
+ * worker per core, instead of starting a thread per task.
+ *
+ * Each COG has its own run queue of new tasks.  A COG only takes a worker
+ * when it becomes runnable, by submitting a single job to the shared pool,
+ * whose submission queue thus acts as the global queue of ready COGs.  That
+ * job runs the tasks of the COG one after the other until the COG has
+ * nothing left to do.
+ *
+ * The generated code has no continuations, so a task suspending in the
+ * middle of a method keeps its stack, and the COG is handed to the next
+ * runnable task.  On Java 21 or later, each job runs on a virtual thread,
+ * i.e., the pool is the scheduler of virtual threads, and a suspended task
+ * parks its virtual thread without holding on to a worker.  On older Java
+ * versions, the pool is a fork-join pool, and the worker of a suspended
+ * task blocks via {@link ForkJoinPool#managedBlock}, so that the pool
+ * starts a compensating worker.  That pool has at most
+ * <code>MAX_POOL_THREADS</code> threads (256 by default, set with the
+ * system property <code>abs.maxpoolthreads</code>); a task suspending in
+ * the middle of a method while all of them are in use fails with an
+ * error.  Tasks that run to completion without suspending never need more
+ * than one pool worker.
+ *
+ * @see DefaultTaskScheduler
+ */
+public class PooledTaskScheduler implements TaskScheduler {
+    private static final Logger log = Logging.getLogger(ABSRuntime.class.getName());
+    private static final boolean LOG_FINEST = log.isLoggable(Level.FINEST);
+
+    /**
+     * The maximum number of threads of the fork-join pool, including those
+     * compensating for suspended tasks
+     */
+    static final int MAX_POOL_THREADS = Integer.getInteger("abs.maxpoolthreads", 256);
+
+    /**
+     * Tasks that have not been started yet, in order of arrival
+     */
+    private final Deque<Task<?>> runQueue = new ArrayDeque<>();
+
+    /**
+     * Tasks waiting on a guard, in order of suspension
+     */
+    private final List<SuspendedTask> suspendedTasks = new LinkedList<>();
+
+    private Task<?> activeTask;
+
+    /**
+     * Whether the COG is owned by a task, or a worker has been submitted to
+     * the pool to run the next task
+     */
+    private boolean busy;
+
+    /**
+     * Whether the clock counts this COG as active, i.e., whether
+     * <code>busy</code> was true when last reported
+     */
+    private boolean countedActive;
+
+    private final COG cog;
+    private final ABSThreadManager threadManager;
+    private final Executor pool;
+    private final SimulatedClock clock;
+
+    public PooledTaskScheduler(COG cog, ABSThreadManager m, Executor pool) {
+        this.cog = cog;
+        this.threadManager = m;
+        this.pool = pool;
+        this.clock = cog.getRuntime().getClock();
+    }
+
+    /**
+     * Reports to the clock whether the COG is busy.  Called while holding
+     * the monitor of this scheduler, at the end of each step that can
+     * change <code>busy</code>.
+     */
+    private void reportActivity() {
+        if (busy != countedActive) {
+            countedActive = busy;
+            if (busy)
+                clock.cogActivated();
+            else
+                clock.cogDeactivated();
+        }
+    }
+
+    @Override
+    public synchronized void addTask(Task<?> task) {
+        runQueue.add(task);
+        if (view != null)
+            view.taskAdded(task.getView());
+        if (LOG_FINEST) log.finest(task + " ADDED TO QUEUE");
+
+        if (!busy) {
+            busy = true;
+            new Worker().start();
+            reportActivity();
+        }
+    }
+
+    /**
+     * Hands the COG to the first suspended task with a true guard, or marks
+     * the COG as idle if there is none.  Must be called while holding the
+     * monitor of this scheduler, with no active task.
+     */
+    private void resumeSuspendedTask() {
+        Iterator<SuspendedTask> it = suspendedTasks.iterator();
+        while (it.hasNext()) {
+            SuspendedTask st = it.next();
+            if (st.guard.isTrue()) {
+                it.remove();
+                activeTask = st.task;
+                busy = true;
+                st.resume();
+                return;
+            }
+        }
+        busy = false;
+    }
+
+    /**
+     * Called when a future that a suspended task waits for got resolved, or
+     * the clock advanced
+     */
+    private synchronized void guardChanged() {
+        if (!busy) {
+            resumeSuspendedTask();
+            reportActivity();
+        }
+    }
+
+    private class SuspendedTask implements ForkJoinPool.ManagedBlocker, GuardWaiter {
+        final Task<?> task;
+        final ABSGuard guard;
+        /** The suspending thread, which parks without pinning a virtual thread */
+        private final Thread waiter = Thread.currentThread();
+        private volatile boolean resumed;
+
+        SuspendedTask(Task<?> task, ABSGuard guard) {
+            this.task = task;
+            this.guard = guard;
+        }
+
+        void resume() {
+            resumed = true;
+            LockSupport.unpark(waiter);
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return resumed;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            while (!resumed) {
+                LockSupport.park(this);
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+            }
+            return true;
+        }
+
+        @Override
+        public void checkGuard() {
+            guardChanged();
+        }
+    }
+
+    class Worker extends ABSThread {
+        private Task<?> runningTask;
+
+        public Worker() {
+            super(threadManager, pool);
+            setName("ABS Worker of " + cog.toString());
+            setCOG(cog);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!shutdown) {
+                    synchronized (PooledTaskScheduler.this) {
+                        activeTask = null;
+                        runningTask = runQueue.poll();
+                        if (runningTask == null) {
+                            resumeSuspendedTask();
+                            reportActivity();
+                            return;
+                        }
+                        activeTask = runningTask;
+                    }
+
+                    if (LOG_FINEST) log.finest("Executing " + runningTask);
+                    try {
+                        runningTask.run();
+                        if (LOG_FINEST) log.finest("Task " + runningTask + " FINISHED");
+                    } catch (Exception e) {
+                        if (LOG_FINEST) log.finest("EXCEPTION in Task " + runningTask);
+                        e.printStackTrace();
+                    }
+                }
+            } finally {
+                finished();
+            }
+        }
+
+        void suspendTask(ABSGuard g) {
+            if (LOG_FINEST) log.finest(runningTask + " on " + g + " SUSPENDING");
+            SuspendedTask st = new SuspendedTask(runningTask, g);
+            // register before giving up the COG, so that a resolution
+            // in between is seen when evaluating the guards below
+            g.addWaitingThread(st);
+
+            View v = view;
+            synchronized (PooledTaskScheduler.this) {
+                suspendedTasks.add(st);
+                activeTask = null;
+                if (!runQueue.isEmpty()) {
+                    new Worker().start();
+                } else {
+                    resumeSuspendedTask();
+                }
+                reportActivity();
+            }
+
+            if (v != null)
+                v.taskSuspended(runningTask.getView(), g);
+
+            try {
+                ForkJoinPool.managedBlock(st);
+            } catch (InterruptedException e) {
+                wasInterrupted(e);
+                throw new SystemTerminatedException();
+            } catch (RejectedExecutionException e) {
+                throw new IllegalStateException("More than " + MAX_POOL_THREADS
+                    + " tasks suspended in the middle of a method; use Java 21 or later,"
+                    + " or set the system property abs.maxpoolthreads", e);
+            }
+
+            if (v != null) {
+                if (g.staysTrue())
+                    v.taskReady(runningTask.getView());
+                v.taskResumed(runningTask.getView(), g);
+            }
+
+            if (LOG_FINEST) log.finest(runningTask + " " + g + " ACTIVE");
+        }
+    }
+
+    @Override
+    public void await(ABSGuard g) {
+        ABSThread t = ABSRuntime.getCurrentThread();
+        if (!(t instanceof Worker) || ((Worker) t).getCOG() != cog)
+            throw new IllegalStateException("Awaiting outside of a task of " + cog + ": " + t);
+        ((Worker) t).suspendTask(g);
+    }
+
+    @Override
+    public synchronized Task<?> getActiveTask() {
+        return activeTask;
+    }
+
+    private volatile View view;
+
+    @Override
+    public synchronized TaskSchedulerView getView() {
+        if (view == null) {
+            view = new View();
+        }
+        return view;
+    }
+
+    private class View extends AbstractTaskSchedulerView {
+        @Override
+        public List<TaskView> getReadyTasks() {
+            synchronized (PooledTaskScheduler.this) {
+                List<TaskView> result = new ArrayList<>();
+                for (Task<?> t : runQueue) {
+                    result.add(t.getView());
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public List<TaskView> getSuspendedTasks() {
+            synchronized (PooledTaskScheduler.this) {
+                List<TaskView> result = new ArrayList<>();
+                for (SuspendedTask st : suspendedTasks) {
+                    result.add(st.task.getView());
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public List<TaskView> getSchedulableTasks() {
+            synchronized (PooledTaskScheduler.this) {
+                List<TaskView> result = getReadyTasks();
+                for (SuspendedTask st : suspendedTasks) {
+                    if (st.guard.isTrue())
+                        result.add(st.task.getView());
+                }
+                return result;
+            }
+        }
+
+        @Override
+        public TaskView getActiveTask() {
+            Task<?> t = PooledTaskScheduler.this.getActiveTask();
+            return t == null ? null : t.getView();
+        }
+
+    }
+
+    /**
+     * Returns a factory whose schedulers share one worker pool, sized to the
+     * number of available processors: the scheduler of virtual threads if
+     * available, a fork-join pool otherwise.
+     */
+    public static TaskSchedulerFactory getFactory() {
+        return new TaskSchedulerFactory() {
+            private Executor pool;
+
+            @Override
+            public synchronized TaskScheduler createTaskScheduler(ABSRuntime runtime, COG cog, ABSThreadManager m, ScheduableTasksFilter filter) {
+                if (pool == null) {
+                    pool = ABSThreadManager.newVirtualThreadExecutor();
+                }
+                if (pool == null) {
+                    int n = Runtime.getRuntime().availableProcessors();
+                    pool = new ForkJoinPool(n, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, true,
+                        0, Math.max(n, MAX_POOL_THREADS), 1, null, 60, TimeUnit.SECONDS);
+                }
+                return new PooledTaskScheduler(cog, m, pool);
+            }
+        };
+    }
+
+    @Override
+    public COG getCOG() {
+        return cog;
+    }
+
+}
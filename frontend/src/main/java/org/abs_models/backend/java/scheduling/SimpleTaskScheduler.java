@@ -11,8 +11,6 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
-import org.abs_models.backend.java.lib.runtime.ABSAndGuard;
-import org.abs_models.backend.java.lib.runtime.ABSFutureGuard;
 import org.abs_models.backend.java.lib.runtime.ABSGuard;
 import org.abs_models.backend.java.lib.runtime.ABSInitObjectCall;
 import org.abs_models.backend.java.lib.runtime.ABSRuntime;
@@ -20,6 +18,7 @@ import org.abs_models.backend.java.lib.runtime.ABSThread;
 import org.abs_models.backend.java.lib.runtime.ABSThreadManager;
 import org.abs_models.backend.java.lib.runtime.COG;
 import org.abs_models.backend.java.lib.runtime.Logging;
+import org.abs_models.backend.java.lib.runtime.SimulatedClock;
 import org.abs_models.backend.java.lib.runtime.SystemTerminatedException;
 import org.abs_models.backend.java.lib.runtime.Task;
 import org.abs_models.backend.java.observing.TaskSchedulerView;
@@ -35,6 +34,9 @@ import org.abs_models.backend.java.observing.TaskView;
 public class SimpleTaskScheduler implements TaskScheduler {
     private final AtomicLong idCounter = new AtomicLong();
     static Logger logger = Logging.getLogger("scheduler");
+    private static final boolean LOG_FINEST = logger.isLoggable(Level.FINEST);
+    private static final boolean LOG_FINE = logger.isLoggable(Level.FINE);
+    private static final boolean LOG_INFO = logger.isLoggable(Level.INFO);
     private final ABSThreadManager threadManager;
     private final ScheduableTasksFilter scheduableTasksFilter;
 
@@ -111,8 +113,15 @@ public class SimpleTaskScheduler implements TaskScheduler {
      */
     protected TaskInfo activeTask;
 
+    /**
+     * Whether the clock counts this COG as active, i.e., whether
+     * <code>activeTask</code> was not null when last reported
+     */
+    private boolean countedActive;
+
     protected final COG cog;
     private final ABSRuntime runtime;
+    private final SimulatedClock clock;
 
     public SimpleTaskScheduler(COG cog, TaskSchedulingStrategy strat, ABSRuntime runtime, ABSThreadManager m, ScheduableTasksFilter filter) {
         this.threadManager = m;
@@ -130,34 +139,53 @@ public class SimpleTaskScheduler implements TaskScheduler {
         logger.config("TaskSchedulingStrategy: " + this.schedulingStrategy.getClass().getName());
         this.runtime = runtime;
         this.scheduableTasksFilter = filter;
+        this.clock = runtime.getClock();
+    }
+
+    /**
+     * Reports to the clock whether the COG has an active task.  A COG
+     * becomes active right away, but only becomes idle after the next step
+     * was done, which may activate it again.
+     */
+    private synchronized void reportActivity() {
+        boolean active = activeTask != null;
+        if (active != countedActive) {
+            countedActive = active;
+            if (active)
+                clock.cogActivated();
+            else
+                clock.cogDeactivated();
+        }
     }
 
     protected void taskDeadlocked() {
         logger.warning("Task "+activeTask+" deadlocked");
         runtime.doNextStep();
+        reportActivity();
 
     }
 
     protected void taskFinished() {
-        logger.finest("Task finished getting monitor...");
+        if (LOG_FINEST) logger.finest("Task finished getting monitor...");
         TaskInfo finishedTask = null;
         synchronized (this) {
-            logger.finest("got monitor");
+            if (LOG_FINEST) logger.finest("got monitor");
             finishedTask = activeTask;
             finishedTask.task.setFinished(true);
             activeTask = null;
             if (suspendedTasks.size() + readyTasks.size() > 0) {
-                logger.finest("calling schedule...");
+                if (LOG_FINEST) logger.finest("calling schedule...");
                 schedule();
-                logger.finest("schedule called");
+                if (LOG_FINEST) logger.finest("schedule called");
             }
         }
-        logger.finest("do next step");
+        if (LOG_FINEST) logger.finest("do next step");
         // we now have to wait for all tasks that waited for the future
         // of this task to give them the opportunity to add a schedule action
         // to the global scheduler, before we do this step
         runtime.doNextStep();
-        logger.finest("next step done");
+        if (LOG_FINEST) logger.finest("next step done");
+        reportActivity();
     }
 
 
@@ -234,16 +262,16 @@ public class SimpleTaskScheduler implements TaskScheduler {
             // because schedule might get called
             synchronized (SimpleTaskScheduler.this) {
                 synchronized (this) {
-                    logger.finest(executingTask + " checking guard");
+                    if (LOG_FINEST) logger.finest(executingTask + " checking guard");
                     if (guard.isTrue() && guard.staysTrue()) {
-                        logger.finest(executingTask + " got monitor");
+                        if (LOG_FINEST) logger.finest(executingTask + " got monitor");
                         suspendedTasks.remove(executingTask);
                         readyTasks.add(executingTask);
                         executingTask.makeReady();
                         if (view != null)
                             view.taskReady(executingTask.task.getView());
                         if (activeTask == null) {
-                            logger.finest(executingTask + " scheduling myself");
+                            if (LOG_FINEST) logger.finest(executingTask + " scheduling myself");
                             schedule();
                         }
                     }
@@ -252,53 +280,39 @@ public class SimpleTaskScheduler implements TaskScheduler {
         }
 
         synchronized void setGuard(ABSGuard g) {
-            logger.finest(executingTask + " awaiting " + g);
+            if (LOG_FINEST) logger.finest(executingTask + " awaiting " + g);
             active = false;
             this.guard = g;
 
-            logger.finest(executingTask + " registering at threads...");
-            boolean wasAdded = registerAtThreads(g);
+            if (LOG_FINEST) logger.finest(executingTask + " registering at threads...");
+            boolean wasAdded = g.addWaitingThread(this);
 
             if (!wasAdded) {
-                logger.fine(this+" was not added to guard "+g);
+                if (LOG_FINE) logger.fine(this+" was not added to guard "+g);
             }
         }
 
         void await(ABSGuard g) {
 
-            logger.finest(executingTask + " next step done going into monitor");
+            if (LOG_FINEST) logger.finest(executingTask + " next step done going into monitor");
             synchronized (this) {
                 try {
-                    logger.finest(executingTask + " waiting to be resumed");
+                    if (LOG_FINEST) logger.finest(executingTask + " waiting to be resumed");
                     while (!active) {
                         wait();
                     }
                 } catch (InterruptedException e) {
                     wasInterrupted(e);
                 }
-                logger.finest(executingTask + " resumed");
+                if (LOG_FINEST) logger.finest(executingTask + " resumed");
                 active = true;
             }
         }
 
-        private boolean registerAtThreads(ABSGuard g) {
-            boolean wasAdded = false;
-            if (g instanceof ABSFutureGuard) {
-                ABSFutureGuard fg = (ABSFutureGuard) g;
-                wasAdded = fg.fut.addWaitingThread(this);
-                logger.finest(executingTask + " was "+(wasAdded ? "" :"NOT ")+"added to " + fg.fut);
-            } else if (g instanceof ABSAndGuard) {
-                ABSAndGuard ag = (ABSAndGuard) g;
-                wasAdded = registerAtThreads(ag.getLeftGuard());
-                wasAdded |= registerAtThreads(ag.getRightGuard());
-            }
-            return wasAdded;
-        }
-
         public synchronized void awake() {
             active = true;
             notify();
-            logger.fine(executingTask.toString() + " awaked");
+            if (LOG_FINE) logger.fine(executingTask.toString() + " awaked");
         }
 
     }
@@ -307,31 +321,31 @@ public class SimpleTaskScheduler implements TaskScheduler {
         if (runtime.hasGlobalScheduler()) {
             if (suspendedTasks.isEmpty() && readyTasks.isEmpty())
                 return;
-            logger.finest("Adding scheduling action...");
+            if (LOG_FINEST) logger.finest("Adding scheduling action...");
             runtime.addScheduleAction(new ScheduleTask(cog) {
                 @Override
                 public void execute() {
-                    logger.finest("Calling do schedule");
+                    if (LOG_FINEST) logger.finest("Calling do schedule");
                     doSchedule();
                 }
 
             });
-            logger.finest("Done");
+            if (LOG_FINEST) logger.finest("Done");
         } else {
             doSchedule();
         }
     }
 
     private void doSchedule() {
-        logger.finest("Executing doSchedule...");
+        if (LOG_FINEST) logger.finest("Executing doSchedule...");
 
         List<TaskInfo> choices = getSchedulableTasks();
 
-        if (logger.isLoggable(Level.INFO))
+        if (LOG_INFO)
             logger.info("COG " + cog.getID() + " scheduling choices: " + choices);
 
         if (choices.isEmpty()) {
-            logger.info("Choices are empty!");
+            if (LOG_INFO) logger.info("Choices are empty!");
             runtime.doNextStep();
             return;
         }
@@ -362,11 +376,12 @@ public class SimpleTaskScheduler implements TaskScheduler {
 
     private synchronized void activateTask(TaskInfo nextTask) {
         activeTask = nextTask;
+        reportActivity();
         if (activeTask.thread != null) {
-            logger.info("COG " + cog.getID() + " awaking " + activeTask);
+            if (LOG_INFO) logger.info("COG " + cog.getID() + " awaking " + activeTask);
             activeTask.thread.awake();
         } else {
-            logger.info("COG " + cog.getID() + " creating " + activeTask);
+            if (LOG_INFO) logger.info("COG " + cog.getID() + " creating " + activeTask);
             activeTask.thread = new SimpleSchedulerThread(activeTask);
             activeTask.thread.start();
             activeTask.task.setStart(System.currentTimeMillis());
@@ -438,7 +453,7 @@ public class SimpleTaskScheduler implements TaskScheduler {
             thread.setGuard(g);
 
             if (g.isTrue() || (suspendedTasks.size() + readyTasks.size()) > 1) {
-                logger.fine("issuing a schedule");
+                if (LOG_FINE) logger.fine("issuing a schedule");
                 schedule();
             }
 
@@ -446,6 +461,7 @@ public class SimpleTaskScheduler implements TaskScheduler {
 
 
         runtime.doNextStep();
+        reportActivity();
 
         synchronized (this) {
             newTask = activeTask;
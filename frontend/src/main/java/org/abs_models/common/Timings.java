@@ -0,0 +1,227 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.common;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Records the wall time, allocated bytes and peak heap usage of the phases
+ * of a compiler run, for the <code>--timings</code> option.
+ *
+ * Phases are started with {@link #start} and end when the returned
+ * {@link Phase} is closed; phases started while another one is open are
+ * nested in it.  Work that is done in many small pieces, e.g., parsing
+ * single files or the callbacks of a type system extension, is summed up
+ * with {@link #add} into an entry nested in the currently open phase.
+ *
+ * Allocated bytes are counted for the thread that runs the phase.  Peak
+ * heap usage is the sum of the peak usages of the heap memory pools and is
+ * not recorded for summed-up entries.
+ */
+public class Timings {
+
+    /**
+     * Does not record anything
+     */
+    public static final Timings DISABLED = new Timings() {
+        @Override
+        public Phase start(String name) {
+            return NO_PHASE;
+        }
+
+        @Override
+        public void add(String name, long nanos, long allocatedBytes) {
+        }
+
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+    };
+
+    private static final Phase NO_PHASE = DISABLED.new Phase(null);
+
+    private static final class Entry {
+        final String name;
+        final int depth;
+        long nanos;
+        long allocatedBytes;
+        /** -1 if not recorded */
+        long peakHeapBytes = -1;
+
+        Entry(String name, int depth) {
+            this.name = name;
+            this.depth = depth;
+        }
+    }
+
+    /**
+     * An open phase, see {@link #start}
+     */
+    public final class Phase implements AutoCloseable {
+        private final Entry entry;
+        private final long startNanos = System.nanoTime();
+        private final long startAllocated = allocatedBytes();
+        private final Map<String, Entry> sums = new HashMap<>();
+        private long peakHeapBytes;
+
+        private Phase(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public void close() {
+            if (entry != null)
+                end(this);
+        }
+    }
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Deque<Phase> open = new ArrayDeque<>();
+    /** the summed-up entries outside of any phase */
+    private final Map<String, Entry> topLevelSums = new HashMap<>();
+
+    public boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Starts a phase, nested in the currently open phase if any.  Use as
+     * <code>try (Timings.Phase p = timings.start("name")) { ... }</code>.
+     */
+    public synchronized Phase start(String name) {
+        updatePeakHeap();
+        Entry e = new Entry(name, open.size());
+        entries.add(e);
+        resetPeakHeap();
+        Phase p = new Phase(e);
+        open.push(p);
+        return p;
+    }
+
+    private synchronized void end(Phase p) {
+        p.entry.nanos = System.nanoTime() - p.startNanos;
+        p.entry.allocatedBytes = allocatedBytes() - p.startAllocated;
+        updatePeakHeap();
+        p.entry.peakHeapBytes = p.peakHeapBytes;
+        // also ends the phases nested in p that were not closed
+        while (!open.isEmpty() && open.pop() != p) { }
+    }
+
+    /**
+     * Adds time and allocated bytes to the entry with the given name
+     * nested in the currently open phase, creating the entry if necessary.
+     */
+    public synchronized void add(String name, long nanos, long allocatedBytes) {
+        Phase parent = open.peek();
+        Map<String, Entry> sums = parent == null ? topLevelSums : parent.sums;
+        Entry e = sums.get(name);
+        if (e == null) {
+            e = new Entry(name, open.size());
+            entries.add(e);
+            sums.put(name, e);
+        }
+        e.nanos += nanos;
+        e.allocatedBytes += allocatedBytes;
+    }
+
+    private static final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    static {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.isValid())
+                heapPools.add(pool);
+        }
+    }
+
+    private static long peakHeap() {
+        long result = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            result += pool.getPeakUsage().getUsed();
+        }
+        return result;
+    }
+
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+        }
+    }
+
+    /**
+     * Adds the peak heap usage since the last reset to all open phases
+     */
+    private void updatePeakHeap() {
+        long peak = peakHeap();
+        for (Phase p : open) {
+            p.peakHeapBytes = Math.max(p.peakHeapBytes, peak);
+        }
+    }
+
+    /**
+     * @return the number of bytes allocated by the current thread so far,
+     * or 0 if the JVM does not support measuring it
+     */
+    public static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    /**
+     * Prints all recorded phases as a table or as JSON
+     */
+    public synchronized void print(PrintStream out, boolean json) {
+        if (json) {
+            out.println("[");
+            for (int i = 0; i < entries.size(); i++) {
+                Entry e = entries.get(i);
+                out.print("  { \"phase\": \"" + escapeJson(e.name) + "\", \"depth\": " + e.depth
+                          + ", \"wall_ms\": " + String.format(Locale.ROOT, "%.3f", e.nanos / 1e6)
+                          + ", \"allocated_bytes\": " + e.allocatedBytes
+                          + ", \"peak_heap_bytes\": " + (e.peakHeapBytes < 0 ? "null" : Long.toString(e.peakHeapBytes))
+                          + " }");
+                out.println(i < entries.size() - 1 ? "," : "");
+            }
+            out.println("]");
+        } else {
+            out.println(String.format("%-60s %12s %16s %16s", "Phase", "Wall (ms)", "Allocated (MB)", "Peak heap (MB)"));
+            for (Entry e : entries) {
+                StringBuilder name = new StringBuilder();
+                for (int i = 0; i < e.depth; i++) name.append("  ");
+                name.append(e.name);
+                out.println(String.format(Locale.ROOT, "%-60s %12.1f %16.1f %16s",
+                                          name, e.nanos / 1e6, e.allocatedBytes / 1e6,
+                                          e.peakHeapBytes < 0 ? "-" : String.format(Locale.ROOT, "%.1f", e.peakHeapBytes / 1e6)));
+            }
+        }
+        out.flush();
+    }
+
+    private static String escapeJson(String s) {
+        StringBuilder result = new StringBuilder();
+        for (char c : s.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                result.append('\\').append(c);
+            } else if (c < 0x20) {
+                result.append(String.format("\\u%04x", (int) c));
+            } else {
+                result.append(c);
+            }
+        }
+        return result.toString();
+    }
+}
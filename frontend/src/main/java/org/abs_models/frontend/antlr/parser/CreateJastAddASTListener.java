@@ -30,6 +30,18 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         if (filename != null) this.filename = filename.getPath();
     }
 
+    /**
+     * Returns the text of an identifier.  The text is interned since
+     * large models mention the same names over and over again.
+     */
+    private static String name(Token token) {
+        return token.getText().intern();
+    }
+
+    private static String name(ParseTree tree) {
+        return tree.getText().intern();
+    }
+
     private <T extends ASTNode<?>> T setASTNodePosition(ParserRuleContext node, T value) {
         assert node != null;
         Token start = node.getStart();
@@ -161,7 +173,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     @Override
     public void exitTraitNameFragment(ABSParser.TraitNameFragmentContext ctx) {
-        setV(ctx, new TraitNameExpr(ctx.TYPE_IDENTIFIER().getText()));
+        setV(ctx, new TraitNameExpr(name(ctx.TYPE_IDENTIFIER())));
     }
     @Override
     public void exitTraitSetFragment(ABSParser.TraitSetFragmentContext ctx) {
@@ -172,7 +184,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         setV(ctx, new TraitUse(v(ctx.trait_expr())));
     }
     @Override public void exitTrait_decl( ABSParser.Trait_declContext ctx) {
-        setV(ctx, new TraitDecl(ctx.qualified_type_identifier().getText(), v(ctx.annotations()), v(ctx.trait_expr())));
+        setV(ctx, new TraitDecl(name(ctx.qualified_type_identifier()), v(ctx.annotations()), v(ctx.trait_expr())));
     }
 
     // Declarations
@@ -181,7 +193,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitModule_decl(ABSParser.Module_declContext ctx) {
-        setV(ctx, new ModuleDecl(ctx.qualified_type_identifier().getText(), l(ctx.exports), l(ctx.imports), l(ctx.decl()), o(ctx.main_block())));
+        setV(ctx, new ModuleDecl(name(ctx.qualified_type_identifier()), l(ctx.exports), l(ctx.imports), l(ctx.decl()), o(ctx.main_block())));
     }
 
     @Override public void exitModule_export(ABSParser.Module_exportContext ctx) {
@@ -190,21 +202,21 @@ public class CreateJastAddASTListener extends ABSBaseListener {
             else setV(ctx, new NamedExport(l(ctx.s)));
         } else {
             if (ctx.s == null || ctx.s.isEmpty()) setV(ctx, new StarExport(o(ctx.f)));
-            else setV(ctx, new FromExport(l(ctx.s), ctx.f.getText()));
+            else setV(ctx, new FromExport(l(ctx.s), name(ctx.f)));
         }
     }
 
     @Override public void exitModule_import(ABSParser.Module_importContext ctx) {
-        if (ctx.s == null || ctx.s.isEmpty()) setV(ctx, new StarImport(ctx.f.getText()));
+        if (ctx.s == null || ctx.s.isEmpty()) setV(ctx, new StarImport(name(ctx.f)));
         else  if (ctx.f == null) setV(ctx, new NamedImport(l(ctx.s)));
-        else setV(ctx, new FromImport(l(ctx.s), ctx.f.getText()));
+        else setV(ctx, new FromImport(l(ctx.s), name(ctx.f)));
     }
 
     @Override public void exitDatatype_decl(ABSParser.Datatype_declContext ctx) {
-        ParametricDataTypeDecl d = setV(ctx, new ParametricDataTypeDecl(ctx.n.getText(), l(ctx.c), v(ctx.annotations()),
+        ParametricDataTypeDecl d = setV(ctx, new ParametricDataTypeDecl(name(ctx.n), l(ctx.c), v(ctx.annotations()),
             new List<>()));
         for (Token t : ctx.p) {
-            TypeParameterDecl tpd = new TypeParameterDecl(t.getText());
+            TypeParameterDecl tpd = new TypeParameterDecl(name(t));
             setASTNodePosition(t, tpd);
             d.addTypeParameter(tpd);
         }
@@ -212,7 +224,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     @Override public void exitData_constructor(ABSParser.Data_constructorContext ctx) {
         DataConstructor d
-            = setV(ctx, new DataConstructor(ctx.n.getText(), new List<>()));
+            = setV(ctx, new DataConstructor(name(ctx.n), new List<>()));
         // KLUDGE: copied into exitException_decl
         for (ABSParser.Data_constructor_argContext a : ctx.a) {
             final TypeUse vt = v(a.type_use());
@@ -225,7 +237,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
                 vtresolved = new DataTypeUse(vt.getName(), vt.getAnnotations());
                 vtresolved.setPositionFromNode(vt);
             }
-            ConstructorArg ca = new ConstructorArg(vtresolved, a.IDENTIFIER() != null ? new Opt<>(new Name(a.IDENTIFIER().getText())) : new Opt<>());
+            ConstructorArg ca = new ConstructorArg(vtresolved, a.IDENTIFIER() != null ? new Opt<>(new Name(name(a.IDENTIFIER()))) : new Opt<>());
             setASTNodePosition(a, ca);
             d.addConstructorArg(ca);
         }
@@ -249,15 +261,15 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         TypeUse t = v(ctx.type_use());
         if (ctx.p != null && !ctx.p.isEmpty()) {
             ParametricFunctionDecl dp
-                = setV(ctx, new ParametricFunctionDecl(ctx.n.getText(), t, p, d, v(ctx.annotations()),
+                = setV(ctx, new ParametricFunctionDecl(name(ctx.n), t, p, d, v(ctx.annotations()),
                 new List<>()));
             for (Token tp : ctx.p) {
-                TypeParameterDecl tpd = new TypeParameterDecl(tp.getText());
+                TypeParameterDecl tpd = new TypeParameterDecl(name(tp));
                 setASTNodePosition(tp, tpd);
                 dp.addTypeParameter(tpd);
             }
         } else {
-            setV(ctx, new FunctionDecl(ctx.n.getText(), v(ctx.annotations()), t, p, d));
+            setV(ctx, new FunctionDecl(name(ctx.n), v(ctx.annotations()), t, p, d));
         }
     }
 
@@ -269,26 +281,26 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         TypeUse t = v(ctx.type_use());
         if(ctx.p != null && !ctx.p.isEmpty()) {
             ParametricPartialFunctionDecl fd =
-                setV(ctx, new ParametricPartialFunctionDecl(ctx.n.getText(), l(ctx.annotation()),
+                setV(ctx, new ParametricPartialFunctionDecl(name(ctx.n), l(ctx.annotation()),
                     new List<>(), t, params, funcParams, d));
             for (Token tp : ctx.p) {
-                TypeParameterDecl tpd = new TypeParameterDecl(tp.getText());
+                TypeParameterDecl tpd = new TypeParameterDecl(name(tp));
                 setASTNodePosition(tp, tpd);
                 fd.addTypeParameter(tpd);
             }
         } else {
-            setV(ctx, new PartialFunctionDecl(ctx.n.getText(), l(ctx.annotation()), t, params, funcParams, d));
+            setV(ctx, new PartialFunctionDecl(name(ctx.n), l(ctx.annotation()), t, params, funcParams, d));
         }
     }
 
     @Override public void exitTypesyn_decl(ABSParser.Typesyn_declContext ctx) {
 
-        setV(ctx, new TypeSynDecl(ctx.qualified_type_identifier().getText(), v(ctx.annotations()), v(ctx.type_use())));
+        setV(ctx, new TypeSynDecl(name(ctx.qualified_type_identifier()), v(ctx.annotations()), v(ctx.type_use())));
     }
 
     @Override public void exitException_decl(ABSParser.Exception_declContext ctx) {
         ExceptionConstructor d
-            = new ExceptionConstructor(ctx.n.getText(), new List<>());
+            = new ExceptionConstructor(name(ctx.n), new List<>());
         // KLUDGE: copy of exitData_constructor
         for (ABSParser.Data_constructor_argContext a : ctx.a) {
             final TypeUse vt = v(a.type_use());
@@ -301,13 +313,13 @@ public class CreateJastAddASTListener extends ABSBaseListener {
                 vtresolved = new DataTypeUse(vt.getName(), vt.getAnnotations());
                 vtresolved.setPositionFromNode(vt);
             }
-            ConstructorArg ca = new ConstructorArg(vtresolved, a.IDENTIFIER() != null ? new Opt<>(new Name(a.IDENTIFIER().getText())) : new Opt<>());
+            ConstructorArg ca = new ConstructorArg(vtresolved, a.IDENTIFIER() != null ? new Opt<>(new Name(name(a.IDENTIFIER()))) : new Opt<>());
             setASTNodePosition(a, ca);
             d.addConstructorArg(ca);
         }
         List<DataConstructor> l = new List<>();
         l.add(d);
-        setV(ctx, new ExceptionDecl(ctx.n.getText(), v(ctx.annotations()), l));
+        setV(ctx, new ExceptionDecl(name(ctx.n), v(ctx.annotations()), l));
     }
 
     @Override public void exitMain_block(ABSParser.Main_blockContext ctx) {
@@ -316,17 +328,17 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     // Interfaces
     @Override public void exitInterface_decl(ABSParser.Interface_declContext ctx) {
-        InterfaceDecl i = new InterfaceDecl(ctx.qualified_type_identifier().getText(), v(ctx.annotations()), l(ctx.e), l(ctx.methodsig()));
+        InterfaceDecl i = new InterfaceDecl(name(ctx.qualified_type_identifier()), v(ctx.annotations()), l(ctx.e), l(ctx.methodsig()));
         setV(ctx, i);
     }
 
     @Override public void exitMethodsig(ABSParser.MethodsigContext ctx) {
-        setV(ctx, new MethodSig(ctx.IDENTIFIER().getText(), v(ctx.type_use()), v(ctx.paramlist())));
+        setV(ctx, new MethodSig(name(ctx.IDENTIFIER()), v(ctx.type_use()), v(ctx.paramlist())));
     }
 
     // Classes
     @Override public void exitClass_decl(ABSParser.Class_declContext ctx) {
-        ClassDecl c = setV(ctx, new ClassDecl(ctx.qualified_type_identifier().getText(), v(ctx.annotations()),
+        ClassDecl c = setV(ctx, new ClassDecl(name(ctx.qualified_type_identifier()), v(ctx.annotations()),
             new List<>(), l(ctx.interface_name()),
                                                          l(ctx.trait_usage()), new Opt<>(), l(ctx.casestmtbranch()), l(ctx.field_decl()), l(ctx.method())));
         if (ctx.paramlist() != null) {
@@ -343,11 +355,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     @Override public void exitField_decl(ABSParser.Field_declContext ctx) {
         // FIXME: 'port' missing (for component model)
-        FieldDecl f = setV(ctx, new FieldDecl(ctx.IDENTIFIER().getText(), v(ctx.type_use()), o(ctx.pure_exp())));
+        FieldDecl f = setV(ctx, new FieldDecl(name(ctx.IDENTIFIER()), v(ctx.type_use()), o(ctx.pure_exp())));
     }
 
     @Override public void exitMethod(ABSParser.MethodContext ctx) {
-        MethodSig ms = new MethodSig(ctx.IDENTIFIER().getText(), v(ctx.type_use()), v(ctx.paramlist()));
+        MethodSig ms = new MethodSig(name(ctx.IDENTIFIER()), v(ctx.type_use()), v(ctx.paramlist()));
         ms.setPosition(ctx.IDENTIFIER().getSymbol().getLine(), ctx.IDENTIFIER().getSymbol().getCharPositionInLine(),
                        ctx.paramlist().getStop().getLine(), ctx.paramlist().getStop().getCharPositionInLine() + ctx.paramlist().getStop().getText().length());
         Block b = new Block(new List<>(), new List<>());
@@ -359,7 +371,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     // Statements
     @Override public void exitVardeclStmt(ABSParser.VardeclStmtContext ctx) {
-        VarDecl v = new VarDecl(ctx.IDENTIFIER().getText(), v(ctx.type_exp()), new Opt<>());
+        VarDecl v = new VarDecl(name(ctx.IDENTIFIER()), v(ctx.type_exp()), new Opt<>());
         setASTNodePosition(ctx, v);
         if (ctx.exp() != null) {
             v.setInitExp(v(ctx.exp()));
@@ -410,8 +422,8 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         }
         Opt<LoopVarDecl> indexvar;
         if (ctx.index == null) indexvar = new Opt<>();
-        else indexvar = new Opt<>(new LoopVarDecl(ctx.index.getText()));
-        setV(ctx, new ForeachStmt(v(ctx.annotations()), new LoopVarDecl(ctx.var.getText()), indexvar, v(ctx.l), v(ctx.stmt())));
+        else indexvar = new Opt<>(new LoopVarDecl(name(ctx.index)));
+        setV(ctx, new ForeachStmt(v(ctx.annotations()), new LoopVarDecl(name(ctx.var)), indexvar, v(ctx.l), v(ctx.stmt())));
     }
     @Override public void exitTryCatchFinallyStmt(ABSParser.TryCatchFinallyStmtContext ctx) {
         Stmt body = v(ctx.b);
@@ -485,7 +497,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     // Annotations
     @Override public void exitAnnotation(ABSParser.AnnotationContext ctx) {
         if (ctx.l == null) setV(ctx, new Annotation(v(ctx.r)));
-        else setV(ctx, new TypedAnnotation(v(ctx.r), new UnresolvedTypeUse(ctx.l.getText(), new List<>())));
+        else setV(ctx, new TypedAnnotation(v(ctx.r), new UnresolvedTypeUse(name(ctx.l), new List<>())));
     }
 
     @Override public void exitAnnotations(ABSParser.AnnotationsContext ctx) {
@@ -505,18 +517,18 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         setV(ctx, new GetExp(v(ctx.pure_exp())));
     }
     @Override public void exitNewExp(ABSParser.NewExpContext ctx) {
-        NewExp n = setV(ctx, new NewExp(ctx.c.getText(), v(ctx.pure_exp_list()), new Opt<>()));
+        NewExp n = setV(ctx, new NewExp(name(ctx.c), v(ctx.pure_exp_list()), new Opt<>()));
         if (ctx.l != null) { n.setLocal(new Local()); }
     }
     @Override public void exitAsyncCallExp(ABSParser.AsyncCallExpContext ctx) {
         if (ctx.a != null) {
-            setV(ctx, new AwaitAsyncCall(v(ctx.o), ctx.m.getText(), v(ctx.pure_exp_list())));
+            setV(ctx, new AwaitAsyncCall(v(ctx.o), name(ctx.m), v(ctx.pure_exp_list())));
         } else {
-            setV(ctx, new AsyncCall(v(ctx.o), ctx.m.getText(), v(ctx.pure_exp_list())));
+            setV(ctx, new AsyncCall(v(ctx.o), name(ctx.m), v(ctx.pure_exp_list())));
         }
     }
     @Override public void exitSyncCallExp(ABSParser.SyncCallExpContext ctx) {
-        setV(ctx, new SyncCall(v(ctx.o), ctx.m.getText(), v(ctx.pure_exp_list())));
+        setV(ctx, new SyncCall(v(ctx.o), name(ctx.m), v(ctx.pure_exp_list())));
     }
     @Override public void exitOriginalCallExp(ABSParser.OriginalCallExpContext ctx) {
         List<PureExp> l = ctx.pure_exp_list() == null
@@ -549,7 +561,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitFunction_name_param_decl(ABSParser.Function_name_param_declContext ctx) {
-        setV(ctx, new NamedParFnAppParam(ctx.IDENTIFIER().getText()));
+        setV(ctx, new NamedParFnAppParam(name(ctx.IDENTIFIER())));
     }
 
     @Override
@@ -564,7 +576,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         List<PureExp> l = ctx.pure_exp_list() == null
             ? new List<>()
             : v(ctx.pure_exp_list());
-        setV(ctx, new FnApp(ctx.qualified_identifier().getText(), l));
+        setV(ctx, new FnApp(name(ctx.qualified_identifier()), l));
     }
     @Override public void exitPartialFunctionExp(ABSParser.PartialFunctionExpContext ctx) {
         List<PureExp> params = ctx.pure_exp_list() == null
@@ -574,7 +586,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
             ? new List<>()
             : v(ctx.function_list());
 
-        setV(ctx, new ParFnApp(ctx.qualified_identifier().getText(), params, functionParams));
+        setV(ctx, new ParFnApp(name(ctx.qualified_identifier()), params, functionParams));
     }
     @Override public void exitVariadicFunctionExp(ABSParser.VariadicFunctionExpContext ctx) {
         List<PureExp> l = v(ctx.pure_exp_list());
@@ -587,14 +599,14 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         setASTNodePosition(ctx.pure_exp_list(), arglist);
         List<PureExp> llist = new List<>();
         llist.add(arglist);
-        setV(ctx, new FnApp(ctx.qualified_identifier().getText(), llist));
+        setV(ctx, new FnApp(name(ctx.qualified_identifier()), llist));
     }
     @Override public void exitConstructorExp(ABSParser.ConstructorExpContext ctx) {
         List<PureExp> l = ctx.pure_exp_list() == null
             ? new List<>()
             : v(ctx.pure_exp_list());
         setV(ctx,
-                 new DataConstructorExp(ctx.qualified_type_identifier().getText(),
+                 new DataConstructorExp(name(ctx.qualified_type_identifier()),
                                         l));
     }
     @Override public void exitUnaryExp(ABSParser.UnaryExpContext ctx) {
@@ -730,7 +742,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 	int nbindings = ctx.e.size(); // ctx.t, ctx.id have the same length
 	PureExp body = v(ctx.body);
 	for (int i = nbindings - 1; i >= 0; i--) {
-	    ParamDecl pd = new ParamDecl(ctx.id.get(i).getText(),
+	    ParamDecl pd = new ParamDecl(name(ctx.id.get(i)),
 					 v(ctx.t.get(i)), new List<>());
 	    setASTNodePosition(ctx.id.get(i), pd);
 	    body = new LetExp(pd, v(ctx.e.get(i)), body);
@@ -762,10 +774,10 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         setV(ctx, new LiteralPattern(makeStringLiteral(ctx.STRINGLITERAL().getText())));
     }
     @Override public void exitVarPattern(ABSParser.VarPatternContext ctx) {
-        setV(ctx, new PatternVarUse(ctx.IDENTIFIER().getText()));
+        setV(ctx, new PatternVarUse(name(ctx.IDENTIFIER())));
     }
     @Override public void exitConstructorPattern(ABSParser.ConstructorPatternContext ctx) {
-        setV(ctx, new ConstructorPattern(ctx.qualified_type_identifier().getText(), l(ctx.pattern())));
+        setV(ctx, new ConstructorPattern(name(ctx.qualified_type_identifier()), l(ctx.pattern())));
     }
 
     @Override public void exitParamlist(ABSParser.ParamlistContext ctx) {
@@ -773,7 +785,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitParam_decl(ABSParser.Param_declContext ctx) {
-        setV(ctx, new ParamDecl(ctx.IDENTIFIER().getText(), v(ctx.type_exp()), v(ctx.annotations())));
+        setV(ctx, new ParamDecl(name(ctx.IDENTIFIER()), v(ctx.type_exp()), v(ctx.annotations())));
     }
 
     @Override public void exitFunction_name_list(ABSParser.Function_name_listContext ctx) {
@@ -781,11 +793,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitFunction_name_decl(ABSParser.Function_name_declContext ctx) {
-        setV(ctx, new FunctionParamDecl(ctx.IDENTIFIER().getText()));
+        setV(ctx, new FunctionParamDecl(name(ctx.IDENTIFIER())));
     }
 
     @Override public void exitInterface_name(ABSParser.Interface_nameContext ctx) {
-        setV(ctx, new InterfaceTypeUse(ctx.qualified_type_identifier().getText(), new List<>()));
+        setV(ctx, new InterfaceTypeUse(name(ctx.qualified_type_identifier()), new List<>()));
     }
 
     @Override public void exitPure_exp_list(ABSParser.Pure_exp_listContext ctx) {
@@ -803,11 +815,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
          */
         if (ctx.p.isEmpty()) {
             // normal type use
-            setV(ctx, new UnresolvedTypeUse(ctx.n.getText(), v(ctx.annotations())));
+            setV(ctx, new UnresolvedTypeUse(name(ctx.n), v(ctx.annotations())));
         } else {
             // parametric type use
             ParametricDataTypeUse p
-                = setV(ctx, new ParametricDataTypeUse(ctx.n.getText(), v(ctx.annotations()),
+                = setV(ctx, new ParametricDataTypeUse(name(ctx.n), v(ctx.annotations()),
                 new List<>()));
             for (ABSParser.Type_useContext c : ctx.type_use()) {
                 p.addParam(v(c));
@@ -826,11 +838,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     @Override public void exitType_exp(ABSParser.Type_expContext ctx) {
         if (ctx.p.isEmpty()) {
             // normal type use
-            setV(ctx, new UnresolvedTypeUse(ctx.n.getText(), new List<>()));
+            setV(ctx, new UnresolvedTypeUse(name(ctx.n), new List<>()));
         } else {
             // parametric type use
             ParametricDataTypeUse p
-                = setV(ctx, new ParametricDataTypeUse(ctx.n.getText(), new List<>(),
+                = setV(ctx, new ParametricDataTypeUse(name(ctx.n), new List<>(),
                 new List<>()));
             for (ABSParser.Type_useContext c : ctx.type_use()) {
                 p.addParam(v(c));
@@ -840,18 +852,18 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     @Override public void exitVar_or_field_ref(ABSParser.Var_or_field_refContext ctx) {
         if (ctx.getChildCount() == 1) { // id
-            setV(ctx, new VarUse(ctx.IDENTIFIER().getText()));
+            setV(ctx, new VarUse(name(ctx.IDENTIFIER())));
         } else {                // this.id
-            setV(ctx, new FieldUse(ctx.IDENTIFIER().getText()));
+            setV(ctx, new FieldUse(name(ctx.IDENTIFIER())));
         }
     }
 
     @Override public void exitQualified_type_identifier(ABSParser.Qualified_type_identifierContext ctx) {
-        setV(ctx, new Name(ctx.getText()));
+        setV(ctx, new Name(name(ctx)));
     }
 
     @Override public void exitQualified_identifier(ABSParser.Qualified_identifierContext ctx) {
-        setV(ctx, new Name(ctx.getText()));
+        setV(ctx, new Name(name(ctx)));
     }
 
     @Override public void exitAny_identifier(ABSParser.Any_identifierContext ctx) {
@@ -861,7 +873,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     // Deltas
     @Override public void exitDelta_decl(ABSParser.Delta_declContext ctx) {
-        setV(ctx, new DeltaDecl(ctx.TYPE_IDENTIFIER().getText(),
+        setV(ctx, new DeltaDecl(name(ctx.TYPE_IDENTIFIER()),
                                 l(ctx.p), o(ctx.delta_used_module()),
                                 l(ctx.module_modifier())));
     }
@@ -871,7 +883,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitDeltaClassParam(ABSParser.DeltaClassParamContext ctx) {
-        setV(ctx, new DeltaClassParam(ctx.qualified_type_identifier().getText(),
+        setV(ctx, new DeltaClassParam(name(ctx.qualified_type_identifier()),
             v(ctx.has_condition())));
     }
 
@@ -888,7 +900,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitDelta_used_module(ABSParser.Delta_used_moduleContext ctx) {
-        setV(ctx, new DeltaAccess(ctx.qualified_type_identifier().getText()));
+        setV(ctx, new DeltaAccess(name(ctx.qualified_type_identifier())));
     }
 
     @Override public void exitModule_modifier(ABSParser.Module_modifierContext ctx) {
@@ -920,11 +932,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitDeltaRemoveClassModifier(ABSParser.DeltaRemoveClassModifierContext ctx) {
-        setV(ctx, new RemoveClassModifier(ctx.qualified_type_identifier().getText()));
+        setV(ctx, new RemoveClassModifier(name(ctx.qualified_type_identifier())));
     }
 
     @Override public void exitDeltaModifyClassModifier(ABSParser.DeltaModifyClassModifierContext ctx) {
-        setV(ctx, new ModifyClassModifier(ctx.n.getText(), l(ctx.ia), l(ctx.ir),
+        setV(ctx, new ModifyClassModifier(name(ctx.n), l(ctx.ia), l(ctx.ir),
                                           l(ctx.class_modifier_fragment())));
     }
 
@@ -933,11 +945,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitDeltaRemoveInterfaceModifier(ABSParser.DeltaRemoveInterfaceModifierContext ctx) {
-        setV(ctx, new RemoveInterfaceModifier(ctx.qualified_type_identifier().getText()));
+        setV(ctx, new RemoveInterfaceModifier(name(ctx.qualified_type_identifier())));
     }
 
     @Override public void exitDeltaModifyInterfaceModifier(ABSParser.DeltaModifyInterfaceModifierContext ctx) {
-        setV(ctx, new ModifyInterfaceModifier(ctx.qualified_type_identifier().getText(),
+        setV(ctx, new ModifyInterfaceModifier(name(ctx.qualified_type_identifier()),
                                               l(ctx.interface_modifier_fragment())));
     }
 
@@ -964,21 +976,21 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     // Productline
     @Override public void exitProductline_decl(ABSParser.Productline_declContext ctx) {
-        setV(ctx, new ProductLine(ctx.TYPE_IDENTIFIER().getText(),
+        setV(ctx, new ProductLine(name(ctx.TYPE_IDENTIFIER()),
                                   l(ctx.feature()), l(ctx.delta_clause())));
     }
 
     @Override public void exitFeature(ABSParser.FeatureContext ctx) {
-        setV(ctx, new Feature((ctx.p == null ? "" : "$") + ctx.TYPE_IDENTIFIER().getText(),
+        setV(ctx, new Feature((ctx.p == null ? "" : "$") + name(ctx.TYPE_IDENTIFIER()),
                               l(ctx.attr_assignment())));
     }
 
     @Override public void exitAttr_assignment(ABSParser.Attr_assignmentContext ctx) {
         Value val = null;
-        String id = ctx.IDENTIFIER().getText();
+        String id = name(ctx.IDENTIFIER());
         if (ctx.i != null) val = new IntVal(Integer.parseInt(ctx.i.getText()));
-        else if(ctx.s != null) val = new StringVal(ctx.s.getText());
-        else val = new UnknownVal(ctx.b.getText());
+        else if(ctx.s != null) val = new StringVal(name(ctx.s));
+        else val = new UnknownVal(name(ctx.b));
         setV(ctx, new AttrAssignment(id, val));
     }
 
@@ -990,11 +1002,11 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitDeltaspec(ABSParser.DeltaspecContext ctx) {
-        setV(ctx, new Deltaspec(ctx.TYPE_IDENTIFIER().getText(), l(ctx.deltaspec_param())));
+        setV(ctx, new Deltaspec(name(ctx.TYPE_IDENTIFIER()), l(ctx.deltaspec_param())));
     }
 
     @Override public void exitBoolOrIDDeltaspecParam(ABSParser.BoolOrIDDeltaspecParamContext ctx) {
-        String id = ctx.TYPE_IDENTIFIER().getText();
+        String id = name(ctx.TYPE_IDENTIFIER());
         setV(ctx, id.equals("True")
              ? new Const(new BoolVal(true))
              : (id.equals("False") ? new Const(new BoolVal(false)) : new FID(id)));
@@ -1003,7 +1015,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         setV(ctx, new Const(new IntVal(Integer.parseInt(ctx.INTLITERAL().getText()))));
     }
     @Override public void exitFIDAIDDeltaspecParam(ABSParser.FIDAIDDeltaspecParamContext ctx) {
-        setV(ctx, new FIDAID(ctx.TYPE_IDENTIFIER().getText(), ctx.IDENTIFIER().getText()));
+        setV(ctx, new FIDAID(name(ctx.TYPE_IDENTIFIER()), name(ctx.IDENTIFIER())));
     }
 
     @Override public void exitAfter_condition(ABSParser.After_conditionContext ctx) {
@@ -1011,7 +1023,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitDelta_id(ABSParser.Delta_idContext ctx) {
-        setV(ctx, new DeltaID(ctx.TYPE_IDENTIFIER().getText()));
+        setV(ctx, new DeltaID(name(ctx.TYPE_IDENTIFIER())));
     }
 
     @Override public void exitFrom_condition(ABSParser.From_conditionContext ctx) {
@@ -1046,10 +1058,10 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     @Override public void exitProduct_decl(ABSParser.Product_declContext ctx) {
         if(ctx.product_expr() == null) {
             // old syntax: a product is declared as a set of features
-            setV(ctx, new ProductDecl(ctx.TYPE_IDENTIFIER().getText(), new ProductFeatureSet(l(ctx.feature()))));
+            setV(ctx, new ProductDecl(name(ctx.TYPE_IDENTIFIER()), new ProductFeatureSet(l(ctx.feature()))));
         } else {
             // new syntax: using product expressions
-            setV(ctx, new ProductDecl(ctx.TYPE_IDENTIFIER().getText(), v(ctx.product_expr())));
+            setV(ctx, new ProductDecl(name(ctx.TYPE_IDENTIFIER()), v(ctx.product_expr())));
         }
     }
 
@@ -1071,7 +1083,7 @@ public class CreateJastAddASTListener extends ABSBaseListener {
     }
 
     @Override public void exitProductName(ABSParser.ProductNameContext ctx) {
-        setV(ctx, new ProductName(ctx.TYPE_IDENTIFIER().getText()));
+        setV(ctx, new ProductName(name(ctx.TYPE_IDENTIFIER())));
     }
 
     @Override public void exitProductParen(ABSParser.ProductParenContext ctx) {
@@ -1080,14 +1092,14 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
     //  mTVL
 	@Override public void exitFextension(ABSParser.FextensionContext ctx) {
-        setV(ctx, new FExt(ctx.TYPE_IDENTIFIER().getText(),
+        setV(ctx, new FExt(name(ctx.TYPE_IDENTIFIER()),
                            o(ctx.feature_decl_group()),
                            new AttrConstraints(l(ctx.feature_decl_attribute()),
                                                       l(ctx.feature_decl_constraint()))));
     }
 
     @Override public void exitFeature_decl(ABSParser.Feature_declContext ctx) {
-        setV(ctx, new FeatureDecl(ctx.TYPE_IDENTIFIER().getText(),
+        setV(ctx, new FeatureDecl(name(ctx.TYPE_IDENTIFIER()),
                                   o(ctx.feature_decl_group()),
                                   new AttrConstraints(l(ctx.feature_decl_attribute()),
                                                       l(ctx.feature_decl_constraint()))));
@@ -1116,10 +1128,10 @@ public class CreateJastAddASTListener extends ABSBaseListener {
         setV(ctx, new IfOut(v(ctx.mexp())));
     }
 	@Override public void exitFeatureDeclConstraintExclude(ABSParser.FeatureDeclConstraintExcludeContext ctx) {
-        setV(ctx, new Exclude(new FeatVar(ctx.TYPE_IDENTIFIER().getText())));
+        setV(ctx, new Exclude(new FeatVar(name(ctx.TYPE_IDENTIFIER()))));
     }
 	@Override public void exitFeatureDeclConstraintRequire(ABSParser.FeatureDeclConstraintRequireContext ctx) {
-        setV(ctx, new Require(new FeatVar(ctx.TYPE_IDENTIFIER().getText())));
+        setV(ctx, new Require(new FeatVar(name(ctx.TYPE_IDENTIFIER()))));
     }
 
 	@Override public void exitMexp(ABSParser.MexpContext ctx) {
@@ -1181,13 +1193,13 @@ public class CreateJastAddASTListener extends ABSBaseListener {
             setV(ctx, new MValue(new IntVal(Integer.parseInt(ctx.INTLITERAL().getText()))));
         else if (ctx.IDENTIFIER() != null) {
             if (ctx.TYPE_IDENTIFIER() != null)
-                setV(ctx, new FAVar(ctx.TYPE_IDENTIFIER().getText(),
-                                    ctx.IDENTIFIER().getText()));
+                setV(ctx, new FAVar(name(ctx.TYPE_IDENTIFIER()),
+                                    name(ctx.IDENTIFIER())));
             else
-                setV(ctx, new AttVar(ctx.IDENTIFIER().getText()));
+                setV(ctx, new AttVar(name(ctx.IDENTIFIER())));
         } else {
             // TYPE_IDENTIFIER is not null
-            String id = ctx.TYPE_IDENTIFIER().getText();
+            String id = name(ctx.TYPE_IDENTIFIER());
             if (id.equals("True")) setV(ctx, new MValue(new BoolVal(true)));
             else if (id.equals("False")) setV(ctx, new MValue(new BoolVal(false)));
             else setV(ctx, new FeatVar(id));
@@ -1196,19 +1208,19 @@ public class CreateJastAddASTListener extends ABSBaseListener {
 
 
     @Override public void exitFeature_decl_attribute(ABSParser.Feature_decl_attributeContext ctx) {
-        String t = ctx.TYPE_IDENTIFIER().getText();
+        String t = name(ctx.TYPE_IDENTIFIER());
         if (ctx.l != null) {
-            setV(ctx, new Attribute(ctx.IDENTIFIER().getText(), new IntMType(t, v(ctx.l), v(ctx.u))));
+            setV(ctx, new Attribute(name(ctx.IDENTIFIER()), new IntMType(t, v(ctx.l), v(ctx.u))));
         } else if (ctx.is != null && !ctx.is.isEmpty()) {
-            setV(ctx, new Attribute(ctx.IDENTIFIER().getText(), new IntListMType(t, l(ctx.is))));
+            setV(ctx, new Attribute(name(ctx.IDENTIFIER()), new IntListMType(t, l(ctx.is))));
         } else if (t.equals("Int")) {
-            setV(ctx, new Attribute(ctx.IDENTIFIER().getText(), new IntMType(t, new Limit(), new Limit())));
+            setV(ctx, new Attribute(name(ctx.IDENTIFIER()), new IntMType(t, new Limit(), new Limit())));
         } else if (t.equals("String")) {
-            setV(ctx, new Attribute(ctx.IDENTIFIER().getText(), new StringMType(t)));
+            setV(ctx, new Attribute(name(ctx.IDENTIFIER()), new StringMType(t)));
         } else if (t.equals("Bool")) {
-            setV(ctx, new Attribute(ctx.IDENTIFIER().getText(), new BoolMType(t)));
+            setV(ctx, new Attribute(name(ctx.IDENTIFIER()), new BoolMType(t)));
         } else {
-            setV(ctx, new Attribute(ctx.IDENTIFIER().getText(), new UnresolvedMType(t)));
+            setV(ctx, new Attribute(name(ctx.IDENTIFIER()), new UnresolvedMType(t)));
         }
     }
 
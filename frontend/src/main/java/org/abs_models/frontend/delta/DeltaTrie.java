@@ -4,9 +4,12 @@
  */
 package org.abs_models.frontend.delta;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 import com.google.common.base.Strings;
 
@@ -20,17 +23,26 @@ import org.abs_models.frontend.ast.Model;
  * Type checking all possible product variants amounts to traversing the trie and computing the type abstractions
  * for all (intermediate) products associated to the nodes of the trie.
  *
+ * Words are added first; computeAbstractions then traverses the trie.  Sibling subtrees only share the
+ * abstraction of their parent, which they copy, so they can be computed concurrently.  Evaluating
+ * attributes of the model is not thread-safe, so before a concurrent traversal each delta of the trie is
+ * prepared (see DeltaDecl.prepareProgramAbstraction): afterwards, applying it only reads the AST.
  */
 public class DeltaTrie {
     private final Node root;
     private final Model model;
+    private final SemanticConditionList errors;
+    // all nodes, in the order they were added
+    private final List<Node> nodes = new ArrayList<>();
 
     /**
      * Constructor
      */
     public DeltaTrie(Model model, SemanticConditionList errors) {
         this.model = model;
-        root = new Node(errors);
+        this.errors = errors;
+        root = new Node();
+        nodes.add(root);
     }
 
     // Adds a word to the Trie
@@ -41,6 +53,61 @@ public class DeltaTrie {
             root.addWord(word, product, 0);
     }
 
+    /**
+     * Computes the program abstractions of all nodes and adds the errors
+     * found to the error list of this trie, in the order in which the
+     * nodes were added.
+     *
+     * @param threads  The number of subtrees computed concurrently
+     * @param retainAbstractions  Whether nodes keep their abstraction
+     *        afterwards; if false, the abstraction of a node is released
+     *        as soon as its subtree is done, so at most one abstraction
+     *        per trie level and thread is alive
+     */
+    public void computeAbstractions(int threads, boolean retainAbstractions) {
+        if (threads > 1) {
+            for (Node node : nodes) {
+                if (node.delta != null)
+                    node.delta.prepareProgramAbstraction();
+            }
+            ForkJoinPool pool = new ForkJoinPool(threads);
+            try {
+                pool.invoke(new SubtreeTask(root, null, retainAbstractions));
+            } finally {
+                pool.shutdownNow();
+            }
+        } else {
+            root.computeSubtree(null, retainAbstractions);
+        }
+        for (Node node : nodes) {
+            errors.addAll(node.errors);
+        }
+    }
+
+    private static class SubtreeTask extends RecursiveAction {
+        private final Node node;
+        private final ProgramAbstraction parentTA;
+        private final boolean retainAbstractions;
+
+        SubtreeTask(Node node, ProgramAbstraction parentTA, boolean retainAbstractions) {
+            this.node = node;
+            this.parentTA = parentTA;
+            this.retainAbstractions = retainAbstractions;
+        }
+
+        @Override
+        protected void compute() {
+            if (parentTA != null)
+                node.computeAbstraction(parentTA);
+            List<SubtreeTask> tasks = new ArrayList<>();
+            for (Node child : node.children.values())
+                tasks.add(new SubtreeTask(child, node.ta, retainAbstractions));
+            invokeAll(tasks);
+            if (!retainAbstractions)
+                node.ta = null;
+        }
+    }
+
     /**********************************************************************************************/
     /*
      * Trie node
@@ -49,21 +116,29 @@ public class DeltaTrie {
         private final Map<String, Node> children;
         private String deltaID = null;
         private boolean isValidProduct = false;
-        private final ProgramAbstraction ta;
+        private ProgramAbstraction ta;
+        // The errors found while computing this node's abstraction
+        private final SemanticConditionList errors = new SemanticConditionList();
+        // The delta applied by this node, and the first product that uses it (for error reporting)
+        private final DeltaDecl delta;
+        private final Product product;
 
         // Constructor for top level root node
-        public Node(SemanticConditionList errors) {
+        public Node() {
             this.deltaID = "core";
-            this.children = new HashMap<>();
+            this.children = new LinkedHashMap<>();
+            this.delta = null;
+            this.product = null;
             this.ta = new ProgramAbstraction(errors);
             model.buildCoreAbstraction(ta);
         }
 
         // Constructor for child node
-        public Node(String name, ProgramAbstraction ta) {
-            this.children = new HashMap<>();
+        public Node(String name, DeltaDecl delta, Product product) {
+            this.children = new LinkedHashMap<>();
             this.deltaID = name;
-            this.ta = ta;
+            this.delta = delta;
+            this.product = product;
         }
 
         /** Add a word to the trie
@@ -81,14 +156,10 @@ public class DeltaTrie {
                 // node already exists
                 nextNode = children.get(word.get(d));
             } else {
-                ProgramAbstraction nextTA = new ProgramAbstraction(ta);
-                nextNode = new Node(word.get(d), nextTA);
-
-                // Apply delta to nextNode's program type abstraction
-                DeltaDecl delta = model.getDeltaDeclsMap().get(nextNode.deltaID);
-                nextTA.applyDelta(delta, product);
-
+                DeltaDecl delta = model.getDeltaDeclsMap().get(word.get(d));
+                nextNode = new Node(word.get(d), delta, product);
                 children.put(word.get(d), nextNode);
+                nodes.add(nextNode);
                 //System.out.print("*");
             }
 
@@ -102,6 +173,21 @@ public class DeltaTrie {
         }
 
 
+        // Apply delta to a copy of the parent's program type abstraction
+        protected void computeAbstraction(ProgramAbstraction parentTA) {
+            ta = new ProgramAbstraction(parentTA, errors);
+            ta.applyDelta(delta, product);
+        }
+
+        protected void computeSubtree(ProgramAbstraction parentTA, boolean retainAbstractions) {
+            if (parentTA != null)
+                computeAbstraction(parentTA);
+            for (Node child : children.values())
+                child.computeSubtree(ta, retainAbstractions);
+            if (!retainAbstractions)
+                ta = null;
+        }
+
         // Getters
         public Map<String, Node> getChildren() {
             return children;
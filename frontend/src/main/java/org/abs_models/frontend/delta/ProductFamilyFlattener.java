@@ -0,0 +1,243 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.delta;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.abs_models.frontend.ast.ASTNode;
+import org.abs_models.frontend.ast.ClassDecl;
+import org.abs_models.frontend.ast.CompilationUnit;
+import org.abs_models.frontend.ast.Decl;
+import org.abs_models.frontend.ast.DeltaClause;
+import org.abs_models.frontend.ast.DeltaDecl;
+import org.abs_models.frontend.ast.Deltaparam;
+import org.abs_models.frontend.ast.Model;
+import org.abs_models.frontend.ast.ModuleDecl;
+import org.abs_models.frontend.ast.ModuleModifier;
+import org.abs_models.frontend.ast.Product;
+import org.abs_models.frontend.ast.ProductLine;
+
+/**
+ * Flattens a model for many products, applying each delta once per
+ * distinct prefix of the products' delta sequences instead of once per
+ * product.
+ *
+ * The delta sequences of all products are arranged in a trie, where a
+ * delta with parameters is identified by its name and the values of its
+ * arguments.  The trie is traversed depth-first on a single model: on
+ * the way down, a delta is applied to the model; on the way back up, its
+ * changes are undone.  Deltas only add and remove declarations, imports
+ * and exports of modules, or change declarations in place, so undoing a
+ * delta restores the changed lists of the modules and puts back the
+ * declarations that were copied before the delta changed them
+ * (copy-before-write).  The declarations not touched by a delta are
+ * shared by all products.
+ *
+ * The result of <code>flattenAll</code> for a product is the same as that
+ * of <code>Model.flattenForProduct(Product)</code> on a fresh copy of the
+ * model.
+ */
+public class ProductFamilyFlattener {
+
+    /**
+     * Called with each flattened product.  The model is only valid during
+     * the call; it is changed for the next product afterwards.
+     */
+    public interface ProductConsumer {
+        void accept(Product product, Model model) throws DeltaModellingException;
+    }
+
+    private final Model model;
+    private final ProductLine pl;
+    private final Node root = new Node(null, null);
+
+    public ProductFamilyFlattener(Model model) throws DeltaModellingException {
+        this.model = model;
+        this.pl = model.getProductLine();
+        if (pl == null)
+            throw new DeltaModellingException("Model is missing a 'productline' definition");
+    }
+
+    /**
+     * Adds a product to be flattened.
+     */
+    public void addProduct(Product product) throws DeltaModellingException {
+        Set<String> deltaids = pl.findApplicableDeltas(product);
+        Node node = root;
+        for (String deltaid : pl.sortDeltas(deltaids)) {
+            DeltaDecl delta = model.getDeltaDeclsMap().get(deltaid);
+            String key = delta.getNumParam() == 0 ? deltaid : deltaid + argumentValues(deltaid, product);
+            Node child = node.children.get(key);
+            if (child == null) {
+                child = new Node(delta, product);
+                node.children.put(key, child);
+            }
+            node = child;
+        }
+        node.products.add(product);
+    }
+
+    /**
+     * The values of the arguments of the given delta in the given product,
+     * taken from the same delta clause as in
+     * <code>ProductLine.substituteDeltaParams</code>.
+     */
+    private String argumentValues(String deltaid, Product product) throws DeltaModellingException {
+        StringBuilder result = new StringBuilder("(");
+        for (DeltaClause clause : pl.getDeltaClauses()) {
+            if (deltaid.equals(clause.getDeltaspec().getDeltaID()) && clause.isApplicable(product)) {
+                String sep = "";
+                for (Deltaparam param : clause.getDeltaspec().getDeltaparams()) {
+                    result.append(sep).append(param.calcValue(product.getFeatures()).getName());
+                    sep = ",";
+                }
+                break;
+            }
+        }
+        return result.append(")").toString();
+    }
+
+    /**
+     * Flattens the model for all added products, calling
+     * <code>consumer</code> with each of them.  Products are visited in
+     * trie order, not in the order they were added.  Afterwards, the
+     * model is in its original state, except that traits have been
+     * applied.
+     */
+    public void flattenAll(ProductConsumer consumer) throws DeltaModellingException {
+        model.applyTraits();
+        visit(root, consumer);
+    }
+
+    private void visit(Node node, ProductConsumer consumer) throws DeltaModellingException {
+        for (Product product : node.products) {
+            Undo undo = new Undo();
+            try {
+                for (ModuleDecl module : model.getModuleDecls()) {
+                    for (Decl decl : module.getDecls()) {
+                        if (decl instanceof ClassDecl && !((ClassDecl)decl).getDeltaMap().isEmpty()) {
+                            ((ClassDecl)undo.copyBeforeWrite(decl)).computeDelete();
+                        }
+                    }
+                }
+                model.flushTreeCache();
+                consumer.accept(product, model);
+            } finally {
+                undo.restore();
+                model.flushTreeCache();
+            }
+        }
+        for (Node child : node.children.values()) {
+            Undo undo = new Undo();
+            try {
+                apply(child, undo);
+                visit(child, consumer);
+            } finally {
+                undo.restore();
+                flushModuleCaches();
+            }
+        }
+    }
+
+    private void apply(Node node, Undo undo) throws DeltaModellingException {
+        DeltaDecl delta = node.delta;
+        if (delta.getNumParam() > 0) {
+            // substitution changes the delta, so substitute in a copy
+            DeltaDecl copy = delta.treeCopyNoTransform();
+            undo.replace(delta, copy);
+            pl.substituteDeltaParams(Collections.singletonList(copy), node.product);
+            delta = copy;
+        }
+        for (ModuleModifier mod : delta.getModuleModifiers()) {
+            ModuleDecl module = mod.findModule();
+            undo.save(module.getDeclListNoTransform());
+            undo.save(module.getImportListNoTransform());
+            undo.save(module.getExportListNoTransform());
+            Decl decl = mod.findModifiedDecl();
+            if (decl != null) {
+                undo.copyBeforeWrite(decl);
+            }
+            mod.apply();
+        }
+        flushModuleCaches();
+    }
+
+    private void flushModuleCaches() {
+        for (CompilationUnit unit : model.getCompilationUnits())
+            for (ModuleDecl module : unit.getModuleDecls())
+                module.flushCache();
+    }
+
+    /** A delta application in the trie */
+    private static class Node {
+        final DeltaDecl delta;
+        /** A product in which the delta has these arguments */
+        final Product product;
+        final Map<String, Node> children = new LinkedHashMap<>();
+        final List<Product> products = new ArrayList<>();
+
+        Node(DeltaDecl delta, Product product) {
+            this.delta = delta;
+            this.product = product;
+        }
+    }
+
+    /**
+     * The lists changed while applying a delta, with their children
+     * before the change.
+     */
+    @SuppressWarnings({ "rawtypes", "unchecked" })
+    private static class Undo {
+        private final Map<ASTNode, ASTNode[]> saved = new IdentityHashMap<>();
+        private final Map<ASTNode, Boolean> copies = new IdentityHashMap<>();
+
+        void save(ASTNode list) {
+            if (!saved.containsKey(list)) {
+                ASTNode[] children = new ASTNode[list.getNumChildNoTransform()];
+                for (int i = 0; i < children.length; i++) {
+                    children[i] = list.getChildNoTransform(i);
+                }
+                saved.put(list, children);
+            }
+        }
+
+        void replace(ASTNode node, ASTNode copy) {
+            ASTNode list = node.getParent();
+            save(list);
+            list.setChild(copy, list.getIndexOfChild(node));
+            copies.put(copy, Boolean.TRUE);
+        }
+
+        /**
+         * Replaces <code>decl</code> by a copy that can be changed, unless
+         * it was copied for this delta already.
+         */
+        Decl copyBeforeWrite(Decl decl) {
+            if (copies.containsKey(decl)) return decl;
+            Decl copy = decl.copyForDelta();
+            replace(decl, copy);
+            return copy;
+        }
+
+        void restore() {
+            for (Map.Entry<ASTNode, ASTNode[]> e : saved.entrySet()) {
+                ASTNode list = e.getKey();
+                for (int i = list.getNumChildNoTransform() - 1; i >= 0; i--) {
+                    list.removeChild(i);
+                }
+                for (ASTNode child : e.getValue()) {
+                    list.addChild(child);
+                }
+            }
+            saved.clear();
+            copies.clear();
+        }
+    }
+}
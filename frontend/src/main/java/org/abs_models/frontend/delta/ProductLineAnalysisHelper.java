@@ -54,7 +54,8 @@ public class ProductLineAnalysisHelper {
         // Build the product family generation trie. Hereby check that
         // - product generation mapping is total
         // - TODO all products are well-typed programs
-        DeltaTrie pfgt = buildPFGT(pl, errors);
+        int threads = pl.getModel().productLineTypeCheckThreads;
+        DeltaTrie pfgt = buildPFGT(pl, errors, threads, false);
 
         if (pl.getModel().debug) {
             //System.out.println("Trie height:\n" + pfgt.height());
@@ -101,6 +102,15 @@ public class ProductLineAnalysisHelper {
 
 
     public static DeltaTrie buildPFGT(ProductLine pl, SemanticConditionList errors) {
+        return buildPFGT(pl, errors, 1, true);
+    }
+
+    /*
+     * Build the trie and compute its program abstractions on the given number
+     * of threads.  Unless retainAbstractions is set, only the trie structure is
+     * kept afterwards.
+     */
+    public static DeltaTrie buildPFGT(ProductLine pl, SemanticConditionList errors, int threads, boolean retainAbstractions) {
         Model model = pl.getModel();
         DeltaTrie trie = new DeltaTrie(model, errors);
 
@@ -110,6 +120,7 @@ public class ProductLineAnalysisHelper {
             List<String> productGenerationString = pl.sortDeltas(applicableDeltas);
             trie.addWord(productGenerationString, product);
         }
+        trie.computeAbstractions(threads, retainAbstractions);
         return trie;
     }
 
@@ -227,14 +238,18 @@ public class ProductLineAnalysisHelper {
      * Build all SPL configurations (valid feature selections, ignoring attributes), one by one
      * The purpose is to measure how long this takes, so we can compare it with the performance of type checking the SPL.
      *
+     * The products are flattened with a ProductFamilyFlattener, so deltas
+     * shared by several products are applied once.
      */
     public static void buildAndPrintAllConfigurations(Model m) {
 
-        long timeSum = 0;
+        Model thisModel = m.treeCopyNoTransform();
+        ProductFamilyFlattener flattener = new ProductFamilyFlattener(thisModel);
+
         for (Product product : m.getProductList()) {
 
             long time0 = System.currentTimeMillis();
-            System.out.println("\u23F1 Flattening product: " + product.getFeatureSetAsString());
+            System.out.println("\u23F1 Configuring product: " + product.getFeatureSetAsString());
 
             // Find a solution to the feature model that satisfies the product feature selection
             ChocoSolver s = m.instantiateCSModel();
@@ -265,19 +280,20 @@ public class ProductLineAnalysisHelper {
                     }
                 }
             }
+            flattener.addProduct(product);
 
             long time2 = System.currentTimeMillis();
-
-            Model thisModel = m.treeCopyNoTransform();
-
-            long time3 = System.currentTimeMillis();
-            thisModel.flattenForProduct(product);
-
-            long time4 = System.currentTimeMillis();
-            timeSum += (time4 - time3);
-            System.out.println("\u23F1 Time: " + (time1 - time0) + " | " + (time2 - time1) + " | " + (time3 - time2) + " | " + (time4 - time3) + " | " + "Total(s): " + ((time4 - time0)/1000.0));
+            System.out.println("\u23F1 Time: " + (time1 - time0) + " | " + (time2 - time1) + " | " + "Total(s): " + ((time2 - time0)/1000.0));
         }
-        System.out.println("\u23F1 Flattening total time (s): " + timeSum/1000.0);
+
+        long time0 = System.currentTimeMillis();
+        long[] time = { time0 };
+        flattener.flattenAll((product, model) -> {
+            long now = System.currentTimeMillis();
+            System.out.println("\u23F1 Flattened product: " + product.getFeatureSetAsString() + " | Time: " + (now - time[0]));
+            time[0] = now;
+        });
+        System.out.println("\u23F1 Flattening total time (s): " + (System.currentTimeMillis() - time0)/1000.0);
     }
 
 }
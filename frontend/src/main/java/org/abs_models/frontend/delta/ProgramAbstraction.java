@@ -59,7 +59,12 @@ public class ProgramAbstraction {
 
     // Copy constructor
     public ProgramAbstraction(ProgramAbstraction sourceTA) {
-        this.errors = sourceTA.errors;
+        this(sourceTA, sourceTA.errors);
+    }
+
+    // Copy constructor, reporting errors of the copy to another list
+    public ProgramAbstraction(ProgramAbstraction sourceTA, SemanticConditionList errors) {
+        this.errors = errors;
         this.deltas = new ArrayList<>(sourceTA.deltas);
         classes = new HashMap<>();
         for (String className : sourceTA.classes.keySet()) {
@@ -87,6 +87,20 @@ public class ASTPreProcessor {
         return s.toString();
     }
 
+    /**
+     * The import of the standard library added to modules that do not
+     * import it.  A named class rather than an anonymous one, so that
+     * preprocessed units can be serialized (see {@link StdLibSnapshot}).
+     */
+    private static class ImplicitStdLibImport extends StarImport {
+        ImplicitStdLibImport() {
+            super(Constants.STDLIB_NAME);
+        }
+
+        @Override
+        public int getEndLine() { return -1; }
+    }
+
     /**
      * Perform various preprocessing steps after creating an AST.  This
      * routine is typically called after parsing but before type-checking.
@@ -123,7 +137,7 @@ public class ASTPreProcessor {
                     needsImport = false;
             }
             if (needsImport) {
-                moduleDecl.getImports().add(new StarImport(Constants.STDLIB_NAME) {public int getEndLine() { return -1; }});
+                moduleDecl.getImports().add(new ImplicitStdLibImport());
             }
         }
         if (moduleDecl.hasBlock()) {
@@ -0,0 +1,89 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.parser;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.PrintStream;
+
+import org.abs_models.Absc;
+import org.abs_models.backend.java.codegeneration.IncrementalJavaCode;
+
+/**
+ * The compiler server started by <code>absc --daemon</code>.
+ *
+ * The daemon reads commands from standard input, one per line:
+ * <ul>
+ * <li><code>compile</code> or an empty line: compile the files and
+ * directories given on the command line, with the given options, and
+ * print the same messages as <code>absc</code> without
+ * <code>--daemon</code>, followed by a line <code>absc-daemon: done
+ * <i>exitcode</i></code>.
+ * <li><code>quit</code>: exit.
+ * </ul>
+ *
+ * Between compilations, the daemon keeps the parsed files (see {@link
+ * ParseCache}) and, for the Java backend, the generated code (see {@link
+ * IncrementalJavaCode}).  Name resolution and type checking are attributes
+ * of the whole model and are computed anew on each compilation, so that the
+ * reported errors are the same as in a cold run.
+ */
+public class CompilerDaemon {
+
+    public static final String DONE = "absc-daemon: done ";
+
+    private final Absc arguments;
+
+    public CompilerDaemon(Absc arguments) {
+        this.arguments = arguments;
+        arguments.parseCache = new ParseCache();
+        arguments.incrementalJavaCode = new IncrementalJavaCode();
+    }
+
+    /**
+     * Processes commands until <code>quit</code> or the end of the input.
+     *
+     * @return the exit code of the last compilation
+     */
+    public int run(BufferedReader in, PrintStream out) {
+        int result = 0;
+        try {
+            String line;
+            while ((line = in.readLine()) != null) {
+                line = line.trim();
+                if (line.equals("quit")) {
+                    break;
+                } else if (line.isEmpty() || line.equals("compile")) {
+                    result = compile();
+                    out.println(DONE + result);
+                } else {
+                    out.println("absc-daemon: unknown command " + line + " (expected compile or quit)");
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            System.err.println("absc-daemon: could not read command: " + e.getMessage());
+            result = 1;
+        }
+        return result;
+    }
+
+    /**
+     * Compiles the model once.
+     *
+     * @return the exit code of the compilation
+     */
+    int compile() {
+        ParseCache cache = arguments.parseCache;
+        cache.startCompilation();
+        int result = new Main().runBackends(arguments);
+        cache.endCompilation();
+        if (arguments.verbose) {
+            System.out.println("Parsed " + cache.getParsedFileCount() + " of "
+                               + cache.getFileCount() + " files");
+        }
+        return result;
+    }
+}
@@ -5,17 +5,26 @@
 package org.abs_models.frontend.parser;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
 import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.Iterator;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.jar.JarEntry;
 
 import org.abs_models.Absc;
@@ -29,6 +38,7 @@ import org.abs_models.backend.outline.OutlinePrinterBackEnd;
 import org.abs_models.backend.prettyprint.PrettyPrinterBackEnd;
 import org.abs_models.backend.prolog.PrologBackend;
 import org.abs_models.common.Constants;
+import org.abs_models.common.Timings;
 import org.abs_models.common.WrongProgramArgumentException;
 import org.abs_models.frontend.analyser.SemanticCondition;
 import org.abs_models.frontend.analyser.SemanticConditionList;
@@ -59,6 +69,7 @@ import org.antlr.v4.runtime.ANTLRInputStream;
 import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.tree.ParseTree;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.apache.commons.io.IOUtils;
 
 /**
  * @author rudi
@@ -80,9 +91,26 @@ public class Main {
     }
 
     public int mainMethod(Absc arguments) {
+        if (arguments.daemon) {
+            return new CompilerDaemon(arguments).run(new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8)),
+                                                    System.out);
+        }
+        return runBackends(arguments);
+    }
+
+    /**
+     * Compiles the model once with the backends selected in
+     * <code>arguments</code>, or only type-checks it if no backend is
+     * selected.
+     *
+     * @return the exit code of the compiler
+     */
+    int runBackends(Absc arguments) {
         int result = 0;
         boolean done = false;
         this.arguments = arguments;
+        if (arguments.timings_table || arguments.timings_json)
+            arguments.timings = new Timings();
         try {
             if (arguments.backend != null) {
                 if (arguments.backend.maude) {
@@ -150,6 +178,8 @@ public class Main {
             printError(e.getMessage());
             result = 1;
         }
+        if (arguments.timings.isEnabled())
+            arguments.timings.print(System.err, arguments.timings_json);
         return result;
     }
 
@@ -163,17 +193,20 @@ public class Main {
 
     // entry point for unit tests who just want to parse one or more files
     public Model parse(final java.util.List<File> args) throws IOException, DeltaModellingException, WrongProgramArgumentException, InternalBackendException {
-        Model m = parseFiles(this.arguments.verbose, args);
+        Model m;
+        try (Timings.Phase p = arguments.timings.start("parse")) {
+            m = parseFiles(this.arguments.verbose, arguments.timings, arguments.parseCache, args);
+        }
         analyzeFlattenAndRewriteModel(m);
         return m;
     }
 
-    private static Model parseFiles(boolean verbose, final java.util.List<File> fileNames) throws IOException, InternalBackendException {
+    static Model parseFiles(boolean verbose, Timings timings, ParseCache cache, final java.util.List<File> fileNames) throws IOException, InternalBackendException {
         if (fileNames.isEmpty()) {
             throw new IllegalArgumentException("Please provide at least one input file");
         }
 
-        java.util.List<CompilationUnit> units = new ArrayList<>();
+        java.util.List<Callable<CompilationUnit>> sources = new ArrayList<>();
 
         for (File f : fileNames) {
             if (!f.canRead()) {
@@ -186,13 +219,16 @@ public class Main {
         }
 
         for (File f : fileNames) {
-            parseFileOrDirectory(units, f, verbose);
+            parseFileOrDirectory(sources, f, verbose, timings, cache);
         }
-
-	units.add(getStdLib());
+        byte[] stdlib = getStdLibSource();
+        sources.add(() -> {
+                if (cache == null) return getStdLib(stdlib, timings);
+                return cache.get(ABS_STD_LIB, stdlib, c -> getStdLib(c, timings));
+            });
 
         List<CompilationUnit> unitList = new List<>();
-        for (CompilationUnit u : units) {
+        for (CompilationUnit u : parseConcurrently(sources)) {
             unitList.add(u);
         }
 
@@ -200,6 +236,58 @@ public class Main {
         return m;
     }
 
+    /**
+     * Runs the given parse tasks on a worker pool.  The resulting
+     * compilation units are returned in the order of the tasks, so that
+     * the model does not depend on which file finished parsing first.  If
+     * tasks fail, the exception of the first one in order is thrown.
+     */
+    private static java.util.List<CompilationUnit> parseConcurrently(java.util.List<Callable<CompilationUnit>> sources) throws IOException {
+        java.util.List<Future<CompilationUnit>> futures = new ArrayList<>();
+        int nThreads = Math.min(sources.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService pool = null;
+        try {
+            if (nThreads <= 1) {
+                for (Callable<CompilationUnit> source : sources) {
+                    FutureTask<CompilationUnit> task = new FutureTask<>(source);
+                    task.run();
+                    futures.add(task);
+                }
+            } else {
+                pool = Executors.newFixedThreadPool(nThreads, r -> {
+                        Thread t = new Thread(r, "absc-parser");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                for (Callable<CompilationUnit> source : sources) {
+                    futures.add(pool.submit(source));
+                }
+            }
+            java.util.List<CompilationUnit> result = new ArrayList<>();
+            for (Future<CompilationUnit> future : futures) {
+                result.add(getParseResult(future));
+            }
+            return result;
+        } finally {
+            if (pool != null) pool.shutdownNow();
+        }
+    }
+
+    private static CompilationUnit getParseResult(Future<CompilationUnit> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while parsing");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            if (cause instanceof Error) throw (Error) cause;
+            throw new IOException(cause);
+        }
+    }
+
     /**
      * This horrible method does too many things and needs to be in every code
      * path that expects a working model, especially when products are
@@ -214,6 +302,7 @@ public class Main {
     private void analyzeFlattenAndRewriteModel(Model m) throws WrongProgramArgumentException, DeltaModellingException, FileNotFoundException {
         m.verbose = arguments.verbose;
         m.debug = arguments.debug;
+        m.timings = arguments.timings;
         m.doAACrewrite = !arguments.prettyprint_keepsugar;
         m.doForEachRewrite = !arguments.prettyprint_keepsugar;
 
@@ -226,21 +315,30 @@ public class Main {
             return;
         }
 
-        m.evaluateAllProductDeclarations(); // resolve ProductExpressions to simple sets of features
-        rewriteModel(m, arguments.product);
-        m.flattenTraitOnly();
-        m.collapseTraitModifiers();
+        Timings timings = arguments.timings;
+        try (Timings.Phase p = timings.start("rewrite model")) {
+            m.evaluateAllProductDeclarations(); // resolve ProductExpressions to simple sets of features
+            rewriteModel(m, arguments.product);
+        }
+        try (Timings.Phase p = timings.start("apply traits")) {
+            m.flattenTraitOnly();
+            m.collapseTraitModifiers();
+        }
 
-        m.expandPartialFunctions();
-        m.expandForeachLoops();
-        m.expandAwaitAsyncCalls();
+        try (Timings.Phase p = timings.start("expand syntactic sugar")) {
+            m.expandPartialFunctions();
+            m.expandForeachLoops();
+            m.expandAwaitAsyncCalls();
+        }
 
         if (arguments.product != null) {
             // apply deltas that correspond to arguments.productproduct
-            if (arguments.notypecheck) {
-                m.flattenForProductUnsafe(arguments.product);
-            } else {
-                m.flattenForProduct(arguments.product);
+            try (Timings.Phase p = timings.start("apply deltas")) {
+                if (arguments.notypecheck) {
+                    m.flattenForProductUnsafe(arguments.product);
+                } else {
+                    m.flattenForProduct(arguments.product);
+                }
             }
         }
 
@@ -249,7 +347,10 @@ public class Main {
             m.dump(System.out);
         }
 
-        final SemanticConditionList semErrs = m.getErrors();
+        final SemanticConditionList semErrs;
+        try (Timings.Phase p = timings.start("semantic checks")) {
+            semErrs = m.getErrors();
+        }
 
         if (semErrs.containsErrors()) {
             System.err.println("Semantic errors: " + semErrs.getErrorCount());
@@ -352,10 +453,19 @@ public class Main {
 
             registerNullableTypeChecking(m);
             registerLocationTypeChecking(m);
-            SemanticConditionList typeerrors = m.typeCheck();
+            SemanticConditionList typeerrors;
+            try (Timings.Phase p = arguments.timings.start("typecheck")) {
+                typeerrors = m.typeCheck();
+            }
             for (SemanticCondition se : typeerrors) {
                 System.err.println(se.getHelpMessage());
             }
+            // The backends read inferred location types from cached types
+            if (arguments.compactAst && !arguments.locationTypeInferenceEnabled) {
+                try (Timings.Phase p = arguments.timings.start("flush attribute caches")) {
+                    m.flushSubtreeCaches();
+                }
+            }
         }
     }
 
@@ -395,7 +505,7 @@ public class Main {
         }
     }
 
-    private static void parseFileOrDirectory(java.util.List<CompilationUnit> units, File file, boolean verbose)
+    private static void parseFileOrDirectory(java.util.List<Callable<CompilationUnit>> sources, File file, boolean verbose, Timings timings, ParseCache cache)
 	throws IOException
     {
 	if (!file.canRead()) {
@@ -403,16 +513,16 @@ public class Main {
 	}
 
         if (file.isDirectory()) {
-            parseDirectory(units, file, verbose);
+            parseDirectory(sources, file, verbose, timings, cache);
         } else {
             if (isABSSourceFile(file))
-                parseABSSourceFile(units,file, verbose);
+                parseABSSourceFile(sources, file, verbose, timings, cache);
             else if (isABSPackageFile(file))
-                parseABSPackageFile(units,file, verbose);
+                parseABSPackageFile(sources, file, verbose, timings, cache);
         }
     }
 
-    private static void parseABSPackageFile(java.util.List<CompilationUnit> units, File file, boolean verbose) throws IOException {
+    private static void parseABSPackageFile(java.util.List<Callable<CompilationUnit>> sources, File file, boolean verbose, Timings timings, ParseCache cache) throws IOException {
         ABSPackageFile jarFile = new ABSPackageFile(file);
         try {
             if (!jarFile.isABSPackage())
@@ -422,7 +532,7 @@ public class Main {
                 JarEntry jarEntry = e.nextElement();
                 if (!jarEntry.isDirectory()) {
                     if (jarEntry.getName().endsWith(".abs")) {
-                        parseABSSourceFile(units, "jar:"+file.toURI()+"!/"+jarEntry.getName(), jarFile.getInputStream(jarEntry), verbose);
+                        parseABSSourceFile(sources, "jar:"+file.toURI()+"!/"+jarEntry.getName(), jarFile.getInputStream(jarEntry), verbose, timings, cache);
                     }
                 }
             }
@@ -431,12 +541,12 @@ public class Main {
         }
     }
 
-    private static void parseDirectory(java.util.List<CompilationUnit> units, File file, boolean verbose) throws IOException {
+    private static void parseDirectory(java.util.List<Callable<CompilationUnit>> sources, File file, boolean verbose, Timings timings, ParseCache cache) throws IOException {
         if (file.canRead() && !file.isHidden()) {
             for (File f : file.listFiles()) {
                 if (f.isFile() && !isABSSourceFile(f) && !isABSPackageFile(f))
                     continue;
-                parseFileOrDirectory(units, f, verbose);
+                parseFileOrDirectory(sources, f, verbose, timings, cache);
             }
         }
     }
@@ -458,20 +568,25 @@ public class Main {
         return f.getName().endsWith(".abs") || f.getName().endsWith(".mtvl");
     }
 
-    private static void parseABSSourceFile(java.util.List<CompilationUnit> units, String name, InputStream inputStream, boolean verbose) throws IOException {
-        parseABSSourceFile(units, new File(name), new InputStreamReader(inputStream, "UTF-8"), verbose);
+    private static void parseABSSourceFile(java.util.List<Callable<CompilationUnit>> sources, String name, InputStream inputStream, boolean verbose, Timings timings, ParseCache cache) throws IOException {
+        // The jar file is closed before the parse tasks run, so read the
+        // entry right away
+        byte[] content = IOUtils.toByteArray(inputStream);
+        parseABSSourceFile(sources, new File(name), () -> content, verbose, timings, cache);
     }
 
-    private static void parseABSSourceFile(java.util.List<CompilationUnit> units, File file, boolean verbose) throws IOException {
-        BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"));
-        parseABSSourceFile(units, file, reader, verbose);
+    private static void parseABSSourceFile(java.util.List<Callable<CompilationUnit>> sources, File file, boolean verbose, Timings timings, ParseCache cache) throws IOException {
+        parseABSSourceFile(sources, file, () -> Files.readAllBytes(file.toPath()), verbose, timings, cache);
     }
 
-    private static void parseABSSourceFile(java.util.List<CompilationUnit> units, File file, Reader reader, boolean verbose) throws IOException {
+    private static void parseABSSourceFile(java.util.List<Callable<CompilationUnit>> sources, File file, Callable<byte[]> content, boolean verbose, Timings timings, ParseCache cache) throws IOException {
         if (verbose) {
             System.out.println("Parsing file " + file.getPath());//getAbsolutePath());
         }
-        units.add(parseUnit(file, reader));
+        sources.add(() -> {
+                if (cache == null) return parseUnit(file, content.call(), timings);
+                return cache.get(file.getPath(), content.call(), c -> parseUnit(file, c, timings));
+            });
     }
 
     protected static void printErrorMessage() {
@@ -491,7 +606,37 @@ public class Main {
     }
 
 
-    private static CompilationUnit getStdLib() throws IOException, InternalBackendException {
+    /**
+     * Returns the parsed standard library.  The standard library is loaded
+     * from the pre-parsed snapshot if it is up to date, and parsed from
+     * source otherwise.
+     *
+     * @param source The content of the standard library source
+     */
+    private static CompilationUnit getStdLib(byte[] source, Timings timings) throws IOException {
+        long start = System.nanoTime();
+        long allocated = timings.isEnabled() ? Timings.allocatedBytes() : 0;
+        CompilationUnit u = StdLibSnapshot.load(source);
+        if (u != null) {
+            if (timings.isEnabled())
+                timings.add(ABS_STD_LIB + " (snapshot)", System.nanoTime() - start,
+                            Timings.allocatedBytes() - allocated);
+            return u;
+        }
+        return parseStdLib(source, timings);
+    }
+
+    /**
+     * Parses the standard library from source.
+     */
+    static CompilationUnit parseStdLib(byte[] source, Timings timings) throws IOException {
+        return parseUnit(new File(ABS_STD_LIB), source, timings);
+    }
+
+    /**
+     * @return the content of the standard library source on the class path
+     */
+    static byte[] getStdLibSource() throws IOException, InternalBackendException {
         InputStream stream = Main.class.getClassLoader().getResourceAsStream(ABS_STD_LIB);
         if (stream == null) {
             // we're running unit tests; try to find the file in the source tree
@@ -500,7 +645,11 @@ public class Main {
         if (stream == null) {
             throw new InternalBackendException("Could not find ABS Standard Library");
         }
-        return parseUnit(new File(ABS_STD_LIB), new InputStreamReader(stream));
+        try {
+            return IOUtils.toByteArray(stream);
+        } finally {
+            stream.close();
+        }
     }
 
     @Deprecated
@@ -609,40 +758,47 @@ public class Main {
 	// TODO: switch the order of the two next lines, change all
 	// freshly-broken unit tests to use `Model.lookup()' instead
 	// of positional tree-walking
-	units.add(getStdLib());
-	units.add(parseUnit(file, reader));
+	units.add(getStdLib(getStdLibSource(), Timings.DISABLED));
+	units.add(parseUnit(file, reader, Timings.DISABLED));
 	return new Model(units);
     }
 
+    private static CompilationUnit parseUnit(File file, byte[] content, Timings timings) throws IOException {
+        return parseUnit(file, new InputStreamReader(new ByteArrayInputStream(content), StandardCharsets.UTF_8), timings);
+    }
+
     /**
      * Parse the content of `reader` into a CompilationUnit.
      *
      * @param file The filename of the input stream, or null
      * @param reader The stream to parse
-     * @param raiseExceptions Raise parse errors as exceptions if true
+     * @param timings Records the time spent on the file and on AST construction
      * @return The parsed content of `reader`, or an empty CompilationUnit with parse error information
      * @throws IOException
      */
-    private static CompilationUnit parseUnit(File file, Reader reader)
+    private static CompilationUnit parseUnit(File file, Reader reader, Timings timings)
 	throws IOException
     {
+        long start = System.nanoTime();
+        long allocated = timings.isEnabled() ? Timings.allocatedBytes() : 0;
 	try {
 	    SyntaxErrorCollector errorlistener = new SyntaxErrorCollector(file);
-	    ANTLRInputStream input = new ANTLRInputStream(reader);
-	    ABSLexer lexer = new ABSLexer(input);
-	    lexer.removeErrorListeners();
-	    lexer.addErrorListener(errorlistener);
-	    CommonTokenStream tokens = new CommonTokenStream(lexer);
-	    ABSParser aparser = new ABSParser(tokens);
-	    aparser.removeErrorListeners();
-	    aparser.addErrorListener(errorlistener);
-	    ParseTree tree = aparser.goal();
+	    ParseTree tree = parseTree(reader, errorlistener);
 	    if (errorlistener.parserErrors.isEmpty()) {
+		long astStart = System.nanoTime();
+		long astAllocated = timings.isEnabled() ? Timings.allocatedBytes() : 0;
 		ParseTreeWalker walker = new ParseTreeWalker();
 		CreateJastAddASTListener l = new CreateJastAddASTListener(file);
 		walker.walk(l, tree);
-		CompilationUnit u
-		    = new ASTPreProcessor().preprocess(l.getCompilationUnit());
+		CompilationUnit u = l.getCompilationUnit();
+		// The parse tree references all tokens and the whole input;
+		// let it go before working on the AST
+		tree = null;
+		l = null;
+		u = new ASTPreProcessor().preprocess(u);
+		if (timings.isEnabled())
+		    timings.add("AST construction (all files)", System.nanoTime() - astStart,
+				Timings.allocatedBytes() - astAllocated);
 		return u;
 	    } else {
 		String path = "<unknown path>";
@@ -654,7 +810,26 @@ public class Main {
 	    }
 	} finally {
 	    reader.close();
+	    if (timings.isEnabled())
+		timings.add(file == null ? UNKNOWN_FILENAME : file.getPath(), System.nanoTime() - start,
+			    Timings.allocatedBytes() - allocated);
 	}
     }
 
+    /**
+     * Runs the lexer and parser.  Only the returned tree refers to the
+     * token stream afterwards.
+     */
+    private static ParseTree parseTree(Reader reader, SyntaxErrorCollector errorlistener) throws IOException {
+        ANTLRInputStream input = new ANTLRInputStream(reader);
+        ABSLexer lexer = new ABSLexer(input);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(errorlistener);
+        CommonTokenStream tokens = new CommonTokenStream(lexer);
+        ABSParser aparser = new ABSParser(tokens);
+        aparser.removeErrorListeners();
+        aparser.addErrorListener(errorlistener);
+        return aparser.goal();
+    }
+
 }
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.parser;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.abs_models.frontend.ast.CompilationUnit;
+
+/**
+ * Keeps the parsed compilation units of the source files between the
+ * compilations of <code>absc --daemon</code>, so that only changed files
+ * are parsed again.
+ *
+ * The cached units are never part of a model, since analysis rewrites the
+ * tree; every compilation gets a fresh copy.
+ */
+public class ParseCache {
+
+    interface Parser {
+        CompilationUnit parse(byte[] content) throws IOException;
+    }
+
+    private static final class Entry {
+        final byte[] content;
+        final CompilationUnit unit;
+
+        Entry(byte[] content, CompilationUnit unit) {
+            this.content = content;
+            this.unit = unit;
+        }
+    }
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    /** the names looked up since the last call of {@link #startCompilation} */
+    private final Set<String> used = new HashSet<>();
+    private int parsed = 0;
+
+    /**
+     * Returns a copy of the cached compilation unit for the given file if
+     * its content did not change, otherwise parses and caches it.
+     *
+     * @param name the path of the file
+     * @param content the current content of the file
+     * @param parser parses the content
+     */
+    CompilationUnit get(String name, byte[] content, Parser parser) throws IOException {
+        Entry e;
+        synchronized (this) {
+            used.add(name);
+            e = entries.get(name);
+        }
+        if (e == null || !Arrays.equals(e.content, content)) {
+            e = new Entry(content, parser.parse(content));
+            synchronized (this) {
+                entries.put(name, e);
+                parsed++;
+            }
+        }
+        return e.unit.treeCopyNoTransform();
+    }
+
+    /**
+     * Resets the statistics for a new compilation.
+     */
+    public synchronized void startCompilation() {
+        used.clear();
+        parsed = 0;
+    }
+
+    /**
+     * Removes the files that were not part of the last compilation, e.g.,
+     * because they were deleted.
+     */
+    public synchronized void endCompilation() {
+        entries.keySet().retainAll(used);
+    }
+
+    /**
+     * @return the number of files that were parsed, not copied from the
+     * cache, since the last call of {@link #startCompilation}
+     */
+    public synchronized int getParsedFileCount() {
+        return parsed;
+    }
+
+    /**
+     * @return the number of files that were read since the last call of
+     * {@link #startCompilation}
+     */
+    public synchronized int getFileCount() {
+        return used.size();
+    }
+}
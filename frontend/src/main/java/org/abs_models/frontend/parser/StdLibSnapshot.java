@@ -0,0 +1,145 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.NotSerializableException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.abs_models.common.Timings;
+import org.abs_models.frontend.ast.CompilationUnit;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * A pre-parsed copy of the standard library, created at build time by
+ * {@link #main} and bundled into the jar next to the standard library
+ * source, so that the compiler does not have to parse the standard library
+ * on every run.
+ *
+ * The snapshot contains a hash of the source it was created from.  If the
+ * hash does not match the standard library on the class path, or the
+ * snapshot cannot be read (e.g., because the AST classes changed), the
+ * standard library is parsed from source instead.
+ */
+public final class StdLibSnapshot {
+
+    public static final String RESOURCE = "abs/lang/abslang.ser";
+    private static final String MAGIC = "ABS standard library snapshot";
+    private static final int FORMAT_VERSION = 1;
+
+    /** The content of the snapshot resource, read on first use */
+    private static byte[] snapshot;
+    private static boolean snapshotRead = false;
+
+    private StdLibSnapshot() {}
+
+    /**
+     * Creates the standard library snapshot.  Called from the build.
+     *
+     * @param args the name of the snapshot file to write
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length != 1) {
+            System.err.println("Usage: StdLibSnapshot <output file>");
+            System.exit(1);
+        }
+        File out = new File(args[0]);
+        File dir = out.getAbsoluteFile().getParentFile();
+        if (!dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Could not create directory " + dir);
+        }
+        byte[] source = Main.getStdLibSource();
+        CompilationUnit u = Main.parseStdLib(source, Timings.DISABLED);
+        if (u.hasParserErrors()) {
+            throw new IllegalStateException("The standard library has parse errors: " + u.getParserErrors().get(0).getMessage());
+        }
+        try (OutputStream os = new FileOutputStream(out)) {
+            write(u, source, os);
+        } catch (NotSerializableException e) {
+            // Do not break the build; the compiler will parse the standard
+            // library instead
+            System.err.println("WARNING: standard library snapshot not created, "
+                               + e.getMessage() + " is not serializable");
+            out.delete();
+        }
+    }
+
+    static void write(CompilationUnit u, byte[] source, OutputStream out) throws IOException {
+        DataOutputStream header = new DataOutputStream(out);
+        header.writeUTF(MAGIC);
+        header.writeInt(FORMAT_VERSION);
+        byte[] hash = hash(source);
+        header.writeInt(hash.length);
+        header.write(hash);
+        header.flush();
+        GZIPOutputStream zip = new GZIPOutputStream(out);
+        ObjectOutputStream oos = new ObjectOutputStream(zip);
+        oos.writeObject(u);
+        oos.flush();
+        zip.finish();
+    }
+
+    /**
+     * @return the parsed standard library, or null if there is no snapshot
+     * for the given standard library source
+     */
+    static CompilationUnit load(byte[] source) {
+        byte[] data = getSnapshot();
+        if (data == null) return null;
+        return read(new ByteArrayInputStream(data), source);
+    }
+
+    static CompilationUnit read(InputStream in, byte[] source) {
+        try {
+            DataInputStream header = new DataInputStream(in);
+            if (!MAGIC.equals(header.readUTF()) || header.readInt() != FORMAT_VERSION)
+                return null;
+            byte[] hash = new byte[header.readInt()];
+            header.readFully(hash);
+            if (!Arrays.equals(hash, hash(source)))
+                return null;        // stale snapshot
+            try (ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(in))) {
+                return (CompilationUnit) ois.readObject();
+            }
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            // Snapshot written by a different version of the compiler
+            return null;
+        }
+    }
+
+    private static synchronized byte[] getSnapshot() {
+        if (!snapshotRead) {
+            snapshotRead = true;
+            try (InputStream in = Main.class.getClassLoader().getResourceAsStream(RESOURCE)) {
+                if (in != null) snapshot = IOUtils.toByteArray(in);
+            } catch (IOException e) {
+                snapshot = null;
+            }
+        }
+        return snapshot;
+    }
+
+    private static byte[] hash(byte[] source) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(source);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform supports SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
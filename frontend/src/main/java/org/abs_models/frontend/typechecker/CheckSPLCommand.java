@@ -73,6 +73,10 @@ public class CheckSPLCommand implements Callable<Void> {
             description = "check satisfiability of @|italic product|@",
             paramLabel = "product")
     public String checkProduct;
+    @Option(names = { "--threads" },
+            description = "type check @|italic n|@ subtrees of the product family generation trie concurrently (0 for one per core); fewer threads use less memory",
+            paramLabel = "n")
+    public int threads = 1;
 
     private void typeCheckProductLine(Model m) {
 
@@ -84,6 +88,7 @@ public class CheckSPLCommand implements Callable<Void> {
         if (parent.verbose) {
             System.out.println("Typechecking Software Product Line (" + n + " products)...");
         }
+        m.productLineTypeCheckThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
         SemanticConditionList errors = m.typeCheckPL();
         for (SemanticCondition err : errors) {
             System.err.println(err.getHelpMessage());
@@ -0,0 +1,47 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.typechecker.ext;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import org.abs_models.common.Timings;
+
+/**
+ * Forwards all calls to a type system extension, adding the time and
+ * memory spent in it to the timings under the name of its class.  Only
+ * used when timings are enabled, see {@link TypeExtensionHelper}.
+ */
+class TimedTypeSystemExtension implements InvocationHandler {
+    private final TypeSystemExtension target;
+    private final Timings timings;
+    private final String name;
+
+    private TimedTypeSystemExtension(TypeSystemExtension target, Timings timings) {
+        this.target = target;
+        this.timings = timings;
+        this.name = target.getClass().getSimpleName();
+    }
+
+    @Override
+    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+        long start = System.nanoTime();
+        long allocated = Timings.allocatedBytes();
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        } finally {
+            timings.add(name, System.nanoTime() - start, Timings.allocatedBytes() - allocated);
+        }
+    }
+
+    static TypeSystemExtension newInstance(TypeSystemExtension target, Timings timings) {
+        return (TypeSystemExtension) Proxy.newProxyInstance(TimedTypeSystemExtension.class.getClassLoader(),
+                new Class<?>[] { TypeSystemExtension.class },
+                new TimedTypeSystemExtension(target, timings));
+    }
+}
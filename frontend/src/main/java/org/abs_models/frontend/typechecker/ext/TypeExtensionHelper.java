@@ -7,6 +7,7 @@ package org.abs_models.frontend.typechecker.ext;
 import java.util.ArrayList;
 import java.util.HashMap;
 
+import org.abs_models.common.Timings;
 import org.abs_models.frontend.analyser.SemanticConditionList;
 import org.abs_models.frontend.ast.*;
 import org.abs_models.frontend.typechecker.BoundedType;
@@ -18,6 +19,26 @@ import org.abs_models.frontend.typechecker.KindedName.Kind;
 
 public class TypeExtensionHelper implements TypeSystemExtension {
     private java.util.List<TypeSystemExtension> obs = new ArrayList<>();
+    private Timings timings = Timings.DISABLED;
+
+    /**
+     * The extensions that checks are dispatched to: <code>obs</code>, or
+     * wrappers that record the time spent in each of them if timings are
+     * enabled.
+     */
+    private java.util.List<TypeSystemExtension> active = obs;
+
+    private void updateActive() {
+        if (!timings.isEnabled()) {
+            active = obs;
+            return;
+        }
+        java.util.List<TypeSystemExtension> timed = new ArrayList<>(obs.size());
+        for (TypeSystemExtension tse : obs) {
+            timed.add(TimedTypeSystemExtension.newInstance(tse, timings));
+        }
+        active = timed;
+    }
 
     private void registerDefaultExtensions(Model m) {
         register(new ClassKindTypeExtension(m));
@@ -42,12 +63,14 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     }
 
     public void setSemanticConditionList(SemanticConditionList s) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.setSemanticConditionList(s);
         }
     }
 
     public void typeCheckStarted(Model m, SemanticConditionList e) {
+        timings = m.timings;
+        updateActive();
         registerDefaultExtensions(m);
         setSemanticConditionList(e);
     }
@@ -55,15 +78,18 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     public void register(TypeSystemExtension tse) {
         obs = new ArrayList<>(obs);
         obs.add(tse);
+        updateActive();
     }
 
     public void unregister(TypeSystemExtension tse) {
         obs = new ArrayList<>(obs);
         obs.remove(tse);
+        updateActive();
     }
 
     public void clearTypeSystemExtensions() {
         obs = new ArrayList<>();
+        updateActive();
     }
 
     public java.util.List<TypeSystemExtension> getTypeSystemExtensionList() {
@@ -71,14 +97,14 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     }
 
     public void checkMethodCall(Call call) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkMethodCall(call);
         }
     }
 
     @Override
     public void checkOverride(MethodSig impl, MethodSig overriden) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkOverride(impl,overriden);
         }
 
@@ -95,7 +121,7 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     }
 
     public void checkNewExp(NewExp e) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkNewExp(e);
         }
 
@@ -105,13 +131,13 @@ public class TypeExtensionHelper implements TypeSystemExtension {
 
     @Override
     public void checkGetExp(GetExp e) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkGetExp(e);
         }
     }
 
     public void checkAssignStmt(AssignStmt s) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkAssignStmt(s);
         }
 
@@ -120,7 +146,7 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     }
 
     public void checkReturnStmt(ReturnStmt s) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkReturnStmt(s);
         }
 
@@ -161,7 +187,7 @@ public class TypeExtensionHelper implements TypeSystemExtension {
             }
         }
         if (lht.isReferenceType() && rht.isReferenceType()) {
-            for (TypeSystemExtension tse : obs) {
+            for (TypeSystemExtension tse : active) {
                 tse.checkAssignable(adaptTo, dir, rht, lht, n);
             }
         }
@@ -170,7 +196,7 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     @Override
     public void checkAssignableBehaviorType(Type l, Exp r, ASTNode<?> n) {
         if (l.isReferenceType() && r.getType().isReferenceType()) {
-            for (TypeSystemExtension tse : obs) {
+            for (TypeSystemExtension tse : active) {
                 tse.checkAssignableBehaviorType(l, r, n);
             }
         }
@@ -200,7 +226,7 @@ public class TypeExtensionHelper implements TypeSystemExtension {
             }
         }
         if (t.isReferenceType() || t.isNullType()) {
-            for (TypeSystemExtension tse : obs) {
+            for (TypeSystemExtension tse : active) {
                 tse.annotateType(t, originatingNode, typeNode);
             }
         }
@@ -291,119 +317,119 @@ public class TypeExtensionHelper implements TypeSystemExtension {
             }
         }
         if (lht.isReferenceType() && rht.isReferenceType()) {
-            for (TypeSystemExtension tse : obs) {
+            for (TypeSystemExtension tse : active) {
                 tse.checkEq(rht, lht, origin);
             }
         }
     }
 
     public void finished() {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.finished();
         }
     }
 
     @Override
     public void checkClassDecl(ClassDecl decl) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkClassDecl(decl);
         }
     }
 
     @Override
     public void checkInterfaceDecl(InterfaceDecl decl) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkInterfaceDecl(decl);
         }
     }
 
     @Override
     public void checkDataTypeDecl(DataTypeDecl decl) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkDataTypeDecl(decl);
         }
     }
 
     @Override
     public void checkMethodImpl(MethodImpl method) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkMethodImpl(method);
         }
     }
 
     @Override
     public void checkStmt(Stmt s) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkStmt(s);
         }
     }
 
     @Override
     public void checkAssertStmt(AssertStmt assertStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkAssertStmt(assertStmt);
         }
     }
 
     @Override
     public void checkAwaitStmt(AwaitStmt awaitStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkAwaitStmt(awaitStmt);
         }
     }
 
     @Override
     public void checkBlock(Block block) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkBlock(block);
         }
     }
 
     @Override
     public void checkExpressionStmt(ExpressionStmt expressionStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkExpressionStmt(expressionStmt);
         }
     }
 
     @Override
     public void checkIfStmt(IfStmt ifStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkIfStmt(ifStmt);
         }
     }
 
     @Override
     public void checkSuspendStmt(SuspendStmt suspendStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkSuspendStmt(suspendStmt);
         }
     }
 
     @Override
     public void checkVarDeclStmt(VarDeclStmt varDeclStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkVarDeclStmt(varDeclStmt);
         }
     }
 
     @Override
     public void checkDurationStmt(DurationStmt durationStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkDurationStmt(durationStmt);
         }
     }
 
     @Override
     public void checkWhileStmt(WhileStmt whileStmt) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkWhileStmt(whileStmt);
         }
     }
 
     @Override
     public void checkModel(Model model) {
-        for (TypeSystemExtension tse : obs) {
+        for (TypeSystemExtension tse : active) {
             tse.checkModel(model);
         }
     }
@@ -411,5 +437,6 @@ public class TypeExtensionHelper implements TypeSystemExtension {
     public void registerAll(java.util.List<TypeSystemExtension> curr) {
         obs = new ArrayList<>(obs);
         obs.addAll(curr);
+        updateActive();
     }
 }
@@ -18,6 +18,18 @@ public interface BackendTestDriver {
 
     public abstract boolean supportsTimedAbs();
 
+    /**
+     * Whether the backend advances a simulated clock for durations, which
+     * is part of Timed ABS, but without deadlines and resources.
+     */
+    public abstract boolean supportsSimulatedClock();
+
+    /**
+     * Whether the backend models the resources of deployment components,
+     * i.e., <code>Cost</code> and <code>DataSize</code> annotations.
+     */
+    public abstract boolean supportsResources();
+
     public abstract boolean supportsCustomSchedulers();
     
     public abstract boolean supportsExceptions();
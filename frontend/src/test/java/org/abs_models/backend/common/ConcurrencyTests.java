@@ -113,6 +113,17 @@ public class ConcurrencyTests extends SemanticTests {
                 +"{ Bool testresult = False; List<Fut<Unit>> fs = Nil; Fut<Unit> f; I a = new C(); f = a!n(); fs = Cons(f,fs); f = a!n(); f = head(fs); f.get; testresult = True;}");
     }
     
+    @Test
+    public void manyWaitersOnOneFuture() throws Exception {
+        assertEvalTrue("interface G { Bool go(); Unit openGate(); } "
+                + "class Gate implements G { Bool isOpen = False; Bool go() { await isOpen; return True; } Unit openGate() { isOpen = True; } } "
+                + "interface W { Bool awaitIt(Fut<Bool> f); Bool getIt(Fut<Bool> f); } "
+                + "class Worker implements W { Bool awaitIt(Fut<Bool> f) { await f?; return f.get; } Bool getIt(Fut<Bool> f) { return f.get; } } "
+                + "{ Bool testresult = True; G g = new Gate(); Fut<Bool> f = g!go(); List<Fut<Bool>> fs = Nil; Int i = 0; "
+                + "  while (i < 20) { W w = new Worker(); fs = Cons(w!awaitIt(f), Cons(w!getIt(f), fs)); i = i + 1; } "
+                + "  g!openGate(); foreach (r in fs) { testresult = testresult && r.get; } }");
+    }
+
     // ERROR Tests
 
     static String CALL_M_ASYNC_GET_DEADLOCK = "{ Bool testresult = False; I i; i = new local C(); Fut<Bool> fut; fut = i!m(); testresult = fut.get; }";
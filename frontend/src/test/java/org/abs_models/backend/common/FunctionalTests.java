@@ -221,6 +221,15 @@ public class FunctionalTests extends SemanticTests {
         assertEvalTrue("def Bool f() = let (Bool x) = False in let (Bool x) = True in x;" + CALL_F);
     }
 
+    @Test
+    public void tailRecursion() throws Exception {
+        // deep enough to overflow the stack without tail call elimination
+        assertEvalTrue("def List<Int> build(Int n, List<Int> acc) = when n == 0 then acc else build(n - 1, Cons(n, acc)); "
+                       + "def Int sum(List<Int> l, Int acc) = case l { Nil => acc; Cons(x, rest) => let (Int y) = acc + x in sum(rest, y); }; "
+                       + "def A swap<A>(Int n, A a, A b) = when n == 0 then a else swap(n - 1, b, a); "
+                       + "{ Bool testresult = sum(build(1000000, Nil), 0) == 500000500000 && swap(1000001, True, False) == False; }");
+    }
+
     @Test
     public void letExpMultiple() throws Exception {
         assertEvalTrue("def Bool f() = let Bool x = True, Bool y = x in y;" + CALL_F);
@@ -49,6 +49,22 @@ public class PrimitiveTypes extends SemanticTests {
         assertEvalTrue("{ Bool testresult = 92233720368547758070 + 9223372036854775807 == 101457092405402533877;  }");
     }
 
+    @Test
+    public void intAddOverflow() throws Exception {
+        // Long.MAX_VALUE + 1
+        assertEvalTrue("{ Int x = 9223372036854775807; Bool testresult = x + 1 == 9223372036854775808 && x + 1 - 1 == x;  }");
+    }
+
+    @Test
+    public void intMultOverflow() throws Exception {
+        assertEvalTrue("{ Int x = 4294967296; Bool testresult = x * x == 18446744073709551616 && x * x > x;  }");
+    }
+
+    @Test
+    public void intNegateMinLong() throws Exception {
+        assertEvalTrue("{ Int x = -9223372036854775807 - 1; Bool testresult = -x == 9223372036854775808;  }");
+    }
+
     @Test
     public void intSub() throws Exception {
         assertEvalTrue("{ Bool testresult = 10 - 5 == 5;  }");
@@ -132,6 +148,11 @@ public class PrimitiveTypes extends SemanticTests {
         assertEvalTrue("{ Bool testresult = 5/2 + 5/2 == 5;  }");
     }
 
+    @Test
+    public void ratAddOverflow() throws Exception {
+        assertEvalTrue("{ Rat x = 1/9223372036854775807; Bool testresult = x + 1/2 == 9223372036854775809/18446744073709551614;  }");
+    }
+
     @Test
     public void ratSub() throws Exception {
         assertEvalTrue("{ Bool testresult = 10/3 - 1/3 == 3;  }");
@@ -62,6 +62,8 @@ public abstract class SemanticTests {
          */
         data.add(new Object[] { new JavaTestDriver() });
         data.add(new Object[] { new JavaTestDriver(1) });
+        data.add(new Object[] { new JavaTestDriver("-taskscheduler=pool") });
+        data.add(new Object[] { new JavaTestDriver("-virtualthreads") });
         /* XXX [stolz] Disabled due to non-deterministic test-runs.
          * Switch back on when Radu comes back.
          */
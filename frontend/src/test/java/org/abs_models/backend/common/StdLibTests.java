@@ -98,6 +98,53 @@ public class StdLibTests extends SemanticTests {
         assertEvalTrue("{ Map<Int, Int> map = map[Pair(1, 100), Pair(2, 200), Pair(3, 300)]; Bool testresult = put(map, 4, 400) == map[Pair(1, 100), Pair(2, 200), Pair(3, 300), Pair(4, 400)]; }");
     }
 
+    @Test
+    public void mapRemoveKey() throws Exception {
+        assertEvalTrue("{ Map<Int, Int> map = map[Pair(1, 100), Pair(2, 200), Pair(3, 300)]; Bool testresult = removeKey(map, 2) == map[Pair(1, 100), Pair(3, 300)]; }");
+    }
+
+    @Test
+    public void mapPutDuplicateKey() throws Exception {
+        assertEvalTrue("{ Map<Int, Int> map = InsertAssoc(Pair(2, 0), map[Pair(1, 100), Pair(2, 200)]); Bool testresult = put(map, 2, -1) == InsertAssoc(Pair(2, -1), map[Pair(1, 100), Pair(2, 200)]) && lookup(removeKey(map, 2), 2) == Just(200); }");
+    }
+
+    @Test
+    public void mapPutMatch() throws Exception {
+        assertEvalTrue("{ Map<Int, Int> map = put(put(put(map[], 1, 100), 2, 200), 1, -1); Bool testresult = case map { InsertAssoc(Pair(1, -1), InsertAssoc(Pair(2, 200), EmptyMap)) => True; _ => False; }; }");
+    }
+
+    @Test
+    public void setInsertRemove() throws Exception {
+        assertEvalTrue("{ Set<Int> s = remove(insertElement(insertElement(set[3, 1], 2), 2), 3); Bool testresult = s == set[1, 2] && size(s) == 2 && contains(s, 2); }");
+    }
+
+    @Test
+    public void setInsertMatch() throws Exception {
+        // the rest of the sets returned by insertElement and remove is only
+        // computed when needed
+        assertEvalTrue("{ Set<Int> s = insertElement(insertElement(set[3], 1), 2); Bool testresult = case s { Insert(1, Insert(2, Insert(3, EmptySet))) => True; _ => False; } && case remove(s, 1) { Insert(2, rest) => rest == set[3]; _ => False; }; }");
+    }
+
+    @Test
+    public void setInsertElements() throws Exception {
+        assertEvalTrue("{ Set<Int> s = remove(insertElement(insertElement(set[3], 1), 2), 3); Bool testresult = elements(s) == list[1, 2]; }");
+    }
+
+    @Test
+    public void mapPutRemoveKeyMatch() throws Exception {
+        assertEvalTrue("{ Map<Int, Int> map = removeKey(put(put(map[Pair(3, 300)], 1, 100), 2, 200), 3); Bool testresult = case map { InsertAssoc(Pair(1, 100), rest) => rest == map[Pair(2, 200)]; _ => False; }; }");
+    }
+
+    @Test
+    public void mapPutKeysValues() throws Exception {
+        assertEvalTrue("{ Map<Int, Int> map = put(put(map[Pair(3, 300)], 1, 100), 2, 200); Bool testresult = keys(map) == set[1, 2, 3] && values(map) == list[100, 200, 300] && elements(keys(removeKey(map, 2))) == list[1, 3]; }");
+    }
+
+    @Test
+    public void listLength() throws Exception {
+        assertEvalTrue("{ List<Int> list = list[1, 2, 3]; Bool testresult = length(list) == 3 && length(tail(list)) == 2 && nth(list, 0) == 1; }");
+    }
+
     @Test
     public void mapKeys() throws Exception {
         assertEvalTrue("{ Map<Int, Int> map = map[Pair(1, 100), Pair(2, 200), Pair(3, 300)]; Bool testresult = keys(map) == set[1, 2, 3]; }");
@@ -77,42 +77,55 @@ public class TimeTests extends SemanticTests {
 
     @Test
     public void resource_causes_time_advance() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with resource support", driver.supportsResources());
         assertEvalTrue(new File("abssamples/backend/TimeTests/resource_causes_time_advance.abs"));
     }
 
     @Test
     public void resource_causes_time_advance2() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with resource support", driver.supportsResources());
         assertEvalTrue(new File("abssamples/backend/TimeTests/resource_causes_time_advance2.abs"));
     }
 
     @Test
     public void resource_and_methods() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with resource support", driver.supportsResources());
         assertEvalTrue(new File("abssamples/backend/TimeTests/resource_and_methods.abs"));
     }
+
+    @Test
+    public void resource_history() throws Exception {
+        Assume.assumeTrue("Only meaningful with resource support", driver.supportsResources());
+        assertEvalTrue(new File("abssamples/backend/TimeTests/resource_history.abs"));
+    }
+
+    @Test
+    public void resource_history_long_duration() throws Exception {
+        Assume.assumeTrue("Only meaningful with resource support", driver.supportsResources());
+        assertEvalTrue(new File("abssamples/backend/TimeTests/resource_history_long_duration.abs"));
+    }
+
     @Test
     public void no_time_advance1() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with a simulated clock", driver.supportsSimulatedClock());
         assertEvalTrue(new File("abssamples/backend/TimeTests/no_time_advance1.abs"));
     }
 
     @Test
     public void block_vs_await_time_advance() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
-        assertEvalTrue(new File("abssamples/backend/TimeTests/no_time_advance1.abs"));
+        Assume.assumeTrue("Only meaningful with a simulated clock", driver.supportsSimulatedClock());
+        assertEvalTrue(new File("abssamples/backend/TimeTests/block_vs_await_time_advance.abs"));
     }
 
     @Test
     public void time_advance_multiple_await1() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with a simulated clock", driver.supportsSimulatedClock());
         assertEvalTrue(new File("abssamples/backend/TimeTests/time_advance_multiple_await1.abs"));
     }
 
     @Test
     public void time_advance_multiple_await2() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with a simulated clock", driver.supportsSimulatedClock());
         assertEvalTrue(new File("abssamples/backend/TimeTests/time_advance_multiple_await2.abs"));
     }
 
@@ -124,10 +137,17 @@ public class TimeTests extends SemanticTests {
 
     @Test
     public void resource_and_time_advance2() throws Exception {
-        Assume.assumeTrue("Only meaningful with Timed ABS support", driver.supportsTimedAbs());
+        Assume.assumeTrue("Only meaningful with resource support", driver.supportsResources());
         assertEvalTrue(new File("abssamples/backend/TimeTests/resource_and_time_advance2.abs"));
     }
 
+    @Test
+    public void now_advances_with_duration() throws Exception {
+        Assume.assumeTrue("Only meaningful with a simulated clock", driver.supportsSimulatedClock());
+        assertEvalTrue("{ Bool testresult = now() == Time(0); duration(2, 2); testresult = testresult && now() == Time(2);"
+                       + " await duration(1/2, 1/2); testresult = testresult && now() == Time(5/2); }");
+    }
+
     @Test
     public void bug276() throws Exception {
         assertEvalTrue(new File("abssamples/backend/TimeTests/bug276.abs"));
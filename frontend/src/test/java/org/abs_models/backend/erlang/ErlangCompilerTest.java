@@ -0,0 +1,88 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.erlang;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ErlangCompilerTest {
+
+    private File dir;
+    private File src;
+    private File include;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("abserlc").toFile();
+        src = new File(dir, "src");
+        include = new File(dir, "include");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private File write(File d, String name, String content) throws IOException {
+        File f = new File(d, name);
+        FileUtils.writeStringToFile(f, content, StandardCharsets.UTF_8);
+        return f;
+    }
+
+    @Test
+    public void hashesChangeWithSourcesIncludesAndVersions() throws IOException {
+        write(src, "a.erl", "-module(a).");
+        write(src, "b.erl", "-module(b).");
+        write(include, "abs_types.hrl", "-record(r, {x}).");
+        Map<String, String> h1 = ErlangCompiler.hashSources(src, include, "26", "");
+        assertEquals(2, h1.size());
+
+        write(src, "b.erl", "-module(b). -export([]).");
+        Map<String, String> h2 = ErlangCompiler.hashSources(src, include, "26", "");
+        assertEquals(h1.get("a.erl"), h2.get("a.erl"));
+        assertNotEquals(h1.get("b.erl"), h2.get("b.erl"));
+
+        write(include, "abs_types.hrl", "-record(r, {x, y}).");
+        Map<String, String> h3 = ErlangCompiler.hashSources(src, include, "26", "");
+        assertNotEquals(h2.get("a.erl"), h3.get("a.erl"));
+        assertNotEquals(h2.get("b.erl"), h3.get("b.erl"));
+
+        Map<String, String> h4 = ErlangCompiler.hashSources(src, include, "26", "+debug_info");
+        assertNotEquals(h3.get("a.erl"), h4.get("a.erl"));
+
+        Map<String, String> h5 = ErlangCompiler.hashSources(src, include, "27", "");
+        assertNotEquals(h3.get("a.erl"), h5.get("a.erl"));
+    }
+
+    @Test
+    public void partitionKeepsAllFiles() throws IOException {
+        List<File> files = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            files.add(write(src, "m" + i + ".erl", new String(new char[i * 100]).replace('\0', 'x')));
+        }
+        List<List<File>> batches = ErlangCompiler.partition(files, 4);
+        assertEquals(4, batches.size());
+        Set<File> all = new HashSet<>();
+        for (List<File> batch : batches) all.addAll(batch);
+        assertEquals(new HashSet<>(files), all);
+
+        assertEquals(1, ErlangCompiler.partition(files, 1).size());
+        assertEquals(2, ErlangCompiler.partition(files.subList(0, 2), 8).size());
+    }
+}
@@ -447,6 +447,12 @@ public class ErlangTestDriver extends ABSTest implements BackendTestDriver {
     @Override
     public boolean supportsTimedAbs() { return true; }
 
+    @Override
+    public boolean supportsSimulatedClock() { return true; }
+
+    @Override
+    public boolean supportsResources() { return true; }
+
     @Override
     public boolean supportsExceptions() { return true; }
 
@@ -35,7 +35,7 @@ import org.abs_models.frontend.ast.Model;
 public class JavaBackendTest extends ABSTest {
 
     private static final boolean DEBUG = false;
-    private static final String LIB_CLASSPATH = "build/classes/java/main";
+    static final String LIB_CLASSPATH = "build/classes/java/main";
 
     @SuppressWarnings("serial")
     final protected List<String> jvmArgs = new ArrayList<String>() {{ add("-Dabs.terminateOnException=true"); }};
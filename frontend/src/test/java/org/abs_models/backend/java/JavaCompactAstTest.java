@@ -0,0 +1,50 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Collections;
+
+import org.abs_models.backend.java.codegeneration.JavaCode;
+import org.abs_models.frontend.ast.Model;
+import org.abs_models.frontend.parser.Main;
+import org.apache.commons.io.FileUtils;
+import org.junit.Test;
+
+public class JavaCompactAstTest extends JavaBackendTest {
+
+    private static final String MODEL =
+        "module A; export *; data D = D1(Int) | D2(String); def Int f(D d) = case d { D1(x) => x; D2(_) => 0; };"
+        + "interface I { Int m(Int x); } class C implements I { Int m(Int x) { Int y = x; await y > 0; return f(D1(y)); } }"
+        + "module B; import * from A; class E(I i) { Unit run() { List<Int> l = list[1, 2]; foreach (z in l) { Int r = await i!m(z); } } }"
+        + "{ I o = new C(); new E(o); }";
+
+    private String generate(File source, boolean compact) throws Exception {
+        Main main = new Main();
+        main.arguments.compactAst = compact;
+        Model m = main.parse(Collections.singletonList(source));
+        assertFalse(m.hasParserErrors() || m.hasErrors() || m.hasTypeErrors());
+        JavaCode code = JavaCode.inMemory();
+        m.generateJavaCode(code, true);
+        return code.toString();
+    }
+
+    @Test
+    public void sameCodeAfterFlushingCaches() throws Exception {
+        // the generated code contains the file name
+        File dir = Files.createTempDirectory("abscompact").toFile();
+        try {
+            File source = new File(dir, "Model.abs");
+            FileUtils.writeStringToFile(source, MODEL, StandardCharsets.UTF_8);
+            assertEquals(generate(source, false), generate(source, true));
+        } finally {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+}
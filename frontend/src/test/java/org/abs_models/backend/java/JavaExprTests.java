@@ -29,6 +29,26 @@ public class JavaExprTests extends JavaBackendTest {
         assertValid("data Foo = Bar(Bool); def Bool f(Foo x) = case x { Bar(y) => y; }; ");
     }
 
+    @Test
+    public void caseNestedPatterns() throws Exception {
+        assertValid("data Foo = Bar(Int, Bool); def Int f(Pair<Foo, Int> p) = case p { Pair(Bar(1, True), y) => y; Pair(Bar(x, False), _) => x; _ => 0; }; ");
+    }
+
+    @Test
+    public void caseNotInTailPosition() throws Exception {
+        assertValid("def Int f<A>(List<A> l, Int y) = 1 + case l { Nil => y; Cons(_, t) => f(t, y); }; ");
+    }
+
+    @Test
+    public void letShadowing() throws Exception {
+        assertValid("def Int f(Int x) = let (Int x) = x + 1 in let (Int y) = x in y + when x > 0 then let (Int x) = 2 in x else x; ");
+    }
+
+    @Test
+    public void caseInMethod() throws Exception {
+        assertValid("class C(Int f) { Int m(Maybe<Int> v) { Int i = 1; return case v { Just(x) => x + i + f; Nothing => let (Int j) = i in j; }; }}");
+    }
+
     @Test
     public void appendright() throws Exception {
         assertValid("def List<A> appendrightTest<A>(List<A> list, A p) = concatenate(list, Cons(p, Nil));");
@@ -0,0 +1,69 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.abs_models.backend.java.codegeneration.JavaCode;
+import org.abs_models.backend.java.lib.runtime.ABSExpGuard;
+import org.junit.Test;
+
+/**
+ * Tests that await guards are only cached while their read set is known,
+ * see <code>ABSExpGuard</code>.
+ */
+public class JavaGuardTests extends JavaBackendTest {
+
+    private String generate(String absCode) throws Exception {
+        JavaCode javaCode = getJavaCode(absCode);
+        try {
+            return javaCode.toString();
+        } finally {
+            javaCode.deleteCode();
+        }
+    }
+
+    @Test
+    public void fieldGuardHasReadSet() throws Exception {
+        String code = generate("class C { Int a = 0; Int b = 0; Int c = 0; "
+            + "Unit m() { await a > 0 && b > 0; } Unit n() { c = 1; } } { }");
+        assertTrue(code, code.contains("new String[] {\"a\", \"b\"}"));
+    }
+
+    @Test
+    public void builtinGuardHasNoReadSet() throws Exception {
+        String code = generate("class C { Int a = 0; "
+            + "Unit m() { await timeValue(now()) > 1 && a > 0; } } { }");
+        assertTrue(code, code.contains(ABSExpGuard.class.getName() + "(null, null)"));
+        assertFalse(code, code.contains("new String[] {\"a\"}"));
+    }
+
+    @Test
+    public void guardReevaluatedAfterFieldWrite() throws Exception {
+        // the guard is false after the first write, and must be evaluated
+        // again after the second one
+        assertEvalTrue("interface I { Unit setA(); Unit setB(); Bool both(); } "
+            + "class C implements I { Int a = 0; Int b = 0; "
+            + "  Unit setA() { a = 1; } Unit setB() { b = 1; } "
+            + "  Bool both() { await a > 0 && b > 0; return True; } } "
+            + "{ I o = new C(); Fut<Bool> f = o!both(); "
+            + "  Fut<Unit> fa = o!setA(); fa.get; "
+            + "  Fut<Unit> fb = o!setB(); fb.get; "
+            + "  Bool testresult = f.get; }");
+    }
+
+    @Test
+    public void builtinGuardNotCached() throws Exception {
+        // no field read by waitTime changes while it is suspended, only the
+        // clock does
+        assertEvalTrue("interface I { Unit waitTime(); Unit sleep(); Bool isDone(); } "
+            + "class C implements I { Bool done = False; "
+            + "  Unit waitTime() { await timeValue(now()) >= 1; done = True; } "
+            + "  Unit sleep() { await duration(1, 1); } "
+            + "  Bool isDone() { await done; return done; } } "
+            + "{ I o = new C(); o!waitTime(); o!sleep(); "
+            + "  Fut<Bool> f = o!isDone(); Bool testresult = f.get; }");
+    }
+}
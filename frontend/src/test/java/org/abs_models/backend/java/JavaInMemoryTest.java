@@ -0,0 +1,91 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.abs_models.backend.java.codegeneration.JavaCode;
+import org.abs_models.backend.java.codegeneration.JavaCodeGenerationException;
+import org.abs_models.backend.java.lib.runtime.ABSException;
+import org.abs_models.backend.java.lib.runtime.ABSRuntime;
+import org.abs_models.backend.java.observing.COGView;
+import org.abs_models.backend.java.observing.ObjectView;
+import org.abs_models.backend.java.observing.SystemObserver;
+import org.abs_models.frontend.ast.Model;
+import org.junit.Test;
+
+public class JavaInMemoryTest extends JavaBackendTest {
+
+    private JavaCode compileInMemory(String absCode) throws Exception {
+        Model m = assertParse(absCode, Config.TYPE_CHECK);
+        JavaCode code = JavaCode.inMemory();
+        m.generateJavaCode(code, true);
+        code.compile();
+        return code;
+    }
+
+    private List<ABSException> run(JavaCode code) throws Exception {
+        final ABSRuntime r = makeAbsRuntime();
+        final boolean[] finished = new boolean[] {false};
+        final List<ABSException> exceptions = Collections.synchronizedList(new ArrayList<ABSException>());
+        r.addSystemObserver(new SystemObserver() {
+
+            @Override
+            public void systemStarted() {
+            }
+
+            @Override
+            public void systemFinished() {
+                synchronized (finished) {
+                    finished[0] = true;
+                    finished.notifyAll();
+                }
+            }
+
+            @Override
+            public void systemError(ABSException e) {
+                exceptions.add(e);
+            }
+
+            @Override
+            public void newCOGCreated(COGView cog, ObjectView initialObject) {
+            }
+        });
+        r.start(code.getClassLoader(), code.getFirstMainClass());
+        synchronized (finished) {
+            while (!finished[0]) {
+                finished.wait(100);
+            }
+        }
+        r.shutdown();
+        return exceptions;
+    }
+
+    @Test
+    public void runInMemory() throws Exception {
+        JavaCode code = compileInMemory("module Test; interface I { Int m(); } class C implements I { Int m() { return 42; } }"
+                                        + "{ I o = new C(); Int x = await o!m(); assert x == 42; }");
+        assertNull(code.getSrcDir());
+        assertEquals(Collections.emptyList(), run(code));
+    }
+
+    @Test(expected = JavaCodeGenerationException.class)
+    public void compileErrorsInMemory() throws Exception {
+        JavaCode code = JavaCode.inMemory();
+        try (PrintStream s = code.createPackage("Test").createJavaStream("Broken")) {
+            s.println("package Test;");
+            s.println("public class Broken { int x = \"\"; }");
+        }
+        assertTrue(code.toString().contains("class Broken"));
+        code.compile();
+    }
+}
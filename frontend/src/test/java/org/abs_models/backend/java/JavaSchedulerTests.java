@@ -0,0 +1,105 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.abs_models.backend.java.codegeneration.JavaCode;
+import org.abs_models.backend.java.lib.runtime.ABSException;
+import org.abs_models.backend.java.lib.runtime.ABSRuntime;
+import org.abs_models.backend.java.observing.COGView;
+import org.abs_models.backend.java.observing.ObjectView;
+import org.abs_models.backend.java.observing.SystemObserver;
+import org.junit.Test;
+
+/**
+ * Tests of how the default task scheduler hands a COG to a suspended task.
+ */
+public class JavaSchedulerTests extends JavaBackendTest {
+
+    @Test
+    public void guardHandoff() throws Exception {
+        // the tasks are suspended in reverse order, so each step has to
+        // pick the one task whose guard became true
+        assertEvalTrue("interface T { Unit step(Int i); Int waitAll(Int n); } "
+            + "class Turns implements T { Int turn = 0; "
+            + "  Unit step(Int i) { await turn == i; turn = turn + 1; } "
+            + "  Int waitAll(Int n) { await turn == n; return turn; } } "
+            + "{ T t = new Turns(); Int i = 9; "
+            + "  while (i >= 0) { t!step(i); i = i - 1; } "
+            + "  Fut<Int> f = t!waitAll(10); Int r = f.get; Bool testresult = r == 10; }");
+    }
+
+    @Test
+    public void futureResolvedWhileCOGIdle() throws Exception {
+        // waitFor is suspended, and its COG idle, when slow resolves its future
+        assertEvalTrue("interface S { Int slow(); Unit release(); } "
+            + "class Slow implements S { Bool go = False; "
+            + "  Int slow() { await go; return 42; } Unit release() { go = True; } } "
+            + "interface W { Int waitFor(Fut<Int> f); Unit ping(); } "
+            + "class Waiter implements W { "
+            + "  Int waitFor(Fut<Int> f) { await f?; return f.get; } Unit ping() { } } "
+            + "{ S s = new Slow(); Fut<Int> f = s!slow(); "
+            + "  W w = new Waiter(); Fut<Int> g = w!waitFor(f); "
+            + "  Fut<Unit> p = w!ping(); p.get; "
+            + "  s!release(); Int r = g.get; Bool testresult = r == 42; }");
+    }
+
+    @Test
+    public void builtinGuardResumedByClock() throws Exception {
+        // the clock wakes up waitFor; its guard calls builtins that depend
+        // on the COG of the task evaluating it
+        assertEvalTrue("import * from ABS.DC; "
+            + "interface T { Bool waitFor(); } "
+            + "class C(DeploymentComponent dc) implements T { "
+            + "  Bool waitFor() { await duration(1, 1) & timeValue(now()) >= 1 && thisDC() == dc; return True; } } "
+            + "{ DeploymentComponent dc = new DeploymentComponent(\"dc\", map[]); "
+            + "  [DC: dc] T o = new C(dc); Fut<Bool> f = o!waitFor(); "
+            + "  Bool testresult = f.get; }");
+    }
+
+    @Test
+    public void shutdownInterruptsSuspendedTask() throws Exception {
+        JavaCode javaCode = getJavaCode("module Test; "
+            + "class C { Bool b = False; Unit m() { await b; } } "
+            + "{ C c = new C(); c!m(); }");
+        try {
+            String genDir = javaCode.getSrcDir().getAbsolutePath() + "/gen/test";
+            javaCode.compile("-classpath", LIB_CLASSPATH, "-d", genDir);
+            final ABSRuntime r = makeAbsRuntime();
+            final CountDownLatch finished = new CountDownLatch(1);
+            r.addSystemObserver(new SystemObserver() {
+                @Override
+                public void systemStarted() {
+                }
+
+                @Override
+                public void systemFinished() {
+                    finished.countDown();
+                }
+
+                @Override
+                public void systemError(ABSException e) {
+                }
+
+                @Override
+                public void newCOGCreated(COGView cog, ObjectView initialObject) {
+                }
+            });
+            r.start(new File(genDir), "Test.Main");
+
+            // m stays suspended on its guard
+            assertFalse(finished.await(500, TimeUnit.MILLISECONDS));
+            r.shutdown();
+            assertTrue("suspended task was not interrupted", finished.await(10, TimeUnit.SECONDS));
+        } finally {
+            javaCode.deleteCode();
+        }
+    }
+}
@@ -7,6 +7,7 @@ package org.abs_models.backend.java;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
+import java.util.Arrays;
 
 import org.abs_models.backend.BackendTestDriver;
 import org.abs_models.backend.java.codegeneration.JavaCode;
@@ -25,12 +26,22 @@ public class JavaTestDriver implements BackendTestDriver {
         javaTest = new JavaBackendTest();
     }
 
+    /**
+     * Runs the compiled models with the given runtime options, e.g.,
+     * <code>-taskscheduler=pool</code>.
+     */
+    public JavaTestDriver(String... runtimeOptions) {
+        javaTest = new JavaBackendTest();
+        javaTest.absArgs.addAll(Arrays.asList(runtimeOptions));
+    }
+
     /**
      * Used by JUnit.
      */
     @Override
     public String toString() {
-        return "JavaBackend"+ ( javaTest.seed == JavaBackendTest.seed_UNUSED ?  "" : (" seed="+Long.toString(javaTest.seed)));
+        return "JavaBackend"+ ( javaTest.seed == JavaBackendTest.seed_UNUSED ?  "" : (" seed="+Long.toString(javaTest.seed)))
+            + (javaTest.absArgs.isEmpty() ? "" : " " + String.join(" ", javaTest.absArgs));
     }
 
     @Override
@@ -71,6 +82,12 @@ public class JavaTestDriver implements BackendTestDriver {
     @Override
     public boolean supportsTimedAbs() { return false; }
 
+    @Override
+    public boolean supportsSimulatedClock() { return true; }
+
+    @Override
+    public boolean supportsResources() { return true; }
+
     @Override
     public boolean supportsExceptions() { return false; }
 
@@ -64,6 +64,12 @@ public class JavaDynamicTestDriver implements BackendTestDriver {
     @Override
     public boolean supportsTimedAbs() { return false; }
 
+    @Override
+    public boolean supportsSimulatedClock() { return false; }
+
+    @Override
+    public boolean supportsResources() { return false; }
+
     @Override
     public boolean supportsExceptions() { return false; }
 
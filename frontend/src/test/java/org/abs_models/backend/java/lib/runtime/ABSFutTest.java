@@ -0,0 +1,79 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.abs_models.backend.java.lib.types.ABSInteger;
+import org.abs_models.backend.java.lib.types.ABSValue;
+import org.junit.Test;
+
+public class ABSFutTest {
+
+    private static class TestFut extends ABSFut<ABSValue> {
+        @Override
+        public ABSValue get() {
+            await();
+            return getValue();
+        }
+    }
+
+    @Test
+    public void futureIDsIncreasePerCOG() {
+        ABSRuntime runtime = new ABSRuntime();
+        COG a = new COG(runtime, Object.class, null);
+        COG b = new COG(runtime, Object.class, null);
+        Set<Integer> ids = new HashSet<>();
+        int lastA = 0;
+        int lastB = 0;
+        for (int i = 0; i < 5000; i++) {
+            int idA = a.freshFutID();
+            assertTrue(idA > lastA);
+            lastA = idA;
+            ids.add(idA);
+            if (i % 3 == 0) {
+                int idB = b.freshFutID();
+                assertTrue(idB > lastB);
+                lastB = idB;
+                ids.add(idB);
+            }
+        }
+        assertEquals(5000 + 1667, ids.size());
+    }
+
+    @Test
+    public void concurrentSecondResolveChangesNothing() throws Exception {
+        for (int round = 0; round < 1000; round++) {
+            final TestFut fut = new TestFut();
+            final CyclicBarrier start = new CyclicBarrier(2);
+            final AtomicInteger failures = new AtomicInteger();
+            Thread[] resolvers = new Thread[2];
+            for (int i = 0; i < resolvers.length; i++) {
+                final ABSValue v = ABSInteger.fromInt(i);
+                resolvers[i] = new Thread(() -> {
+                    try {
+                        start.await();
+                        fut.resolve(v);
+                    } catch (IllegalStateException e) {
+                        failures.incrementAndGet();
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                });
+                resolvers[i].start();
+            }
+            ABSValue seen = fut.get();
+            for (Thread t : resolvers) t.join();
+            assertEquals(1, failures.get());
+            // the value a waiter saw is the one the future keeps
+            assertTrue(seen == fut.getValue());
+        }
+    }
+}
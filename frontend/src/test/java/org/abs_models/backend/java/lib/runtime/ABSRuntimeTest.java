@@ -0,0 +1,66 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.runtime;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Test;
+
+public class ABSRuntimeTest {
+
+    private static final int THREADS = 8;
+    private static final int IDS_PER_THREAD = 10000;
+
+    @Test
+    public void freshObjectIDsAreUniquePerClass() throws Exception {
+        final ABSRuntime runtime = new ABSRuntime();
+        final Class<?>[] classes = { String.class, Integer.class, Long.class };
+        final List<Set<Long>> ids = new ArrayList<>();
+        for (int i = 0; i < classes.length; i++) ids.add(ConcurrentHashMap.newKeySet());
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                final int offset = t;
+                results.add(pool.submit((Callable<Void>) () -> {
+                    start.await();
+                    for (int i = 0; i < IDS_PER_THREAD; i++) {
+                        // every thread starts with a different class, so
+                        // that the counters are created concurrently
+                        int c = (i + offset) % classes.length;
+                        assertTrue("duplicate ID",
+                                   ids.get(c).add(runtime.getFreshObjectID(classes[c])));
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : results) f.get();
+        } finally {
+            pool.shutdownNow();
+        }
+        int total = 0;
+        for (int c = 0; c < classes.length; c++) {
+            Set<Long> classIds = ids.get(c);
+            total += classIds.size();
+            // the IDs of each class are 1..n without gaps
+            for (long id = 1; id <= classIds.size(); id++) {
+                assertTrue(classIds.contains(id));
+            }
+        }
+        assertEquals(THREADS * IDS_PER_THREAD, total);
+    }
+}
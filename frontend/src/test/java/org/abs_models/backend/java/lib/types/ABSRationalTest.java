@@ -0,0 +1,74 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.backend.java.lib.types;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Tests that values go over to apfloat when an operation overflows, and
+ * back to longs when the result fits again.
+ */
+public class ABSRationalTest {
+
+    private static final ABSInteger BIG = ABSInteger.fromLong(1L << 62);
+
+    @Test
+    public void integerOverflowAndBack() {
+        ABSInteger x = ABSInteger.fromLong(3).multiply(BIG);
+        assertFalse(x.isSmall());
+        assertEquals("13835058055282163712", x.toString());
+        ABSRational y = x.divide(BIG);
+        assertTrue(y.isSmall());
+        assertEquals("3", y.toString());
+        ABSInteger z = x.subtract(BIG).subtract(BIG).subtract(BIG);
+        assertTrue(z.isSmall());
+        assertTrue(z.eq(ABSInteger.ZERO).toBoolean());
+    }
+
+    @Test
+    public void rationalOverflowAndBack() {
+        ABSRational third = ABSRational.fromLong(1).divide(ABSRational.fromLong(3));
+        ABSRational x = third.multiply(BIG).multiply(BIG);
+        assertFalse(x.isSmall());
+        ABSRational y = x.divide(BIG).divide(BIG);
+        assertTrue(y.isSmall());
+        assertTrue(y.eq(third).toBoolean());
+    }
+
+    @Test
+    public void modBackToLong() {
+        ABSInteger x = BIG.multiply(ABSInteger.fromLong(16));
+        assertFalse(x.isSmall());
+        ABSInteger m = x.mod(ABSInteger.fromLong(7));
+        assertTrue(m.isSmall());
+        assertEquals("2", m.toString());
+    }
+
+    @Test
+    public void smallMod() {
+        assertEquals("1", ABSRational.fromLong(7).mod(ABSRational.fromLong(3)).toString());
+        // the result has the sign of the dividend, as with apfloat
+        assertEquals("-1", ABSRational.fromLong(-7).mod(ABSRational.fromLong(3)).toString());
+        ABSRational sevenHalves = ABSRational.fromString("7/2");
+        ABSRational third = ABSRational.fromString("1/3");
+        ABSRational m = sevenHalves.mod(third);
+        assertTrue(m.isSmall());
+        assertEquals("1/6", m.toString());
+        assertEquals(sevenHalves.toAprational().mod(third.toAprational()).toString(), m.toString());
+    }
+
+    @Test
+    public void parsedAndConvertedValuesAreSmall() {
+        assertTrue(ABSRational.fromString("1/3").isSmall());
+        assertTrue(ABSInteger.fromString("12345").isSmall());
+        assertFalse(ABSInteger.fromString("123456789012345678901234567890").isSmall());
+        ABSRational half = ABSRational.fromDouble(0.5);
+        assertTrue(half.isSmall());
+        assertEquals("1/2", half.toString());
+    }
+}
@@ -67,6 +67,12 @@ public class MaudeTestDriver implements BackendTestDriver {
     @Override
     public boolean supportsTimedAbs() { return maude.mode == MaudeCompiler.SIMULATOR.EQ_TIMED; }
 
+    @Override
+    public boolean supportsSimulatedClock() { return supportsTimedAbs(); }
+
+    @Override
+    public boolean supportsResources() { return supportsTimedAbs(); }
+
     @Override
     // MISSING: recovery block, throwing exceptions from expressions
     public boolean supportsExceptions() { return false; }
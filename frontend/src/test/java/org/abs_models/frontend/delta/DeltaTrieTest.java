@@ -7,6 +7,10 @@ package org.abs_models.frontend.delta;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.util.ArrayList;
+import java.util.List;
+
+import org.abs_models.frontend.analyser.SemanticCondition;
 import org.abs_models.frontend.analyser.SemanticConditionList;
 import org.abs_models.frontend.ast.Model;
 import org.abs_models.frontend.ast.ProductLine;
@@ -100,4 +104,65 @@ public class DeltaTrieTest extends DeltaTest {
         // TODO: tests
     }
 
+    private static final String ERRONEOUS_PL = "module Test;"
+        + "class C { Int f = 0; Unit m() {} }"
+        + "delta D1; uses Test; adds class C1 {} modifies class C { adds Int f = 1; }"
+        + "delta D2; uses Test; removes class C2; modifies class C { removes Unit n(); }"
+        + "delta D3; uses Test; adds class C1 {} removes class C;"
+        + "delta D4; uses Test; modifies class C { adds Unit m() {} }"
+        + "productline PL;"
+        + "features A,B,F,G;"
+        + "delta D1 when A;"
+        + "delta D2 after D1 when B;"
+        + "delta D3 after D1,D2 when F;"
+        + "delta D4 after D1,D2,D3 when G;"
+        + "root FM {"
+        + " group [0 .. *] { A, B, F, G }"
+        + "}";
+
+    private List<String> typeCheckTrie(int threads) {
+        Model model = assertParse(ERRONEOUS_PL);
+        SemanticConditionList errors = new SemanticConditionList();
+        ProductLineAnalysisHelper.buildPFGT(model.getProductLine(), errors, threads, false);
+        List<String> result = new ArrayList<>();
+        for (SemanticCondition c : errors) {
+            result.add(c.getHelpMessage());
+        }
+        return result;
+    }
+
+    @Test
+    public void sameErrorsOnAllThreadCounts() {
+        List<String> sequential = typeCheckTrie(1);
+        assertTrue(sequential.size() > 5);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sequential, typeCheckTrie(4));
+        }
+    }
+
+    private List<String> trieAbstractions(int threads) {
+        Model model = assertParse(ERRONEOUS_PL);
+        DeltaTrie trie = ProductLineAnalysisHelper.buildPFGT(model.getProductLine(), new SemanticConditionList(), threads, true);
+        List<String> result = new ArrayList<>();
+        collectAbstractions(trie.getRoot(), "", result);
+        return result;
+    }
+
+    private static void collectAbstractions(DeltaTrie.Node node, String path, List<String> result) {
+        String nodePath = path + "/" + node.getDeltaID();
+        result.add(nodePath + (node.isValidProduct() ? " (product)" : "") + "\n" + node.getProgramAbstraction());
+        for (DeltaTrie.Node child : node.getChildren().values()) {
+            collectAbstractions(child, nodePath, result);
+        }
+    }
+
+    @Test
+    public void sameAbstractionsOnAllThreadCounts() {
+        List<String> sequential = trieAbstractions(1);
+        assertTrue(sequential.size() > 8);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(sequential, trieAbstractions(4));
+        }
+    }
+
 }
@@ -0,0 +1,90 @@
+/**
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.delta;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.abs_models.backend.prettyprint.DefaultABSFormatter;
+import org.abs_models.frontend.ast.Model;
+import org.abs_models.frontend.ast.ModuleDecl;
+import org.abs_models.frontend.ast.Product;
+import org.abs_models.frontend.ast.ProductDecl;
+import org.junit.Test;
+
+public class ProductFamilyFlattenerTest extends DeltaTest {
+
+    private static final String MODEL =
+        "module M;"
+        + "interface I { Int m(); }"
+        + "class C implements I { Int m() { return 1; } }"
+        + "data D = D1;"
+        + "delta DA; uses M;"
+        + "modifies class C { modifies Int m() { Int x = original(); return x + 1; } }"
+        + "adds data E = E1;"
+        + "delta DB(Int n); uses M;"
+        + "modifies class C { adds Int f = n; modifies Int m() { return original() * f; } }"
+        + "modifies data D = D1 | D2;"
+        + "delta DC; uses M;"
+        + "modifies interface I { adds Unit n(); }"
+        + "modifies class C { adds Unit n() { } }"
+        + "adds class K { }"
+        + "delta DD; uses M;"
+        + "removes class C;"
+        + "productline PL;"
+        + "features A, B, G, X;"
+        + "delta DA when A;"
+        + "delta DB(2) after DA when B && !G;"
+        + "delta DB(3) after DA when B && G;"
+        + "delta DC after DA, DB when G;"
+        + "delta DD after DC when X;"
+        + "product P1();"
+        + "product P2 = {A};"
+        + "product P3 = {A, B};"
+        + "product P4 = {A, B, G};"
+        + "product P5 = {B, G};"
+        + "product P6 = {A, G};"
+        + "product P7 = {A, G, X};"
+        + "product P8 = {A, B};";
+
+    private static String prettyPrintModules(Model m) {
+        StringWriter writer = new StringWriter();
+        PrintWriter w = new PrintWriter(writer);
+        for (ModuleDecl module : m.getModuleDecls()) {
+            if (module.getName().startsWith("ABS.")) continue;
+            module.doPrettyPrint(w, new DefaultABSFormatter(w));
+        }
+        w.flush();
+        return writer.toString();
+    }
+
+    @Test
+    public void sameProductsAsFlatteningOneByOne() throws Exception {
+        Map<String, String> expected = new HashMap<>();
+        Model m = assertParse(MODEL);
+        for (ProductDecl p : m.getProductDecls()) {
+            Model copy = assertParse(MODEL);
+            copy.flattenForProduct(p.getProduct());
+            expected.put(p.getProduct().getFeatureSetAsString(), prettyPrintModules(copy));
+        }
+
+        ProductFamilyFlattener flattener = new ProductFamilyFlattener(m);
+        for (ProductDecl p : m.getProductDecls()) {
+            flattener.addProduct(p.getProduct());
+        }
+        Map<String, String> actual = new HashMap<>();
+        flattener.flattenAll((Product product, Model model) ->
+                actual.put(product.getFeatureSetAsString(), prettyPrintModules(model)));
+        assertEquals(expected, actual);
+
+        // the model is back in its unflattened state
+        Model core = assertParse(MODEL);
+        core.applyTraits();
+        assertEquals(prettyPrintModules(core), prettyPrintModules(m));
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.abs_models.Absc;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class CompilerDaemonTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("abscdaemon").toFile();
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(dir);
+    }
+
+    private void write(String name, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(dir, "src/" + name), content, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void reparseChangedFilesOnly() throws Exception {
+        write("A.abs", "module A; export *; def Int f(Int x) = x + 1;");
+        write("B.abs", "module B; import * from A; def Int g(Int x) = f(x);");
+        Absc arguments = Absc.parseArgs(new String[] { "--daemon", new File(dir, "src").getPath() });
+        CompilerDaemon daemon = new CompilerDaemon(arguments);
+
+        assertEquals(0, daemon.compile());
+        // A.abs, B.abs and the standard library
+        assertEquals(3, arguments.parseCache.getParsedFileCount());
+
+        assertEquals(0, daemon.compile());
+        assertEquals(0, arguments.parseCache.getParsedFileCount());
+
+        // a type error in an unchanged file is still reported
+        write("A.abs", "module A; export *; def Bool f(Int x) = x > 1;");
+        assertEquals(1, daemon.compile());
+        assertEquals(1, arguments.parseCache.getParsedFileCount());
+
+        write("B.abs", "module B; import * from A; def Bool g(Int x) = f(x);");
+        assertEquals(0, daemon.compile());
+        assertEquals(1, arguments.parseCache.getParsedFileCount());
+        assertEquals(3, arguments.parseCache.getFileCount());
+    }
+
+    @Test
+    public void recompileChangedJavaFilesOnly() throws Exception {
+        write("A.abs", "module A; export *; def Int f(Int x) = x + 1; def Int h(Int x) = x;");
+        write("B.abs", "module B; import * from A; def Int g(Int x) = h(x); { Int x = g(1); }");
+        File gen = new File(dir, "gen");
+        Absc arguments = Absc.parseArgs(new String[] { "--daemon", "--java", "-d", gen.getPath(), new File(dir, "src").getPath() });
+        CompilerDaemon daemon = new CompilerDaemon(arguments);
+
+        assertEquals(0, daemon.compile());
+        int all = arguments.incrementalJavaCode.getCompiledFileCount();
+        assertTrue(new File(gen, "A/f_f.class").exists());
+
+        assertEquals(0, daemon.compile());
+        assertEquals(0, arguments.incrementalJavaCode.getChangedFileCount());
+        assertEquals(0, arguments.incrementalJavaCode.getCompiledFileCount());
+
+        write("A.abs", "module A; export *; def Int f(Int x) = x + 2; def Int h(Int x) = x;");
+        assertEquals(0, daemon.compile());
+        assertEquals(1, arguments.incrementalJavaCode.getChangedFileCount());
+        int compiled = arguments.incrementalJavaCode.getCompiledFileCount();
+        assertTrue(compiled >= 1 && compiled < all);
+        assertTrue(new File(gen, "A/f_f.class").exists());
+    }
+}
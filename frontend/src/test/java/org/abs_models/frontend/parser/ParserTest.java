@@ -4,8 +4,13 @@
  */
 package org.abs_models.frontend.parser;
 
+import java.io.File;
 import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
+import org.abs_models.common.Timings;
 import org.abs_models.frontend.FrontendTest;
 import org.abs_models.frontend.ast.CompilationUnit;
 import org.abs_models.frontend.ast.DeltaDecl;
@@ -495,4 +500,26 @@ public class ParserTest extends FrontendTest {
         if (m.hasParserErrors())
             fail(m.getParserErrors().get(0).toString());
     }
+
+    /**
+     * Files are parsed concurrently; the compilation units must still come
+     * in the order of the files, followed by the standard library.
+     */
+    @Test
+    public void compilationUnitOrder() throws Exception {
+        File dir = new File(resolveFileName("examples/SmartHome/abs/"));
+        List<String> expected = new ArrayList<>();
+        for (File f : dir.listFiles()) {
+            if (Main.isABSSourceFile(f)) expected.add(f.getPath());
+        }
+        expected.add(Main.ABS_STD_LIB);
+        for (int i = 0; i < 3; i++) {
+            Model m = Main.parseFiles(false, Timings.DISABLED, null, Arrays.asList(dir));
+            List<String> actual = new ArrayList<>();
+            for (CompilationUnit u : m.getCompilationUnits()) {
+                actual.add(u.getName());
+            }
+            Assert.assertEquals(expected, actual);
+        }
+    }
 }
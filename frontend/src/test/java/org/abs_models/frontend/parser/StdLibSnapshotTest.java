@@ -0,0 +1,59 @@
+/**
+ * Copyright (c) 2009-2011, The HATS Consortium. All rights reserved.
+ * This file is licensed under the terms of the Modified BSD License.
+ */
+package org.abs_models.frontend.parser;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.abs_models.common.Timings;
+import org.abs_models.frontend.FrontendTest;
+import org.abs_models.frontend.ast.CompilationUnit;
+import org.abs_models.frontend.ast.List;
+import org.abs_models.frontend.ast.Model;
+import org.junit.Test;
+
+public class StdLibSnapshotTest extends FrontendTest {
+
+    private static byte[] snapshot(byte[] source) throws Exception {
+        CompilationUnit u = Main.parseStdLib(source, Timings.DISABLED);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        StdLibSnapshot.write(u, source, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void snapshotTypechecks() throws Exception {
+        byte[] source = Main.getStdLibSource();
+        CompilationUnit u = StdLibSnapshot.read(new ByteArrayInputStream(snapshot(source)), source);
+        assertNotNull(u);
+        assertEquals(Main.parseStdLib(source, Timings.DISABLED).getNumModuleDecl(), u.getNumModuleDecl());
+        Model m = new Model(new List<CompilationUnit>().add(u));
+        assertFalse(m.hasParserErrors());
+        assertFalse(m.getErrors().containsErrors());
+        assertFalse(m.typeCheck().containsErrors());
+    }
+
+    @Test
+    public void staleSnapshot() throws Exception {
+        byte[] source = Main.getStdLibSource();
+        byte[] changed = (new String(source, StandardCharsets.UTF_8) + "\n").getBytes(StandardCharsets.UTF_8);
+        assertNull(StdLibSnapshot.read(new ByteArrayInputStream(snapshot(source)), changed));
+    }
+
+    @Test
+    public void corruptSnapshot() throws Exception {
+        byte[] source = Main.getStdLibSource();
+        byte[] data = snapshot(source);
+        byte[] truncated = Arrays.copyOf(data, data.length / 2);
+        assertNull(StdLibSnapshot.read(new ByteArrayInputStream(truncated), source));
+    }
+}